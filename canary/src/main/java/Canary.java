@@ -3,7 +3,12 @@
  * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
  */
 import clients.AdminClient;
+import clients.CatchUpReadProbe;
 import clients.Consumer;
+import clients.FollowerFetchConsumer;
+import clients.GroupCoordinatorProbe;
+import clients.PartitionShard;
+import clients.RebalanceProbe;
 import clients.Producer;
 import common.metrics.MetricsRegistry;
 import config.CanaryConfiguration;
@@ -13,34 +18,67 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import status.StatusService;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 public class Canary {
 
     private static final Logger LOGGER = LogManager.getLogger(Canary.class);
-    private static final int THREAD_POOL_SIZE = 2;
-
-    private Producer producer;
-    private Consumer consumer;
+    // used only with the platform threads, in the virtual mode every run of a task gets its own thread
+    private static final int THREAD_POOL_SIZE = 5;
+
+    // every producer and consumer owns a disjoint subset of the partitions, see PartitionShard
+    private List<Producer> producers;
+    private List<Consumer> consumers;
+    // one per configured rack
+    private List<FollowerFetchConsumer> followerFetchConsumers;
     private AdminClient adminClient;
     private CanaryConfiguration canaryConfiguration;
     private StatusService status;
+    // created only when the probe is enabled
+    private final GroupCoordinatorProbe groupCoordinatorProbe;
+    private final RebalanceProbe rebalanceProbe;
+    private final CatchUpReadProbe catchUpReadProbe;
     private final ScheduledExecutorService scheduledExecutor;
-    private final ConsumerInfiniteRunnable consumerInfiniteRunnable;
-    private final Thread consumerThread;
+    // runs the periodic probes of the producers, one thread per producer, so a blocked send doesn't delay the other shards
+    private final ScheduledExecutorService producerExecutor;
+    // runs the probes blocking for up to their timeouts, one thread per enabled probe, so they can't take the threads of the status check
+    private final ScheduledExecutorService probeExecutor;
+    private final List<ConsumerInfiniteRunnable> consumerInfiniteRunnables = new ArrayList<>();
+    private final List<Thread> consumerThreads = new ArrayList<>();
+    private final List<ProducerLoadRunnable> producerLoadRunnables = new ArrayList<>();
+    private final List<Thread> producerLoadThreads = new ArrayList<>();
+    // accessed only by the cluster size reconciliation task
+    private int clusterSize;
+    private List<Integer> brokerIds = List.of();
 
     Canary(CanaryConfiguration configuration) {
-        Producer producer;
-        Consumer consumer;
+        List<Producer> producers = new ArrayList<>();
+        List<Consumer> consumers = new ArrayList<>();
+        List<FollowerFetchConsumer> followerFetchConsumers = new ArrayList<>();
         AdminClient adminClient;
+        GroupCoordinatorProbe groupCoordinatorProbe;
+        RebalanceProbe rebalanceProbe;
+        CatchUpReadProbe catchUpReadProbe;
 
         try {
-            producer = new Producer(configuration);
-            consumer = new Consumer(configuration);
+            // more shards than partitions would leave some of them idle
+            for (PartitionShard shard : PartitionShard.create(Math.min(configuration.getProducerShards(), configuration.getExpectedClusterSize()))) {
+                producers.add(new Producer(configuration, shard));
+            }
+            for (PartitionShard shard : PartitionShard.create(Math.min(configuration.getConsumerThreads(), configuration.getExpectedClusterSize()))) {
+                consumers.add(new Consumer(configuration, shard));
+            }
+            for (String rack : configuration.getFollowerFetchRacks()) {
+                followerFetchConsumers.add(new FollowerFetchConsumer(configuration, rack));
+            }
             adminClient = new AdminClient(configuration);
+            groupCoordinatorProbe = configuration.getGroupCoordinatorProbeInterval() > 0 ? new GroupCoordinatorProbe(configuration, adminClient) : null;
+            rebalanceProbe = configuration.getRebalanceProbeInterval() > 0 ? new RebalanceProbe(configuration) : null;
+            catchUpReadProbe = configuration.getCatchUpProbeInterval() > 0 ? new CatchUpReadProbe(configuration) : null;
         } catch (KafkaException e) {
             MetricsRegistry.getInstance().getClientCreationErrorTotal().increment();
             LOGGER.error("Failed to create Kafka client: {}", e.getMessage());
@@ -48,23 +86,58 @@ public class Canary {
             throw new RuntimeException(e);
         }
 
-        this.producer = producer;
-        this.consumer = consumer;
+        this.producers = List.copyOf(producers);
+        this.consumers = List.copyOf(consumers);
+        this.followerFetchConsumers = List.copyOf(followerFetchConsumers);
         this.adminClient = adminClient;
+        this.groupCoordinatorProbe = groupCoordinatorProbe;
+        this.rebalanceProbe = rebalanceProbe;
+        this.catchUpReadProbe = catchUpReadProbe;
         this.status = new StatusService(configuration);
 
         this.canaryConfiguration = configuration;
-        this.scheduledExecutor = Executors.newScheduledThreadPool(THREAD_POOL_SIZE, r -> new Thread(r, "canary"));
-        this.consumerInfiniteRunnable = new ConsumerInfiniteRunnable(this.consumer);
-        this.consumerThread = new Thread(this.consumerInfiniteRunnable, "canary-consumer");
+        this.clusterSize = configuration.getExpectedClusterSize();
+        this.scheduledExecutor = configuration.getThreadMode().newScheduledExecutor(THREAD_POOL_SIZE, "canary");
+        this.producerExecutor = configuration.getThreadMode().newScheduledExecutor(this.producers.size(), "canary-producer");
+        this.probeExecutor = configuration.getThreadMode().newScheduledExecutor(Math.max(1, enabledProbesCount()), "canary-probe");
+
+        for (int i = 0; i < this.consumers.size(); i++) {
+            ConsumerInfiniteRunnable consumerInfiniteRunnable = new ConsumerInfiniteRunnable(this.consumers.get(i)::receiveMessages);
+            this.consumerInfiniteRunnables.add(consumerInfiniteRunnable);
+            this.consumerThreads.add(configuration.getThreadMode().newThread(consumerInfiniteRunnable, new PartitionShard(i, this.consumers.size()).clientId("canary-consumer")));
+        }
+
+        for (int i = 0; i < this.followerFetchConsumers.size(); i++) {
+            ConsumerInfiniteRunnable consumerInfiniteRunnable = new ConsumerInfiniteRunnable(this.followerFetchConsumers.get(i)::receiveMessages);
+            this.consumerInfiniteRunnables.add(consumerInfiniteRunnable);
+            this.consumerThreads.add(configuration.getThreadMode().newThread(consumerInfiniteRunnable, "canary-consumer-" + configuration.getFollowerFetchRacks().get(i)));
+        }
+
+        for (int i = 0; i < this.producers.size(); i++) {
+            ProducerLoadRunnable producerLoadRunnable = new ProducerLoadRunnable(this.producers.get(i));
+            this.producerLoadRunnables.add(producerLoadRunnable);
+            this.producerLoadThreads.add(configuration.getThreadMode().newThread(producerLoadRunnable, new PartitionShard(i, this.producers.size()).clientId("canary-producer-load")));
+        }
     }
 
-    public Producer getProducer() {
-        return this.producer;
+    private int enabledProbesCount() {
+        int count = 0;
+
+        for (Object probe : new Object[] {this.groupCoordinatorProbe, this.rebalanceProbe, this.catchUpReadProbe}) {
+            if (probe != null) {
+                count++;
+            }
+        }
+
+        return count;
     }
 
-    public Consumer getConsumer() {
-        return this.consumer;
+    public List<Producer> getProducers() {
+        return this.producers;
+    }
+
+    public List<Consumer> getConsumers() {
+        return this.consumers;
     }
 
     public AdminClient getAdminClient() {
@@ -79,12 +152,12 @@ public class Canary {
         return this.status;
     }
 
-    public Thread getConsumerThread() {
-        return consumerThread;
+    public List<Thread> getConsumerThreads() {
+        return consumerThreads;
     }
 
-    public ConsumerInfiniteRunnable getConsumerInfiniteRunnable() {
-        return consumerInfiniteRunnable;
+    public List<ConsumerInfiniteRunnable> getConsumerInfiniteRunnables() {
+        return consumerInfiniteRunnables;
     }
 
     public void start() {
@@ -95,29 +168,88 @@ public class Canary {
         LOGGER.info("Kafka cluster have expected number of brokers, continuing with start operations");
 
         this.getAdminClient().start();
-        this.getConsumer().start();
-        this.getProducer().start();
+        this.getConsumers().forEach(Consumer::start);
+        this.followerFetchConsumers.forEach(FollowerFetchConsumer::start);
+        this.getProducers().forEach(Producer::start);
+
+        this.getConsumerThreads().forEach(Thread::start);
 
-        this.getConsumerThread().start();
-        scheduledExecutor.scheduleAtFixedRate(this.getProducer()::sendMessages, 0,  canaryConfiguration.getReconcileInterval(), TimeUnit.MILLISECONDS);
+        for (int i = 0; i < this.getProducers().size(); i++) {
+            Producer producer = this.getProducers().get(i);
+
+            if (producer.isRateControlled()) {
+                this.producerLoadThreads.get(i).start();
+            } else {
+                producerExecutor.scheduleAtFixedRate(producer::sendMessages, 0,  canaryConfiguration.getReconcileInterval(), TimeUnit.MILLISECONDS);
+            }
+        }
         scheduledExecutor.scheduleAtFixedRate(this.getStatusService()::statusCheck, 0,  canaryConfiguration.getStatusCheckInterval(), TimeUnit.MILLISECONDS);
+        scheduledExecutor.scheduleAtFixedRate(this::reconcileClusterSize, canaryConfiguration.getReconcileInterval(),  canaryConfiguration.getReconcileInterval(), TimeUnit.MILLISECONDS);
+
+        if (this.groupCoordinatorProbe != null) {
+            this.groupCoordinatorProbe.start();
+            probeExecutor.scheduleAtFixedRate(this.groupCoordinatorProbe::probe, 0, canaryConfiguration.getGroupCoordinatorProbeInterval(), TimeUnit.MILLISECONDS);
+        }
+
+        if (this.rebalanceProbe != null) {
+            this.rebalanceProbe.start();
+            probeExecutor.scheduleAtFixedRate(this.rebalanceProbe::probe, canaryConfiguration.getRebalanceProbeInterval(),
+                canaryConfiguration.getRebalanceProbeInterval(), TimeUnit.MILLISECONDS);
+        }
+
+        if (this.catchUpReadProbe != null) {
+            this.catchUpReadProbe.start();
+            // the first probe waits for the interval, so some history is there
+            probeExecutor.scheduleAtFixedRate(this.catchUpReadProbe::probe, canaryConfiguration.getCatchUpProbeInterval(),
+                canaryConfiguration.getCatchUpProbeInterval(), TimeUnit.MILLISECONDS);
+        }
+
+        if (canaryConfiguration.getOffsetsExportInterval() > 0) {
+            scheduledExecutor.scheduleAtFixedRate(this.getAdminClient()::updatePartitionOffsets, 0,
+                canaryConfiguration.getOffsetsExportInterval(), TimeUnit.MILLISECONDS);
+        }
+
+        if (canaryConfiguration.getLeadershipReconcileInterval() > 0) {
+            scheduledExecutor.scheduleAtFixedRate(this.getAdminClient()::reconcileLeadership, canaryConfiguration.getLeadershipReconcileInterval(),
+                canaryConfiguration.getLeadershipReconcileInterval(), TimeUnit.MILLISECONDS);
+        }
     }
 
     public void stop() {
         LOGGER.info("Shutting down Canary");
 
-        this.stopConsumerThread();
-        this.getProducer().stop();
-        this.getConsumer().stop();
+        this.stopConsumerThreads();
+        this.stopProducerLoadThreads();
+        producerExecutor.shutdownNow();
+        probeExecutor.shutdownNow();
+        this.getProducers().forEach(Producer::stop);
+        this.getConsumers().forEach(Consumer::stop);
+        this.followerFetchConsumers.forEach(FollowerFetchConsumer::stop);
+
+        if (this.groupCoordinatorProbe != null) {
+            this.groupCoordinatorProbe.stop();
+        }
+
+        if (this.rebalanceProbe != null) {
+            this.rebalanceProbe.stop();
+        }
+
+        if (this.catchUpReadProbe != null) {
+            this.catchUpReadProbe.stop();
+        }
+
         this.getAdminClient().stop();
 
         scheduledExecutor.shutdownNow();
     }
 
-    private void stopConsumerThread() {
+    private void stopConsumerThreads() {
         try {
-            this.getConsumerInfiniteRunnable().stop();
-            this.getConsumerThread().join();
+            this.getConsumerInfiniteRunnables().forEach(ConsumerInfiniteRunnable::stop);
+
+            for (Thread consumerThread : this.getConsumerThreads()) {
+                consumerThread.join();
+            }
         } catch (InterruptedException e) {
             LOGGER.error("Failed to close the Consumer thread: {}", e.getMessage());
             e.printStackTrace();
@@ -125,8 +257,57 @@ public class Canary {
         }
     }
 
+    private void stopProducerLoadThreads() {
+        try {
+            for (int i = 0; i < this.producerLoadThreads.size(); i++) {
+                Thread producerLoadThread = this.producerLoadThreads.get(i);
+
+                if (producerLoadThread.isAlive()) {
+                    this.producerLoadRunnables.get(i).stop();
+                    // wakes up the thread waiting for the next token
+                    producerLoadThread.interrupt();
+                    producerLoadThread.join();
+                }
+            }
+        } catch (InterruptedException e) {
+            LOGGER.error("Failed to close the Producer load thread: {}", e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Follows the changes of the broker set after the start, when the cluster grows, the canary topic gets
+     * the partitions for the new brokers and the producer and consumer switch to them
+     * Partitions can't be removed, so the canary keeps probing all of them when the cluster shrinks.
+     */
+    private void reconcileClusterSize() {
+        List<Integer> currentBrokerIds = this.getAdminClient().describeBrokerIds();
+
+        if (currentBrokerIds.isEmpty()) {
+            return;
+        }
+
+        if (!currentBrokerIds.equals(this.brokerIds)) {
+            LOGGER.info("Kafka cluster brokers changed from {} to {}", this.brokerIds, currentBrokerIds);
+            this.brokerIds = currentBrokerIds;
+        }
+
+        if (currentBrokerIds.size() <= this.clusterSize) {
+            return;
+        }
+
+        if (this.getAdminClient().expandTopic(currentBrokerIds.size())) {
+            this.clusterSize = currentBrokerIds.size();
+            // the consumer reads the new partitions from the beginning, so it doesn't matter which client switches first
+            this.getConsumers().forEach(consumer -> consumer.updatePartitionCount(this.clusterSize));
+            this.followerFetchConsumers.forEach(consumer -> consumer.updatePartitionCount(this.clusterSize));
+            this.getProducers().forEach(producer -> producer.updatePartitionCount(this.clusterSize));
+        }
+    }
+
     private void waitForClusterExpectedSize() {
-        ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1, r -> new Thread(r, "canary"));
+        ScheduledExecutorService executorService = canaryConfiguration.getThreadMode().newScheduledExecutor(1, "canary");
 
         CountDownLatch latch = new CountDownLatch(1);
 
@@ -154,12 +335,37 @@ public class Canary {
         }
     }
 
+    /**
+     * Polls one of the consumers until stopped, the poll is the consumer's receiveMessages method
+     */
     public static class ConsumerInfiniteRunnable implements Runnable {
         private volatile boolean running = true;
-        private final Consumer consumer;
+        private final Runnable receiveMessages;
+
+        ConsumerInfiniteRunnable(Runnable receiveMessages) {
+            this.receiveMessages = receiveMessages;
+        }
+
+        public void stop() {
+            running = false;
+        }
+
+        public void run() {
+            while (running) {
+                this.receiveMessages.run();
+            }
+        }
+    }
+
+    /**
+     * Runs the open-loop producer load, the pace is driven by the producer's token bucket
+     */
+    public static class ProducerLoadRunnable implements Runnable {
+        private volatile boolean running = true;
+        private final Producer producer;
 
-        ConsumerInfiniteRunnable(Consumer consumer) {
-            this.consumer = consumer;
+        ProducerLoadRunnable(Producer producer) {
+            this.producer = producer;
         }
 
         public void stop() {
@@ -168,7 +374,12 @@ public class Canary {
 
         public void run() {
             while (running) {
-                this.consumer.receiveMessages();
+                try {
+                    this.producer.sendPacedMessage();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
             }
         }
     }
@@ -5,27 +5,44 @@
 package clients;
 
 import common.metrics.MetricsRegistry;
+import common.offset.OffsetCommitMode;
+import common.offset.PartitionOffsets;
 import config.CanaryConfiguration;
 import org.apache.kafka.clients.admin.Admin;
 import org.apache.kafka.clients.admin.CreatePartitionsResult;
 import org.apache.kafka.clients.admin.CreateTopicsResult;
 import org.apache.kafka.clients.admin.DescribeClusterResult;
 import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
 import org.apache.kafka.clients.admin.ListTopicsResult;
+import org.apache.kafka.clients.admin.NewPartitionReassignment;
 import org.apache.kafka.clients.admin.NewPartitions;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.ElectionType;
 import org.apache.kafka.common.KafkaFuture;
 import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.errors.ElectionNotNeededException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import topic.LeadershipPlan;
 import topic.Topic;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
 public class AdminClient implements Client {
 
@@ -33,13 +50,25 @@ public class AdminClient implements Client {
     private final Admin adminClient;
     private final Properties properties;
     private final Topic topic;
-    private final int expectedClusterSize;
+    // updated by the cluster size reconciliation, see expandTopic
+    private volatile int expectedClusterSize;
+    private final String consumerGroupId;
+    // the consumer group lag is exported only when the consumer commits its offsets
+    private final boolean offsetsCommitted;
+    // history needed by the catch-up read probe, 0 when the probe is disabled
+    private final long minRetention;
+    // result of the last offsets lookup, read by the gauges
+    private final Map<Integer, PartitionOffsets> partitionOffsets = new ConcurrentHashMap<>();
 
     public AdminClient(CanaryConfiguration configuration) {
         this.properties = ClientConfiguration.adminProperties(configuration);
         this.adminClient = Admin.create(properties);
         this.topic = new Topic(configuration.getTopic(), configuration.getTopicConfig());
         this.expectedClusterSize = configuration.getExpectedClusterSize();
+        this.consumerGroupId = configuration.getConsumerGroupId();
+        this.offsetsCommitted = configuration.getOffsetCommitMode() != OffsetCommitMode.NONE;
+        // twice the lookback, so the probe still finds the whole history when the oldest segment is about to be deleted
+        this.minRetention = configuration.getCatchUpProbeInterval() > 0 ? 2 * configuration.getCatchUpProbeLookback() : 0;
     }
 
     public void createOrReplaceTopicIfNotExists() {
@@ -78,6 +107,10 @@ public class AdminClient implements Client {
         // override cleanup policy because it needs to be "delete" (canary doesn't use keys on messages)
         this.topic.topicConfig().put(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_DELETE);
 
+        if (this.topic.ensureRetention(this.minRetention)) {
+            LOGGER.warn("KafkaTopic: {} retention raised to {} ms for the catch-up read probe", this.topic.topicName(), this.minRetention);
+        }
+
         NewTopic topic = new NewTopic(this.topic.topicName(), this.expectedClusterSize, (short) this.expectedClusterSize).configs(this.topic.topicConfig());
         CreateTopicsResult creationResult = this.adminClient.createTopics(Collections.singletonList(topic));
 
@@ -93,7 +126,10 @@ public class AdminClient implements Client {
         }
     }
 
-    public void updateTopic() {
+    /**
+     * @return true when the topic was updated successfully
+     */
+    public boolean updateTopic() {
         LOGGER.info("Updating KafkaTopic: {} to have {} partitions", this.topic.topicName(), this.expectedClusterSize);
 
         Map<String, NewPartitions> newPartitionSet = Collections.singletonMap(topic.topicName(), NewPartitions.increaseTo(expectedClusterSize));
@@ -105,9 +141,186 @@ public class AdminClient implements Client {
         try {
             kafkaFuture.get();
             LOGGER.info("KafkaTopic: {} successfully updated to {} partitions", this.topic.topicName(), this.expectedClusterSize);
+            return true;
         } catch (InterruptedException | ExecutionException e) {
             LOGGER.error("Failed to update KafkaTopic: {} due to:\n {}", this.topic.topicName(), e.getMessage());
             e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Adds the partitions to the canary topic, so every broker of the grown cluster gets one
+     * @param clusterSize new number of brokers
+     * @return true when the topic has the partition for every broker
+     */
+    public boolean expandTopic(int clusterSize) {
+        LOGGER.info("Expanding KafkaTopic: {} from {} to {} brokers", this.topic.topicName(), this.expectedClusterSize, clusterSize);
+        this.expectedClusterSize = clusterSize;
+
+        try {
+            return !shouldUpdateTopic() || updateTopic();
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to expand KafkaTopic: {} due to: {}", this.topic.topicName(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return ids of the brokers in the cluster sorted in ascending order, empty list when the cluster can't be described
+     */
+    public List<Integer> describeBrokerIds() {
+        try {
+            return this.adminClient.describeCluster().nodes().get().stream().map(Node::id).sorted().toList();
+        } catch (InterruptedException | ExecutionException e) {
+            MetricsRegistry.getInstance().getDescribeClusterErrorTotal().increment();
+            LOGGER.error("Failed to obtain cluster description: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * @param groupId consumer group id
+     * @return id of the broker coordinating the group, "unknown" when the group can't be described
+     */
+    public String describeGroupCoordinator(String groupId) {
+        try {
+            Node coordinator = this.adminClient.describeConsumerGroups(List.of(groupId)).describedGroups().get(groupId).get().coordinator();
+            return coordinator == null || coordinator.isEmpty() ? PartitionLeaderCache.UNKNOWN_LEADER : coordinator.idString();
+        } catch (InterruptedException | ExecutionException e) {
+            LOGGER.error("Failed to describe consumer group: {} due to: {}", groupId, e.getMessage());
+            return PartitionLeaderCache.UNKNOWN_LEADER;
+        }
+    }
+
+    /**
+     * Reassigns the canary topic partitions and runs the preferred leader elections, so every broker leads exactly one partition
+     * Nothing is done while the number of brokers doesn't match the number of partitions,
+     * or while any of the canary topic partitions is still being reassigned.
+     */
+    public void reconcileLeadership() {
+        String topicName = this.topic.topicName();
+
+        try {
+            List<Integer> brokerIds = this.adminClient.describeCluster().nodes().get().stream().map(Node::id).toList();
+            TopicDescription description = this.adminClient.describeTopics(Collections.singletonList(topicName)).topicNameValues().get(topicName).get();
+
+            if (brokerIds.size() != description.partitions().size()) {
+                LOGGER.info("Skipping leadership reconciliation of KafkaTopic: {}, it has {} partitions for {} brokers", topicName, description.partitions().size(), brokerIds.size());
+                return;
+            }
+
+            boolean reassigning = this.adminClient.listPartitionReassignments().reassignments().get().keySet().stream()
+                .anyMatch(topicPartition -> topicPartition.topic().equals(topicName));
+
+            if (reassigning) {
+                LOGGER.info("Skipping leadership reconciliation of KafkaTopic: {}, reassignment is in progress", topicName);
+                return;
+            }
+
+            LeadershipPlan plan = LeadershipPlan.create(topicName, brokerIds, description.partitions());
+
+            if (plan.isEmpty()) {
+                LOGGER.debug("KafkaTopic: {} has one partition leader per broker", topicName);
+                return;
+            }
+
+            reassignPartitions(plan.reassignments());
+            electPreferredLeaders(plan.elections());
+        } catch (Exception e) {
+            LOGGER.error("Failed to reconcile leadership of KafkaTopic: {} due to: {}", topicName, e.getMessage());
+            MetricsRegistry.getInstance().getLeadershipReconcileErrorTotal(topicName).increment();
+        }
+    }
+
+    private void reassignPartitions(Map<TopicPartition, List<Integer>> reassignments) throws InterruptedException, ExecutionException {
+        if (reassignments.isEmpty()) {
+            return;
+        }
+
+        LOGGER.warn("Reassigning partitions of KafkaTopic: {} to {}", this.topic.topicName(), reassignments);
+
+        Map<TopicPartition, Optional<NewPartitionReassignment>> newReassignments = reassignments.entrySet().stream()
+            .collect(Collectors.toMap(Map.Entry::getKey, entry -> Optional.of(new NewPartitionReassignment(entry.getValue()))));
+
+        this.adminClient.alterPartitionReassignments(newReassignments).all().get();
+        MetricsRegistry.getInstance().getLeadershipReassignmentsTotal(this.topic.topicName()).increment(reassignments.size());
+    }
+
+    private void electPreferredLeaders(Collection<TopicPartition> partitions) throws InterruptedException, ExecutionException {
+        if (partitions.isEmpty()) {
+            return;
+        }
+
+        LOGGER.warn("Electing preferred leaders of KafkaTopic: {} partitions {}", this.topic.topicName(), partitions);
+
+        Map<TopicPartition, Optional<Throwable>> results = this.adminClient.electLeaders(ElectionType.PREFERRED, Set.copyOf(partitions)).partitions().get();
+        long elected = 0;
+
+        for (Map.Entry<TopicPartition, Optional<Throwable>> result : results.entrySet()) {
+            Optional<Throwable> error = result.getValue();
+
+            if (error.isEmpty()) {
+                elected++;
+            } else if (!(error.get() instanceof ElectionNotNeededException)) {
+                // e.g. the preferred replica is not in sync, the next reconciliation tries again
+                LOGGER.warn("Failed to elect preferred leader of partition: {} due to: {}", result.getKey(), error.get().getMessage());
+            }
+        }
+
+        MetricsRegistry.getInstance().getLeaderElectionsTotal(this.topic.topicName()).increment(elected);
+    }
+
+    /**
+     * Looks up the log start, log end and committed offsets of all the canary topic partitions and exports them with
+     * the consumer lag as per-partition gauges
+     * The three lookups are batched for all the partitions and sent at once, so the update takes a single round trip.
+     * The consumer lag is taken against the position of the canary consumer, so it's there with any offset commit mode;
+     * the consumer group lag of the committed offsets is exported as well when the consumer commits them.
+     */
+    public void updatePartitionOffsets() {
+        String topicName = this.topic.topicName();
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        Map<TopicPartition, OffsetSpec> earliest = new HashMap<>();
+
+        for (int i = 0; i < this.expectedClusterSize; i++) {
+            latest.put(new TopicPartition(topicName, i), OffsetSpec.latest());
+            earliest.put(new TopicPartition(topicName, i), OffsetSpec.earliest());
+        }
+
+        try {
+            KafkaFuture<Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo>> logEndOffsets = this.adminClient.listOffsets(latest).all();
+            KafkaFuture<Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo>> logStartOffsets = this.adminClient.listOffsets(earliest).all();
+            KafkaFuture<Map<TopicPartition, OffsetAndMetadata>> committedOffsets = this.offsetsCommitted
+                ? this.adminClient.listConsumerGroupOffsets(this.consumerGroupId).partitionsToOffsetAndMetadata()
+                : KafkaFuture.completedFuture(Map.of());
+
+            KafkaFuture.allOf(logEndOffsets, logStartOffsets, committedOffsets).get();
+
+            for (TopicPartition topicPartition : latest.keySet()) {
+                OffsetAndMetadata committed = committedOffsets.get().get(topicPartition);
+                PartitionOffsets offsets = new PartitionOffsets(logStartOffsets.get().get(topicPartition).offset(), logEndOffsets.get().get(topicPartition).offset(),
+                    committed == null ? PartitionOffsets.NO_OFFSET : committed.offset(), ConsumedOffsets.getInstance().get(topicPartition.partition()));
+
+                if (this.partitionOffsets.put(topicPartition.partition(), offsets) == null) {
+                    registerPartitionOffsetsGauges(topicPartition.partition());
+                }
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            LOGGER.error("Failed to look up offsets of KafkaTopic: {} due to: {}", topicName, e.getMessage());
+            MetricsRegistry.getInstance().getOffsetsLookupErrorTotal(topicName).increment();
+        }
+    }
+
+    private void registerPartitionOffsetsGauges(int partition) {
+        String topicName = this.topic.topicName();
+
+        MetricsRegistry.getInstance().getPartitionLogStartOffset(topicName, partition, () -> this.partitionOffsets.get(partition).logStartOffset());
+        MetricsRegistry.getInstance().getPartitionLogEndOffset(topicName, partition, () -> this.partitionOffsets.get(partition).logEndOffset());
+        MetricsRegistry.getInstance().getConsumerLag(topicName, partition, () -> this.partitionOffsets.get(partition).lag());
+
+        if (this.offsetsCommitted) {
+            MetricsRegistry.getInstance().getConsumerGroupLag(topicName, partition, this.consumerGroupId, () -> this.partitionOffsets.get(partition).committedLag());
         }
     }
 
@@ -0,0 +1,178 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package clients;
+
+import common.metrics.MetricsRegistry;
+import config.CanaryConfiguration;
+import config.CanaryConstants;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the read throughput of the older messages, which are usually not in the page cache anymore
+ * Every probe seeks a separate consumer back by the lookback time on each canary partition and reads up to the end
+ * offsets taken at the probe start, the MB/s and records/s are computed per broker leading the partitions.
+ * The canary topic retention is raised when it's needed to keep the lookback history, see {@link AdminClient#createTopic()}.
+ * The probe runs on the scheduler threads one at a time, the KafkaConsumer is never used concurrently.
+ */
+public class CatchUpReadProbe implements Client {
+
+    private static final Logger LOGGER = LogManager.getLogger(CatchUpReadProbe.class);
+    private static final double BYTES_PER_MB = 1024 * 1024;
+    private final KafkaConsumer<String, byte[]> consumer;
+    private final Properties properties;
+    private final String topicName;
+    private final long lookback;
+    // results of the last probe, read by the gauges
+    private final Map<String, Double> bytesRates = new ConcurrentHashMap<>();
+    private final Map<String, Double> recordsRates = new ConcurrentHashMap<>();
+    private boolean stopped;
+
+    public CatchUpReadProbe(CanaryConfiguration configuration) {
+        this.properties = ClientConfiguration.consumerProperties(configuration);
+        this.properties.put(ConsumerConfig.CLIENT_ID_CONFIG, configuration.getClientId() + "-catch-up-probe");
+        // the probe seeks by itself and doesn't commit, it doesn't need a group
+        this.properties.remove(ConsumerConfig.GROUP_ID_CONFIG);
+        this.consumer = new KafkaConsumer<>(this.properties);
+        this.topicName = configuration.getTopic();
+        this.lookback = configuration.getCatchUpProbeLookback();
+    }
+
+    public synchronized void probe() {
+        if (this.stopped) {
+            return;
+        }
+
+        try {
+            readHistory();
+        } catch (Exception e) {
+            LOGGER.error("Failed to run catch-up read probe on KafkaTopic: {} due to: {}", this.topicName, e.getMessage());
+            MetricsRegistry.getInstance().getCatchUpProbeErrorTotal(this.topicName).increment();
+        } finally {
+            this.consumer.assign(List.of());
+        }
+    }
+
+    private void readHistory() {
+        Map<TopicPartition, String> leaders = new HashMap<>();
+        Map<TopicPartition, Long> timestamps = new HashMap<>();
+        long startTimestamp = System.currentTimeMillis() - this.lookback;
+
+        for (PartitionInfo partitionInfo : this.consumer.partitionsFor(this.topicName)) {
+            TopicPartition topicPartition = new TopicPartition(this.topicName, partitionInfo.partition());
+            leaders.put(topicPartition, partitionInfo.leader() == null ? PartitionLeaderCache.UNKNOWN_LEADER : partitionInfo.leader().idString());
+            timestamps.put(topicPartition, startTimestamp);
+        }
+
+        Map<TopicPartition, OffsetAndTimestamp> startOffsets = this.consumer.offsetsForTimes(timestamps);
+        Map<TopicPartition, Long> endOffsets = this.consumer.endOffsets(timestamps.keySet());
+        Map<String, BrokerRead> reads = new HashMap<>();
+        Map<TopicPartition, Long> remaining = new HashMap<>();
+
+        this.consumer.assign(timestamps.keySet());
+
+        for (TopicPartition topicPartition : timestamps.keySet()) {
+            OffsetAndTimestamp startOffset = startOffsets.get(topicPartition);
+            long endOffset = endOffsets.get(topicPartition);
+
+            // no message newer than the lookback start means there is nothing to read
+            if (startOffset != null && startOffset.offset() < endOffset) {
+                this.consumer.seek(topicPartition, startOffset.offset());
+                remaining.put(topicPartition, endOffset);
+                reads.computeIfAbsent(leaders.get(topicPartition), broker -> new BrokerRead()).partitions++;
+            } else {
+                this.consumer.pause(List.of(topicPartition));
+            }
+        }
+
+        LOGGER.info("Reading {} partitions of KafkaTopic: {} from {} ms ago", remaining.size(), this.topicName, this.lookback);
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(CanaryConstants.CATCH_UP_PROBE_TIMEOUT_MS);
+
+        while (!remaining.isEmpty() && System.nanoTime() < deadline) {
+            for (ConsumerRecord<String, byte[]> record : this.consumer.poll(Duration.ofMillis(100))) {
+                Long endOffset = remaining.get(new TopicPartition(record.topic(), record.partition()));
+
+                if (endOffset != null && record.offset() < endOffset) {
+                    BrokerRead read = reads.get(leaders.get(new TopicPartition(record.topic(), record.partition())));
+                    read.bytes += Math.max(0, record.serializedKeySize()) + Math.max(0, record.serializedValueSize());
+                    read.records++;
+                }
+            }
+
+            long now = System.nanoTime();
+            remaining.entrySet().removeIf(entry -> {
+                if (this.consumer.position(entry.getKey()) < entry.getValue()) {
+                    return false;
+                }
+
+                this.consumer.pause(List.of(entry.getKey()));
+                BrokerRead read = reads.get(leaders.get(entry.getKey()));
+                if (--read.partitions == 0) {
+                    read.duration = now - start;
+                }
+                return true;
+            });
+        }
+
+        if (!remaining.isEmpty()) {
+            LOGGER.warn("Catch-up read probe didn't reach the end of partitions: {} in {} ms", remaining.keySet(), CanaryConstants.CATCH_UP_PROBE_TIMEOUT_MS);
+            MetricsRegistry.getInstance().getCatchUpProbeErrorTotal(this.topicName).increment();
+        }
+
+        long end = System.nanoTime();
+        reads.forEach((broker, read) -> updateRates(broker, read, read.partitions == 0 ? read.duration : end - start));
+    }
+
+    private void updateRates(String broker, BrokerRead read, long duration) {
+        double seconds = Math.max(duration, 1) / (double) TimeUnit.SECONDS.toNanos(1);
+
+        LOGGER.info("Catch-up read probe read {} records, {} bytes from broker: {} in {} s", read.records, read.bytes, broker, seconds);
+
+        if (this.bytesRates.put(broker, read.bytes / BYTES_PER_MB / seconds) == null) {
+            MetricsRegistry.getInstance().getCatchUpReadBytesRate(broker, () -> this.bytesRates.get(broker));
+        }
+        if (this.recordsRates.put(broker, read.records / seconds) == null) {
+            MetricsRegistry.getInstance().getCatchUpReadRecordsRate(broker, () -> this.recordsRates.get(broker));
+        }
+    }
+
+    @Override
+    public void start() {
+        LOGGER.info("Starting catch-up read probe with properties: {}", properties);
+    }
+
+    @Override
+    public synchronized void stop() {
+        LOGGER.info("Stopping catch-up read probe");
+        this.stopped = true;
+        this.consumer.close();
+    }
+
+    /**
+     * Progress of reading the partitions led by one broker
+     */
+    private static class BrokerRead {
+        private int partitions;
+        private long bytes;
+        private long records;
+        private long duration;
+    }
+}
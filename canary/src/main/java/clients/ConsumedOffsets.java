@@ -0,0 +1,40 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package clients;
+
+import common.offset.PartitionOffsets;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Singleton holding the position of the `Consumer` in each partition, the offset of the next message it reads
+ * The `AdminClient` compares it with the log end offset, so the lag of the consumer is known even when it commits no offsets.
+ */
+public class ConsumedOffsets {
+    private static final ConsumedOffsets INSTANCE = new ConsumedOffsets();
+
+    private final Map<Integer, Long> offsets = new ConcurrentHashMap<>();
+
+    ConsumedOffsets() { }
+
+    public static ConsumedOffsets getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param offset offset of the last message consumed from the partition plus one
+     */
+    public void update(int partition, long offset) {
+        this.offsets.put(partition, offset);
+    }
+
+    /**
+     * @return offset of the next message consumed from the partition, {@link PartitionOffsets#NO_OFFSET} when nothing was consumed yet
+     */
+    public long get(int partition) {
+        return this.offsets.getOrDefault(partition, PartitionOffsets.NO_OFFSET);
+    }
+}
@@ -5,40 +5,120 @@
 package clients;
 
 import common.Message;
+import common.SessionId;
+import common.clock.ClockSkewEstimator;
+import common.metrics.LatencyCorrection;
+import common.metrics.LocalMeterCache;
 import common.metrics.MetricsRegistry;
+import common.offset.OffsetCommitMode;
+import common.offset.StartupPolicy;
+import common.payload.MalformedPayloadException;
+import common.payload.MessageCodec;
+import common.payload.PayloadSizer;
+import common.sequence.SequenceTracker;
 import config.CanaryConfiguration;
+import config.CanaryConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.record.TimestampType;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Reads the probes from the partitions owned by its {@link PartitionShard}, every shard has its own KafkaConsumer and thread
+ */
 public class Consumer implements Client {
 
     private static final Logger LOGGER = LogManager.getLogger(Consumer.class);
-    private final KafkaConsumer<String, String> consumer;
+    private final KafkaConsumer<String, byte[]> consumer;
     private final String topicName;
     private final Properties properties;
-    private final int expectedClusterSize;
+    // partition count is changed only by the consumer thread, see updatePartitionCount
+    private int partitionCount;
+    private volatile int pendingPartitionCount;
     private final String clientId;
+    private final PartitionShard shard;
     private final double[] consumerLatencyBuckets;
+    private final MessageCodec messageCodec;
+    private final double expectedProbeInterval;
+    private final int sequenceWindowSize;
+    private final long sequenceLossDeadlineNanos;
+    private final PartitionLeaderCache partitionLeaders;
+    // intended dispatch time of the last probe received from each partition, accessed only by the consumer thread
+    private long[] lastProbeTimestamps;
+    // sequence numbers received from each partition in the current session, accessed only by the consumer thread
+    private SequenceTracker[] sequenceTrackers;
+    private final OffsetCommitMode offsetCommitMode;
+    private final long offsetCommitIntervalNanos;
+    private final double[] offsetCommitLatencyBuckets;
+    // accessed only by the consumer thread, the commit callbacks are called from the poll as well
+    private boolean uncommittedMessages;
+    private long lastCommitNanos;
+    // used only by the consumer thread
+    private final LocalMeterCache<Integer, Counter> recordsConsumedTotal;
+    private final LocalMeterCache<LatencyKey, DistributionSummary> recordsConsumedLatency;
+    private final LocalMeterCache<String, DistributionSummary> brokerConsumedLatency;
+    private final StartupPolicy startupPolicy;
+    private final long startupLookback;
+    // end offsets at startup of the partitions still being drained, accessed only by the consumer thread
+    private Map<TopicPartition, Long> drainEndOffsets = Map.of();
+    private long drainStartNanos;
+    private volatile double drainDuration;
 
     public Consumer(CanaryConfiguration configuration) {
+        this(configuration, PartitionShard.ALL);
+    }
+
+    public Consumer(CanaryConfiguration configuration, PartitionShard shard) {
+        this.shard = shard;
+        this.clientId = shard.clientId(configuration.getClientId());
         this.properties = ClientConfiguration.consumerProperties(configuration);
+        this.properties.put(ConsumerConfig.CLIENT_ID_CONFIG, this.clientId);
         this.consumer = new KafkaConsumer<>(properties);
         this.topicName = configuration.getTopic();
-        this.expectedClusterSize = configuration.getExpectedClusterSize();
-        this.clientId = configuration.getClientId();
+        this.partitionCount = configuration.getExpectedClusterSize();
+        this.pendingPartitionCount = this.partitionCount;
         this.consumerLatencyBuckets = configuration.getEndToEndLatencyBuckets();
+        this.messageCodec = configuration.getPayloadFormat().createCodec();
+        this.expectedProbeInterval = configuration.getExpectedProbeInterval();
+        this.sequenceWindowSize = configuration.getSequenceWindowSize();
+        this.sequenceLossDeadlineNanos = TimeUnit.MILLISECONDS.toNanos(configuration.getSequenceLossDeadline());
+        this.lastProbeTimestamps = new long[this.partitionCount];
+        this.sequenceTrackers = new SequenceTracker[this.partitionCount];
+        this.offsetCommitMode = configuration.getOffsetCommitMode();
+        this.offsetCommitIntervalNanos = TimeUnit.MILLISECONDS.toNanos(configuration.getOffsetCommitInterval());
+        // commit is a single request round trip, the same as the produce request
+        this.offsetCommitLatencyBuckets = configuration.getProducerLatencyBuckets();
+        this.lastCommitNanos = System.nanoTime();
+        this.partitionLeaders = new PartitionLeaderCache(() -> this.consumer.partitionsFor(this.topicName), CanaryConstants.PARTITION_LEADER_REFRESH_INTERVAL_MS);
+        this.recordsConsumedTotal = new LocalMeterCache<>(partition -> MetricsRegistry.getInstance().getRecordsConsumedTotal(this.clientId, partition));
+        this.recordsConsumedLatency = new LocalMeterCache<>(key -> MetricsRegistry.getInstance()
+            .getRecordsConsumedLatency(this.clientId, key.partition(), key.broker(), key.sizeClass(), this.consumerLatencyBuckets));
+        this.brokerConsumedLatency = new LocalMeterCache<>(broker -> MetricsRegistry.getInstance().getBrokerConsumedLatency(broker, this.consumerLatencyBuckets));
+        this.startupPolicy = configuration.getConsumerStartupPolicy();
+        this.startupLookback = configuration.getConsumerStartupLookback();
     }
 
     private void assignPartitions() {
-        LOGGER.info("Assigning: {} number of partitions", String.valueOf(expectedClusterSize));
+        LOGGER.info("Assigning: {} of {} partitions", String.valueOf(shard.ownedPartitionCount(partitionCount)), String.valueOf(partitionCount));
         List<TopicPartition> topicPartitions = getTopicPartitions();
 
         this.consumer.assign(topicPartitions);
@@ -47,42 +127,170 @@ public class Consumer implements Client {
     private List<TopicPartition> getTopicPartitions() {
         List<TopicPartition> topicPartitions = new ArrayList<>();
 
-        for (int i = 0; i < expectedClusterSize; i++) {
-            topicPartitions.add(new TopicPartition(topicName, i));
+        for (int partition : shard.ownedPartitions(partitionCount)) {
+            topicPartitions.add(new TopicPartition(topicName, partition));
         }
 
         return topicPartitions;
     }
 
+    /**
+     * Moves the positions of the assigned partitions according to the startup policy, the committed offsets are used otherwise
+     */
+    private void applyStartupPolicy() {
+        List<TopicPartition> topicPartitions = getTopicPartitions();
+
+        switch (this.startupPolicy) {
+            case LATEST -> {
+                LOGGER.info("Skipping the messages already in partitions: {}", topicPartitions);
+                this.consumer.seekToEnd(topicPartitions);
+            }
+            case TIMESTAMP -> {
+                Map<TopicPartition, Long> timestamps = new HashMap<>();
+                topicPartitions.forEach(topicPartition -> timestamps.put(topicPartition, System.currentTimeMillis() - this.startupLookback));
+
+                this.consumer.offsetsForTimes(timestamps).forEach((topicPartition, offsetAndTimestamp) -> {
+                    // no message newer than the lookback, so all of them are skipped
+                    if (offsetAndTimestamp == null) {
+                        this.consumer.seekToEnd(List.of(topicPartition));
+                    } else {
+                        LOGGER.info("Starting partition: {} from offset: {}", topicPartition, offsetAndTimestamp.offset());
+                        this.consumer.seek(topicPartition, offsetAndTimestamp.offset());
+                    }
+                });
+            }
+            case DRAIN -> {
+                this.drainStartNanos = System.nanoTime();
+                this.drainEndOffsets = new HashMap<>(this.consumer.endOffsets(topicPartitions));
+                LOGGER.info("Draining partitions up to offsets: {}", this.drainEndOffsets);
+                MetricsRegistry.getInstance().getConsumerStartupDrainDuration(this.clientId, () -> this.drainDuration);
+            }
+            default -> { }
+        }
+    }
+
+    /**
+     * Messages below the end offsets at startup are counted, but not decoded, so the backlog is read as fast as possible
+     * @return true when the message belongs to the drained backlog and shouldn't be processed
+     */
+    private boolean drain(int partition, long offset) {
+        Long endOffset = this.drainEndOffsets.get(new TopicPartition(this.topicName, partition));
+
+        if (endOffset == null || offset >= endOffset) {
+            return false;
+        }
+
+        MetricsRegistry.getInstance().getRecordsDrainedTotal(this.clientId, partition).increment();
+        return true;
+    }
+
+    private void updateDrainProgress() {
+        this.drainEndOffsets.entrySet().removeIf(entry -> this.consumer.position(entry.getKey()) >= entry.getValue());
+
+        if (this.drainEndOffsets.isEmpty()) {
+            this.drainDuration = (System.nanoTime() - this.drainStartNanos) / 1_000_000.0;
+            LOGGER.info("Drained the backlog in {} ms", this.drainDuration);
+        }
+    }
+
     private void unsubscribe() {
         LOGGER.info("Unsubscribing from topic: {}", topicName);
         this.consumer.unsubscribe();
     }
 
+    /**
+     * Sets the number of partitions of the canary topic, e.g. after the cluster was scaled up
+     * The consumer thread picks up the change before the next poll, the positions of the already assigned partitions
+     * are kept and the new partitions are read from the beginning, so no message is skipped.
+     * @param partitionCount new number of partitions, the count never decreases
+     */
+    public void updatePartitionCount(int partitionCount) {
+        this.pendingPartitionCount = Math.max(this.pendingPartitionCount, partitionCount);
+    }
+
+    private void applyPartitionCountUpdate() {
+        int pending = this.pendingPartitionCount;
+
+        if (pending <= this.partitionCount) {
+            return;
+        }
+
+        LOGGER.info("Switching KafkaConsumer from {} to {} partitions", this.partitionCount, pending);
+        this.partitionCount = pending;
+        assignPartitions();
+    }
+
     public void receiveMessages() {
         try {
+            applyPartitionCountUpdate();
+
             // poll all messages
-            ConsumerRecords<String, String> receivedMessages = this.consumer.poll(Duration.ofMillis(100));
+            ConsumerRecords<String, byte[]> receivedMessages = this.consumer.poll(Duration.ofMillis(100));
             long receivedTime = System.currentTimeMillis();
-
-            // commit current offset
-            this.consumer.commitSync();
+            long receivedNanos = System.nanoTime();
 
             receivedMessages.forEach(message -> {
-                LOGGER.info("Received message with value: {} from partition: {}", message.value(), message.partition());
-                Message receivedMessage = Message.parseFromJson(message.value());
+                if (!this.drainEndOffsets.isEmpty() && drain(message.partition(), message.offset())) {
+                    return;
+                }
+
+                Message receivedMessage;
+
+                try {
+                    receivedMessage = this.messageCodec.decode(message.value());
+                } catch (MalformedPayloadException e) {
+                    LOGGER.warn("Skipping malformed message at offset: {} from partition: {} due to: {}", message.offset(), message.partition(), e.getMessage());
+                    MetricsRegistry.getInstance().getRecordsConsumedMalformedTotal(clientId, message.partition()).increment();
+                    return;
+                }
+
+                LOGGER.debug("Received message: {} from partition: {}", receivedMessage, message.partition());
 
-                long receiveDuration = receivedTime - receivedMessage.timestamp();
+                double receiveDuration = endToEndLatency(receivedMessage, receivedTime, receivedNanos);
 
-                LOGGER.info("End to end latency for message: {} to partition: {} is {}ms", message.value(), message.partition(), receiveDuration);
+                LOGGER.debug("End to end latency for message: {} to partition: {} is {}ms", receivedMessage, message.partition(), receiveDuration);
 
-                // incrementing different counter for Status check
-                MessageCountHolder.getInstance().incrementConsumedMessagesCount();
+                recordsConsumedTotal.get(message.partition()).increment();
 
-                MetricsRegistry.getInstance().getRecordsConsumedTotal(clientId, message.partition()).increment();
-                MetricsRegistry.getInstance().getRecordsConsumedLatency(clientId, message.partition(), consumerLatencyBuckets).record(receiveDuration);
+                // the messages left by the previous sessions were waiting in the topic, their latency says nothing about the cluster now
+                if (receivedMessage.sessionId() != SessionId.current()) {
+                    MetricsRegistry.getInstance().getRecordsConsumedStaleTotal(clientId, message.partition()).increment();
+                    return;
+                }
+
+                // latency of a duplicate is measured from the original dispatch, it would only skew the histogram
+                if (!trackSequence(message.partition(), receivedMessage, receivedNanos)) {
+                    return;
+                }
+
+                String broker = partitionLeaders.leaderOf(message.partition());
+
+                DistributionSummary latency = recordsConsumedLatency.get(new LatencyKey(message.partition(), broker, PayloadSizer.sizeClass(message.serializedValueSize())));
+                DistributionSummary brokerLatency = brokerConsumedLatency.get(broker);
+                LatencyCorrection.recordWithExpectedInterval(value -> {
+                    latency.record(value);
+                    brokerLatency.record(value);
+                    LatencyRecorders.getInstance().recordEndToEndLatency(message.partition(), value);
+                }, receiveDuration, expectedProbeInterval, omittedProbes(message.partition(), receivedMessage.timestamp()));
+
+                if (message.timestampType() == TimestampType.LOG_APPEND_TIME) {
+                    recordAppendLatencies(message.partition(), broker, receivedMessage, message.timestamp(), receivedTime);
+                }
             });
 
+            if (!this.drainEndOffsets.isEmpty()) {
+                updateDrainProgress();
+            }
+
+            updateConsumedOffsets(receivedMessages);
+
+            // a partition which stopped delivering doesn't move its window, so the missing messages are settled by time
+            expireSequences(receivedNanos);
+
+            // the latencies of the polled messages are already recorded, so the commit doesn't add to them
+            this.uncommittedMessages |= !receivedMessages.isEmpty();
+            commitOffsets();
+
         } catch (Exception e) {
             LOGGER.error("Failed to poll messages due to: {}", e.getMessage());
             MetricsRegistry.getInstance().getConsumerErrorTotal(clientId).increment();
@@ -90,15 +298,227 @@ public class Consumer implements Client {
         }
     }
 
+    /**
+     * Publishes the position of the consumer after the polled messages, the consumer lag is exported from it
+     */
+    private static void updateConsumedOffsets(ConsumerRecords<String, byte[]> receivedMessages) {
+        for (TopicPartition topicPartition : receivedMessages.partitions()) {
+            List<ConsumerRecord<String, byte[]>> records = receivedMessages.records(topicPartition);
+            ConsumedOffsets.getInstance().update(topicPartition.partition(), records.get(records.size() - 1).offset() + 1);
+        }
+    }
+
+    /**
+     * Commits the consumed offsets according to the offset commit mode, only when some messages were polled since the last commit
+     * The asynchronous commit is not timed, its callback is called from one of the next polls, so it would measure the poll loop.
+     */
+    private void commitOffsets() {
+        long now = System.nanoTime();
+
+        if (this.offsetCommitMode == OffsetCommitMode.NONE || !this.uncommittedMessages
+                || this.offsetCommitMode == OffsetCommitMode.PERIODIC && now - this.lastCommitNanos < this.offsetCommitIntervalNanos) {
+            return;
+        }
+
+        this.uncommittedMessages = false;
+        this.lastCommitNanos = now;
+
+        if (this.offsetCommitMode == OffsetCommitMode.PERIODIC) {
+            commitOffsetsSync();
+        } else {
+            this.consumer.commitAsync(offsetCommitCallback());
+        }
+    }
+
+    /**
+     * Commits synchronously, so the commit is timed on its own in the offset commit latency histogram
+     * It blocks the poll loop at most once per commit interval, after the latencies of the polled messages are recorded,
+     * and for no longer than {@link CanaryConstants#OFFSET_COMMIT_TIMEOUT_MS}.
+     */
+    private void commitOffsetsSync() {
+        long commitStartNanos = System.nanoTime();
+
+        try {
+            this.consumer.commitSync(Duration.ofMillis(CanaryConstants.OFFSET_COMMIT_TIMEOUT_MS));
+            MetricsRegistry.getInstance().getOffsetCommitLatency(clientId, offsetCommitLatencyBuckets)
+                .record((System.nanoTime() - commitStartNanos) / 1_000_000.0);
+        } catch (KafkaException e) {
+            LOGGER.warn("Failed to commit offsets due to: {}", e.getMessage());
+            MetricsRegistry.getInstance().getOffsetCommitErrorTotal(clientId).increment();
+            // the offsets are committed again with the next commit
+            this.uncommittedMessages = true;
+        }
+    }
+
+    private OffsetCommitCallback offsetCommitCallback() {
+        return (Map<TopicPartition, OffsetAndMetadata> offsets, Exception exception) -> {
+            if (exception != null) {
+                LOGGER.warn("Failed to commit offsets: {} due to: {}", offsets, exception.getMessage());
+                MetricsRegistry.getInstance().getOffsetCommitErrorTotal(clientId).increment();
+                // the offsets are committed again with the next commit
+                this.uncommittedMessages = true;
+            }
+        };
+    }
+
+    /**
+     * Splits the end-to-end latency at the broker LogAppendTime, converted to the canary clock by the estimated skew
+     * Nothing is recorded until the skew of the leading broker is estimated from the produce responses.
+     * The messages from the other canary sessions are not split, their send time comes from another clock.
+     */
+    private void recordAppendLatencies(int partition, String broker, Message message, long appendTime, long receivedTime) {
+        OptionalDouble skew = ClockSkewEstimator.getInstance().skew(broker);
+
+        if (message.sessionId() != SessionId.current() || skew.isEmpty()) {
+            return;
+        }
+
+        double localAppendTime = appendTime - skew.getAsDouble();
+        // the estimate is off by up to half of the produce round trip, which can push a short part below zero
+        MetricsRegistry.getInstance().getRecordsProduceToAppendLatency(clientId, partition, broker, consumerLatencyBuckets)
+            .record(Math.max(0, localAppendTime - message.timestamp()));
+        MetricsRegistry.getInstance().getRecordsAppendToConsumeLatency(clientId, partition, broker, consumerLatencyBuckets)
+            .record(Math.max(0, receivedTime - localAppendTime));
+    }
+
+    /**
+     * Messages produced by this canary process carry the monotonic clock value, which gives sub-millisecond precision
+     * and isn't affected by the wall-clock adjustments; for the other messages only the wall-clock can be compared
+     * @return end-to-end latency in milliseconds
+     */
+    static double endToEndLatency(Message message, long receivedTime, long receivedNanos) {
+        if (message.sessionId() == SessionId.current() && message.nanoTime() != 0) {
+            return (receivedNanos - message.nanoTime()) / 1_000_000.0;
+        }
+
+        return receivedTime - message.timestamp();
+    }
+
+    /**
+     * Checks the sequence number of the message produced by this canary process, the messages from the other sessions
+     * (e.g. left in the topic by the previous run) can't be checked as their sequence numbers are not known
+     * @return false when the message is a duplicate or already settled and shouldn't be counted again
+     */
+    private boolean trackSequence(int partition, Message message, long receivedNanos) {
+        if (message.sessionId() != SessionId.current()) {
+            return true;
+        }
+
+        if (partition >= this.sequenceTrackers.length) {
+            this.sequenceTrackers = Arrays.copyOf(this.sequenceTrackers, partition + 1);
+        }
+
+        SequenceTracker tracker = this.sequenceTrackers[partition];
+        if (tracker == null) {
+            tracker = new SequenceTracker(this.sequenceWindowSize, this.sequenceLossDeadlineNanos,
+                sequence -> FailedSends.getInstance().remove(partition, sequence));
+            this.sequenceTrackers[partition] = tracker;
+        }
+
+        // the send failed in the producer, but the record made it to the partition after all
+        FailedSends.getInstance().remove(partition, message.messageId());
+
+        SequenceTracker.Outcome outcome = tracker.record(message.messageId(), receivedNanos);
+        long lost = pollLost(partition, tracker);
+
+        switch (outcome) {
+            case DUPLICATE -> {
+                LOGGER.debug("Received duplicate message: {} from partition: {}", message, partition);
+                MetricsRegistry.getInstance().getRecordsDuplicatedTotal(clientId, partition).increment();
+                MessageCounters.getInstance().addConsumed(partition, 0, lost);
+                return false;
+            }
+            case EXPIRED -> {
+                // already counted either as lost or as consumed, counting it again would break the delivered percentage
+                LOGGER.debug("Received expired message: {} from partition: {}", message, partition);
+                MetricsRegistry.getInstance().getRecordsOutOfOrderTotal(clientId, partition).increment();
+                MessageCounters.getInstance().addConsumed(partition, 0, lost);
+                return false;
+            }
+            case OUT_OF_ORDER -> {
+                LOGGER.debug("Received out of order message: {} from partition: {}", message, partition);
+                MetricsRegistry.getInstance().getRecordsOutOfOrderTotal(clientId, partition).increment();
+            }
+            default -> { }
+        }
+
+        // incrementing different counter for Status check
+        MessageCounters.getInstance().addConsumed(partition, 1, lost);
+        return true;
+    }
+
+    /**
+     * Counts the messages missing for longer than the loss deadline as lost, in all the tracked partitions
+     * The failed sends the consumer can't ask for anymore are dropped as well, including those of the owned partitions
+     * not tracked yet, once they are older than the loss deadline.
+     */
+    private void expireSequences(long nowNanos) {
+        for (int partition : this.shard.ownedPartitions(this.partitionCount)) {
+            SequenceTracker tracker = partition < this.sequenceTrackers.length ? this.sequenceTrackers[partition] : null;
+
+            if (tracker == null) {
+                FailedSends.getInstance().removeFailedBefore(partition, nowNanos - this.sequenceLossDeadlineNanos);
+                continue;
+            }
+
+            tracker.expire(nowNanos);
+            FailedSends.getInstance().removeBelow(partition, tracker.getSettledBelow());
+            long lost = pollLost(partition, tracker);
+
+            if (lost > 0) {
+                MessageCounters.getInstance().addConsumed(partition, 0, lost);
+            }
+        }
+    }
+
+    private long pollLost(int partition, SequenceTracker tracker) {
+        long lost = tracker.pollLost();
+
+        if (lost > 0) {
+            LOGGER.warn("Detected {} lost messages in partition: {}", lost, partition);
+            MetricsRegistry.getInstance().getRecordsLostTotal(clientId, partition).increment(lost);
+        }
+
+        return lost;
+    }
+
+    /**
+     * Gap in the intended dispatch times of the consecutive probes means the probes in between were never sent
+     * @return number of probes omitted before the current one
+     */
+    private long omittedProbes(int partition, long timestamp) {
+        if (partition >= this.lastProbeTimestamps.length) {
+            this.lastProbeTimestamps = Arrays.copyOf(this.lastProbeTimestamps, partition + 1);
+        }
+
+        long omitted = LatencyCorrection.omittedProbes(this.lastProbeTimestamps[partition], timestamp, this.expectedProbeInterval);
+        this.lastProbeTimestamps[partition] = Math.max(this.lastProbeTimestamps[partition], timestamp);
+
+        return omitted;
+    }
+
+    private record LatencyKey(int partition, String broker, String sizeClass) { }
+
     @Override
     public void start() {
         LOGGER.info("Starting KafkaConsumer with properties: {}", properties);
         assignPartitions();
+        applyStartupPolicy();
     }
 
     @Override
     public void stop() {
         LOGGER.info("Stopping KafkaConsumer");
+
+        if (this.offsetCommitMode != OffsetCommitMode.NONE && this.uncommittedMessages) {
+            try {
+                this.consumer.commitSync();
+            } catch (Exception e) {
+                LOGGER.warn("Failed to commit offsets on stop due to: {}", e.getMessage());
+                MetricsRegistry.getInstance().getOffsetCommitErrorTotal(clientId).increment();
+            }
+        }
+
         unsubscribe();
         this.consumer.close();
     }
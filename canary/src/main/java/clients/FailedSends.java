@@ -0,0 +1,67 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package clients;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Singleton holding the sequence numbers of the messages, which the `Producer` failed to send, per partition
+ * The sequence number is taken before the send fails in the callback, so it leaves a gap the `Consumer` would count as lost.
+ * The consumer excuses these gaps instead, a message the producer already knows about is not a loss of the broker.
+ * An entry is removed when the consumer settles the sequence number, either as excused or as received after all
+ * (e.g. the send timed out, but the record was appended), or when it can't be asked for anymore: the consumer settled
+ * all the sequence numbers above it, or it doesn't track the partition for longer than the loss deadline since the failure.
+ */
+public class FailedSends {
+    private static final FailedSends INSTANCE = new FailedSends();
+
+    // System.nanoTime() of the failure per sequence number
+    private final Map<Integer, Map<Long, Long>> sequences = new ConcurrentHashMap<>();
+
+    FailedSends() { }
+
+    public static FailedSends getInstance() {
+        return INSTANCE;
+    }
+
+    public void add(int partition, long sequence) {
+        this.sequences.computeIfAbsent(partition, p -> new ConcurrentHashMap<>()).put(sequence, System.nanoTime());
+    }
+
+    /**
+     * @return true when the send of the sequence number failed
+     */
+    public boolean remove(int partition, long sequence) {
+        Map<Long, Long> failed = this.sequences.get(partition);
+
+        return failed != null && !failed.isEmpty() && failed.remove(sequence) != null;
+    }
+
+    /**
+     * Removes the sequence numbers the consumer already settled, they are never asked for again
+     * @param sequence lowest sequence number the consumer didn't settle yet
+     */
+    public void removeBelow(int partition, long sequence) {
+        Map<Long, Long> failed = this.sequences.get(partition);
+
+        if (failed != null && !failed.isEmpty()) {
+            failed.keySet().removeIf(failedSequence -> failedSequence < sequence);
+        }
+    }
+
+    /**
+     * Removes the sequence numbers of the sends which failed before the given time, e.g. from a partition the consumer
+     * doesn't track yet, so a broker outage doesn't pile them up
+     * @param nanos {@link System#nanoTime()} before which the sends failed
+     */
+    public void removeFailedBefore(int partition, long nanos) {
+        Map<Long, Long> failed = this.sequences.get(partition);
+
+        if (failed != null && !failed.isEmpty()) {
+            failed.values().removeIf(failedNanos -> failedNanos - nanos < 0);
+        }
+    }
+}
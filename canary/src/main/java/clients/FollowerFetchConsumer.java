@@ -0,0 +1,142 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package clients;
+
+import common.Message;
+import common.metrics.LocalMeterCache;
+import common.metrics.MetricsRegistry;
+import common.payload.MalformedPayloadException;
+import common.payload.MessageCodec;
+import config.CanaryConfiguration;
+import io.micrometer.core.instrument.DistributionSummary;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Consumer of the canary partitions located in one rack, so with the rack-aware replica selector configured
+ * on the brokers it fetches from the follower in the same rack instead of the leader
+ * The end-to-end latency tagged by the rack covers the replication to the follower and the follower fetch.
+ * It doesn't commit offsets nor check the sequence numbers, it starts from the end of the partitions
+ * and only measures the latency; the messages are counted by the main {@link Consumer}.
+ */
+public class FollowerFetchConsumer implements Client {
+
+    private static final Logger LOGGER = LogManager.getLogger(FollowerFetchConsumer.class);
+    private final KafkaConsumer<String, byte[]> consumer;
+    private final String topicName;
+    private final Properties properties;
+    private final String clientId;
+    private final String rack;
+    private final double[] consumerLatencyBuckets;
+    private final MessageCodec messageCodec;
+    // partition count is changed only by the consumer thread, see updatePartitionCount
+    private int partitionCount;
+    private volatile int pendingPartitionCount;
+    // used only by the consumer thread
+    private final LocalMeterCache<Integer, DistributionSummary> recordsConsumedLatency;
+
+    public FollowerFetchConsumer(CanaryConfiguration configuration, String rack) {
+        this.rack = rack;
+        this.clientId = configuration.getClientId() + "-" + rack;
+        this.properties = ClientConfiguration.consumerProperties(configuration);
+        this.properties.put(ConsumerConfig.CLIENT_ID_CONFIG, this.clientId);
+        this.properties.put(ConsumerConfig.CLIENT_RACK_CONFIG, rack);
+        // nothing is committed, the consumer doesn't need a group
+        this.properties.remove(ConsumerConfig.GROUP_ID_CONFIG);
+        this.consumer = new KafkaConsumer<>(this.properties);
+        this.topicName = configuration.getTopic();
+        this.partitionCount = configuration.getExpectedClusterSize();
+        this.pendingPartitionCount = this.partitionCount;
+        this.consumerLatencyBuckets = configuration.getEndToEndLatencyBuckets();
+        this.messageCodec = configuration.getPayloadFormat().createCodec();
+        this.recordsConsumedLatency = new LocalMeterCache<>(partition -> MetricsRegistry.getInstance()
+            .getRecordsConsumedFollowerLatency(this.clientId, partition, this.rack, this.consumerLatencyBuckets));
+    }
+
+    private void assignPartitions() {
+        LOGGER.info("Assigning: {} number of partitions to the consumer in rack: {}", partitionCount, rack);
+        List<TopicPartition> topicPartitions = new ArrayList<>();
+
+        for (int i = 0; i < partitionCount; i++) {
+            topicPartitions.add(new TopicPartition(topicName, i));
+        }
+
+        List<TopicPartition> newPartitions = new ArrayList<>(topicPartitions);
+        newPartitions.removeAll(this.consumer.assignment());
+
+        this.consumer.assign(topicPartitions);
+        // the messages sent before the start would only add the time they spent in the topic to the latency
+        this.consumer.seekToEnd(newPartitions);
+    }
+
+    /**
+     * @see Consumer#updatePartitionCount(int)
+     */
+    public void updatePartitionCount(int partitionCount) {
+        this.pendingPartitionCount = Math.max(this.pendingPartitionCount, partitionCount);
+    }
+
+    private void applyPartitionCountUpdate() {
+        int pending = this.pendingPartitionCount;
+
+        if (pending <= this.partitionCount) {
+            return;
+        }
+
+        LOGGER.info("Switching KafkaConsumer in rack: {} from {} to {} partitions", this.rack, this.partitionCount, pending);
+        this.partitionCount = pending;
+        assignPartitions();
+    }
+
+    public void receiveMessages() {
+        try {
+            applyPartitionCountUpdate();
+
+            ConsumerRecords<String, byte[]> receivedMessages = this.consumer.poll(Duration.ofMillis(100));
+            long receivedTime = System.currentTimeMillis();
+            long receivedNanos = System.nanoTime();
+
+            receivedMessages.forEach(message -> {
+                Message receivedMessage;
+
+                try {
+                    receivedMessage = this.messageCodec.decode(message.value());
+                } catch (MalformedPayloadException e) {
+                    LOGGER.debug("Skipping malformed message at offset: {} from partition: {} in rack: {}", message.offset(), message.partition(), rack);
+                    return;
+                }
+
+                double receiveDuration = Consumer.endToEndLatency(receivedMessage, receivedTime, receivedNanos);
+                LOGGER.debug("End to end latency for message: {} to partition: {} in rack: {} is {}ms", receivedMessage, message.partition(), rack, receiveDuration);
+
+                this.recordsConsumedLatency.get(message.partition()).record(receiveDuration);
+            });
+        } catch (Exception e) {
+            LOGGER.error("Failed to poll messages in rack: {} due to: {}", rack, e.getMessage());
+            MetricsRegistry.getInstance().getConsumerErrorTotal(clientId).increment();
+        }
+    }
+
+    @Override
+    public void start() {
+        LOGGER.info("Starting KafkaConsumer in rack: {} with properties: {}", rack, properties);
+        assignPartitions();
+    }
+
+    @Override
+    public void stop() {
+        LOGGER.info("Stopping KafkaConsumer in rack: {}", rack);
+        this.consumer.close();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package clients;
+
+import common.metrics.MetricsRegistry;
+import config.CanaryConfiguration;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Probes the health of the group coordinator, the leader of the __consumer_offsets partition owning the probe group
+ * Every probe commits an offset of the first canary topic partition for the probe group and fetches it back,
+ * the latencies are tagged by the coordinator broker, so a sick __consumer_offsets leader shows up
+ * even when the consume path doesn't commit at all.
+ * The probe runs on the scheduler threads one at a time, the KafkaConsumer is never used concurrently.
+ */
+public class GroupCoordinatorProbe implements Client {
+
+    private static final Logger LOGGER = LogManager.getLogger(GroupCoordinatorProbe.class);
+    private static final String GROUP_ID_SUFFIX = "-coordinator-probe";
+    private final KafkaConsumer<String, byte[]> consumer;
+    private final Properties properties;
+    private final AdminClient adminClient;
+    private final String clientId;
+    private final String groupId;
+    private final TopicPartition topicPartition;
+    private final double[] latencyBuckets;
+    private long probeCount;
+    private boolean stopped;
+
+    public GroupCoordinatorProbe(CanaryConfiguration configuration, AdminClient adminClient) {
+        this.clientId = configuration.getClientId() + GROUP_ID_SUFFIX;
+        this.groupId = configuration.getConsumerGroupId() + GROUP_ID_SUFFIX;
+        this.properties = ClientConfiguration.consumerProperties(configuration);
+        this.properties.put(ConsumerConfig.CLIENT_ID_CONFIG, this.clientId);
+        this.properties.put(ConsumerConfig.GROUP_ID_CONFIG, this.groupId);
+        this.consumer = new KafkaConsumer<>(this.properties);
+        this.adminClient = adminClient;
+        this.topicPartition = new TopicPartition(configuration.getTopic(), 0);
+        // commit and fetch are single request round trips, the same as the produce request
+        this.latencyBuckets = configuration.getProducerLatencyBuckets();
+    }
+
+    /**
+     * Commits the offset carrying the probe number in its metadata and fetches it back,
+     * the fetched offset with different metadata is counted as an error as well
+     */
+    public synchronized void probe() {
+        if (this.stopped) {
+            return;
+        }
+
+        String coordinator = this.adminClient.describeGroupCoordinator(this.groupId);
+        String metadata = String.valueOf(++this.probeCount);
+
+        try {
+            long commitStart = System.nanoTime();
+            this.consumer.commitSync(Map.of(this.topicPartition, new OffsetAndMetadata(0, metadata)));
+            long fetchStart = System.nanoTime();
+            OffsetAndMetadata fetched = this.consumer.committed(Set.of(this.topicPartition)).get(this.topicPartition);
+            long fetchEnd = System.nanoTime();
+
+            MetricsRegistry.getInstance().getGroupCoordinatorCommitLatency(this.clientId, coordinator, this.latencyBuckets).record((fetchStart - commitStart) / 1_000_000.0);
+            MetricsRegistry.getInstance().getGroupCoordinatorFetchLatency(this.clientId, coordinator, this.latencyBuckets).record((fetchEnd - fetchStart) / 1_000_000.0);
+
+            if (fetched == null || !metadata.equals(fetched.metadata())) {
+                LOGGER.warn("Group coordinator: {} returned offset: {} instead of the committed one with metadata: {}", coordinator, fetched, metadata);
+                MetricsRegistry.getInstance().getGroupCoordinatorProbeErrorTotal(this.clientId, coordinator).increment();
+            }
+        } catch (Exception e) {
+            LOGGER.error("Failed to probe group coordinator: {} of group: {} due to: {}", coordinator, this.groupId, e.getMessage());
+            MetricsRegistry.getInstance().getGroupCoordinatorProbeErrorTotal(this.clientId, coordinator).increment();
+        }
+    }
+
+    @Override
+    public void start() {
+        LOGGER.info("Starting group coordinator probe with properties: {}", properties);
+    }
+
+    @Override
+    public synchronized void stop() {
+        LOGGER.info("Stopping group coordinator probe");
+        this.stopped = true;
+        this.consumer.close();
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package clients;
+
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Singleton holding the produce and end-to-end latencies recorded since the last status check, per partition
+ * The latencies are recorded together with the Micrometer histograms, the `StatusService` takes the interval histograms
+ * on every status check and keeps them for the windowed percentiles.
+ * Recording is wait-free, so the producer and consumer threads are never blocked by the status check.
+ */
+public class LatencyRecorders {
+    // latencies are recorded in microseconds, the sub-millisecond end-to-end latencies would be lost otherwise
+    public static final double MICROS_PER_MILLI = 1000.0;
+    private static final int SIGNIFICANT_DIGITS = 2;
+    private static final LatencyRecorders INSTANCE = new LatencyRecorders();
+
+    private final Map<Integer, Recorder> produceRecorders = new ConcurrentHashMap<>();
+    private final Map<Integer, Recorder> endToEndRecorders = new ConcurrentHashMap<>();
+
+    LatencyRecorders() { }
+
+    public static LatencyRecorders getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param latency produce latency in milliseconds
+     */
+    public void recordProduceLatency(int partition, double latency) {
+        record(this.produceRecorders, partition, latency);
+    }
+
+    /**
+     * @param latency end-to-end latency in milliseconds
+     */
+    public void recordEndToEndLatency(int partition, double latency) {
+        record(this.endToEndRecorders, partition, latency);
+    }
+
+    private static void record(Map<Integer, Recorder> recorders, int partition, double latency) {
+        recorders.computeIfAbsent(partition, p -> new Recorder(SIGNIFICANT_DIGITS))
+            .recordValue(Math.max(0, Math.round(latency * MICROS_PER_MILLI)));
+    }
+
+    public Map<Integer, Recorder> getProduceRecorders() {
+        return this.produceRecorders;
+    }
+
+    public Map<Integer, Recorder> getEndToEndRecorders() {
+        return this.endToEndRecorders;
+    }
+}
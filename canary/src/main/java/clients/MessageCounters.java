@@ -0,0 +1,169 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package clients;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Singleton holding number of messages, which were produced, consumed and found lost, per partition
+ * `produced` is incremented in the send callback inside `Producer` class
+ * `consumed` and `lost` are increased together in `receiveMessages` method inside `Consumer` class, duplicates are not counted
+ * consumed and lost messages are used in `StatusService` for calculating percentage of consumed messages
+ *
+ * Every partition has its own cells, so the producer and consumer threads of the different shards never contend.
+ * The cells of a partition are padded to their own cache lines, the producer side apart from the consumer side, so the
+ * threads don't invalidate each other's lines either. The cells live in fixed segments allocated on the first use, they are
+ * never copied when the partitions are added, so no increment is lost.
+ * The consumed and lost counts of a partition are written by its only consumer thread under a sequence lock,
+ * the reader retries until it gets both counts of the same update, which keeps the delivered percentage exact.
+ */
+public class MessageCounters {
+    private static final int PARTITIONS_PER_SEGMENT = 64;
+    private static final int SEGMENTS = 1024;
+    // 2 x 128 bytes, the adjacent cache line prefetch pulls in pairs of 64 bytes lines
+    private static final int PARTITION_STRIDE = 32;
+    private static final int PRODUCED = 0;
+    private static final int VERSION = 16;
+    private static final int CONSUMED = 17;
+    private static final int LOST = 18;
+    private static final MessageCounters INSTANCE = new MessageCounters();
+
+    private final AtomicReferenceArray<AtomicLongArray> segments = new AtomicReferenceArray<>(SEGMENTS);
+
+    MessageCounters() { }
+
+    public static MessageCounters getInstance() {
+        return INSTANCE;
+    }
+
+    public void incrementProduced(int partition) {
+        segment(partition).getAndIncrement(offset(partition) + PRODUCED);
+    }
+
+    /**
+     * Adds the consumed and lost messages of the partition as one update
+     * It must be called only by the consumer thread owning the partition, the sequence lock allows a single writer.
+     */
+    public void addConsumed(int partition, long consumed, long lost) {
+        AtomicLongArray segment = segment(partition);
+        int offset = offset(partition);
+        long version = segment.get(offset + VERSION);
+
+        // odd version tells the readers the update is in progress
+        segment.set(offset + VERSION, version + 1);
+        segment.set(offset + CONSUMED, segment.get(offset + CONSUMED) + consumed);
+        segment.set(offset + LOST, segment.get(offset + LOST) + lost);
+        segment.set(offset + VERSION, version + 2);
+    }
+
+    /**
+     * @return counts of the partition, the consumed and lost counts are from the same update
+     */
+    public MessageCounts snapshot(int partition) {
+        AtomicLongArray segment = this.segments.get(checkPartition(partition) / PARTITIONS_PER_SEGMENT);
+
+        if (segment == null) {
+            return MessageCounts.EMPTY;
+        }
+
+        int offset = offset(partition);
+
+        while (true) {
+            long version = segment.get(offset + VERSION);
+
+            if ((version & 1) == 0) {
+                long consumed = segment.get(offset + CONSUMED);
+                long lost = segment.get(offset + LOST);
+
+                if (segment.get(offset + VERSION) == version) {
+                    return new MessageCounts(segment.get(offset + PRODUCED), consumed, lost);
+                }
+            }
+
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * @return counts summed over all the partitions, every partition contributes the consumed and lost counts of the same update
+     */
+    public MessageCounts snapshot() {
+        long produced = 0;
+        long consumed = 0;
+        long lost = 0;
+
+        for (int i = 0; i < SEGMENTS; i++) {
+            if (this.segments.get(i) == null) {
+                continue;
+            }
+
+            for (int partition = i * PARTITIONS_PER_SEGMENT; partition < (i + 1) * PARTITIONS_PER_SEGMENT; partition++) {
+                MessageCounts counts = snapshot(partition);
+                produced += counts.produced();
+                consumed += counts.consumed();
+                lost += counts.lost();
+            }
+        }
+
+        return new MessageCounts(produced, consumed, lost);
+    }
+
+    /**
+     * @return counts of the partitions with any message produced, consumed or lost, by partition
+     */
+    public Map<Integer, MessageCounts> snapshotPartitions() {
+        Map<Integer, MessageCounts> partitions = new HashMap<>();
+
+        for (int i = 0; i < SEGMENTS; i++) {
+            if (this.segments.get(i) == null) {
+                continue;
+            }
+
+            for (int partition = i * PARTITIONS_PER_SEGMENT; partition < (i + 1) * PARTITIONS_PER_SEGMENT; partition++) {
+                MessageCounts counts = snapshot(partition);
+
+                if (!counts.equals(MessageCounts.EMPTY)) {
+                    partitions.put(partition, counts);
+                }
+            }
+        }
+
+        return partitions;
+    }
+
+    private AtomicLongArray segment(int partition) {
+        int index = checkPartition(partition) / PARTITIONS_PER_SEGMENT;
+        AtomicLongArray segment = this.segments.get(index);
+
+        if (segment == null) {
+            this.segments.compareAndSet(index, null, new AtomicLongArray(PARTITIONS_PER_SEGMENT * PARTITION_STRIDE));
+            segment = this.segments.get(index);
+        }
+
+        return segment;
+    }
+
+    private static int offset(int partition) {
+        return partition % PARTITIONS_PER_SEGMENT * PARTITION_STRIDE;
+    }
+
+    private static int checkPartition(int partition) {
+        if (partition < 0 || partition >= SEGMENTS * PARTITIONS_PER_SEGMENT) {
+            throw new IllegalArgumentException("Partition out of the counted range: " + partition);
+        }
+
+        return partition;
+    }
+
+    /**
+     * Numbers of messages at the time of the snapshot
+     */
+    public record MessageCounts(long produced, long consumed, long lost) {
+        public static final MessageCounts EMPTY = new MessageCounts(0, 0, 0);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package clients;
+
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the current leader of each partition of the canary topic, used for tagging the latencies by broker
+ * The leaders are taken from the cluster metadata already cached by the Kafka client (e.g. {@code KafkaProducer#partitionsFor}),
+ * so the refresh doesn't normally need any request to the brokers. The cache is refreshed periodically and right away
+ * after {@link #invalidate()}, which is called when the client sees the leadership change (e.g. NOT_LEADER_OR_FOLLOWER error).
+ * The Kafka client can block while fetching the metadata, so {@link #leaderOf(int)} must not be called from its I/O thread
+ * (e.g. from the producer callback).
+ */
+public class PartitionLeaderCache {
+    public static final String UNKNOWN_LEADER = "unknown";
+
+    private static final Logger LOGGER = LogManager.getLogger(PartitionLeaderCache.class);
+
+    private final Supplier<List<PartitionInfo>> partitionsSupplier;
+    private final long refreshIntervalNanos;
+    private final LongSupplier nanoClock;
+
+    private volatile String[] leaders = new String[0];
+    private volatile long lastRefreshNanos;
+    private volatile boolean invalidated = true;
+
+    /**
+     * @param partitionsSupplier partitions of the canary topic from the client's metadata
+     * @param refreshIntervalMs interval of the periodic refresh in milliseconds
+     */
+    public PartitionLeaderCache(Supplier<List<PartitionInfo>> partitionsSupplier, long refreshIntervalMs) {
+        this(partitionsSupplier, refreshIntervalMs, System::nanoTime);
+    }
+
+    PartitionLeaderCache(Supplier<List<PartitionInfo>> partitionsSupplier, long refreshIntervalMs, LongSupplier nanoClock) {
+        this.partitionsSupplier = partitionsSupplier;
+        this.refreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(refreshIntervalMs);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * @param partition partition of the canary topic
+     * @return id of the broker leading the partition, {@link #UNKNOWN_LEADER} when the partition has no leader or isn't known
+     */
+    public String leaderOf(int partition) {
+        if (this.invalidated || this.nanoClock.getAsLong() - this.lastRefreshNanos >= this.refreshIntervalNanos) {
+            refresh();
+        }
+
+        String[] current = this.leaders;
+        return partition < current.length && current[partition] != null ? current[partition] : UNKNOWN_LEADER;
+    }
+
+    /**
+     * Forces the refresh on the next lookup, safe to call from any thread
+     */
+    public void invalidate() {
+        this.invalidated = true;
+    }
+
+    private synchronized void refresh() {
+        long now = this.nanoClock.getAsLong();
+
+        // another thread might have refreshed the cache in the meantime
+        if (!this.invalidated && now - this.lastRefreshNanos < this.refreshIntervalNanos) {
+            return;
+        }
+
+        this.invalidated = false;
+        this.lastRefreshNanos = now;
+
+        try {
+            List<PartitionInfo> partitions = this.partitionsSupplier.get();
+            int size = partitions.stream().mapToInt(PartitionInfo::partition).max().orElse(-1) + 1;
+            String[] refreshed = new String[size];
+
+            for (PartitionInfo partition : partitions) {
+                if (partition.leader() != null && !partition.leader().isEmpty()) {
+                    refreshed[partition.partition()] = partition.leader().idString();
+                }
+            }
+
+            this.leaders = refreshed;
+        } catch (Exception e) {
+            // the previous leaders are kept, they are most likely still right
+            LOGGER.warn("Failed to refresh partition leaders due to: {}", e.getMessage());
+        }
+    }
+}
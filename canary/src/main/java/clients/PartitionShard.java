@@ -0,0 +1,79 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package clients;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Subset of the canary topic partitions owned by one of the producer or consumer instances
+ * The partitions are dealt round-robin, the shard owns every partition with partition % count == index,
+ * so the partitions added when the cluster grows are spread over the existing shards.
+ * @param index index of the shard, from 0 to count - 1
+ * @param count number of the shards
+ */
+public record PartitionShard(int index, int count) {
+    /**
+     * Single shard owning all the partitions
+     */
+    public static final PartitionShard ALL = new PartitionShard(0, 1);
+
+    public PartitionShard {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException(String.format("Invalid shard %d of %d shards", index, count));
+        }
+    }
+
+    /**
+     * @param count number of the shards
+     * @return all the shards, together they own every partition exactly once
+     */
+    public static List<PartitionShard> create(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException(String.format("Invalid number of shards %d, at least one is needed", count));
+        }
+
+        return IntStream.range(0, count).mapToObj(index -> new PartitionShard(index, count)).toList();
+    }
+
+    public boolean owns(int partition) {
+        return partition % this.count == this.index;
+    }
+
+    /**
+     * @param partitionCount number of partitions of the topic
+     * @return number of the partitions owned by this shard
+     */
+    public int ownedPartitionCount(int partitionCount) {
+        return partitionCount <= this.index ? 0 : (partitionCount - this.index + this.count - 1) / this.count;
+    }
+
+    /**
+     * @param ordinal position of the partition among the owned ones
+     * @return the partition number
+     */
+    public int partition(int ordinal) {
+        return this.index + ordinal * this.count;
+    }
+
+    public List<Integer> ownedPartitions(int partitionCount) {
+        List<Integer> partitions = new ArrayList<>();
+
+        for (int partition = this.index; partition < partitionCount; partition += this.count) {
+            partitions.add(partition);
+        }
+
+        return partitions;
+    }
+
+    /**
+     * @param clientId configured client id
+     * @return client id of the shard, the configured one when there is a single shard, so the metrics don't change
+     */
+    public String clientId(String clientId) {
+        return this.count == 1 ? clientId : clientId + "-" + this.index;
+    }
+}
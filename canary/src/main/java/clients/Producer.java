@@ -5,76 +5,394 @@
 package clients;
 
 import common.Message;
+import common.SessionId;
+import common.clock.ClockSkewEstimator;
+import common.metrics.LatencyCorrection;
+import common.metrics.LocalMeterCache;
 import common.metrics.MetricsRegistry;
+import common.payload.MessageCodec;
+import common.payload.PayloadBufferPool;
+import common.payload.PayloadGenerator;
+import common.payload.PayloadSizer;
+import common.ratelimit.TokenBucket;
 import config.CanaryConfiguration;
+import config.CanaryConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.InvalidMetadataException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Arrays;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+/**
+ * Sends the probes to the partitions owned by its {@link PartitionShard}, every shard has its own KafkaProducer
+ */
 public class Producer implements Client {
 
     private static final Logger LOGGER = LogManager.getLogger(Producer.class);
-    private final KafkaProducer<String, String> producer;
+    private static final long ACHIEVED_RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final KafkaProducer<String, byte[]> producer;
     private final String topicName;
     private final String producerId;
+    private final PartitionShard shard;
     private final Properties properties;
-    private final int expectedClusterSize;
+    // partition count is changed only by the sending thread, see updatePartitionCount
+    private int partitionCount;
+    private volatile int pendingPartitionCount;
     private final double[] producerLatencyBuckets;
+    private final PayloadGenerator payloadGenerator;
+    private final double ratePerPartition;
+    private TokenBucket tokenBucket;
+    private final PartitionLeaderCache partitionLeaders;
+    private final long reconcileIntervalNanos;
+    private final double expectedProbeInterval;
+    // probes omitted since the last recorded latency of the partition, used for the coordinated omission correction
+    private volatile AtomicLongArray omittedProbes;
+    // next sequence number of each partition, the consumer uses them to detect lost, duplicated and reordered messages;
+    // it's advanced only when the send is accepted by the KafkaProducer, so a send failing right away leaves no gap
+    private AtomicLongArray sequences;
+    // messages sent but not acknowledged yet, per partition; callbacks hold the counter itself, so it survives the resize
+    private AtomicInteger[] inFlight;
+    private final int maxInFlightPerPartition;
+    // used only by the KafkaProducer I/O thread running the callbacks of the successful sends
+    private final LocalMeterCache<Integer, Counter> recordsProducedTotal;
+    private final LocalMeterCache<LatencyKey, DistributionSummary> recordsProducedLatency;
+    private final LocalMeterCache<String, DistributionSummary> brokerProducedLatency;
+
+    // periodic probes schedule, accessed only by the scheduler thread
+    private long probeScheduleStart;
+    private long probeTicks;
+
+    // open-loop load state, accessed only by the pacing thread
+    private long pacedMessagesCount;
+    private long lastOmittedTokens;
+    private long achievedRateWindowStart;
+    private long achievedRateWindowCount;
+    private volatile double achievedRatePerPartition;
 
     public Producer(CanaryConfiguration configuration) {
+        this(configuration, PartitionShard.ALL);
+    }
+
+    public Producer(CanaryConfiguration configuration, PartitionShard shard) {
         this.properties = ClientConfiguration.producerProperties(configuration);
         this.producer = new KafkaProducer<>(this.properties);
         this.topicName = configuration.getTopic();
-        this.producerId = configuration.getClientId();
-        this.expectedClusterSize = configuration.getExpectedClusterSize();
+        this.shard = shard;
+        this.producerId = shard.clientId(configuration.getClientId());
+        this.partitionCount = configuration.getExpectedClusterSize();
+        this.pendingPartitionCount = this.partitionCount;
         this.producerLatencyBuckets = configuration.getProducerLatencyBuckets();
+        this.payloadGenerator = createPayloadGenerator(configuration);
+        this.ratePerPartition = configuration.getProducerRatePerPartition();
+        this.tokenBucket = isRateControlled() ? createTokenBucket(this.ratePerPartition * this.shard.ownedPartitionCount(this.partitionCount)) : null;
+        this.reconcileIntervalNanos = TimeUnit.MILLISECONDS.toNanos(configuration.getReconcileInterval());
+        this.expectedProbeInterval = configuration.getExpectedProbeInterval();
+        this.omittedProbes = new AtomicLongArray(this.partitionCount);
+        this.sequences = new AtomicLongArray(this.partitionCount);
+        this.inFlight = createInFlightCounters(new AtomicInteger[0], this.partitionCount);
+        this.maxInFlightPerPartition = maxInFlightPerPartition(configuration.getProducerMaxInFlightPerPartition(), this.ratePerPartition);
+        this.partitionLeaders = new PartitionLeaderCache(() -> this.producer.partitionsFor(this.topicName), CanaryConstants.PARTITION_LEADER_REFRESH_INTERVAL_MS);
+        this.recordsProducedTotal = new LocalMeterCache<>(partition -> MetricsRegistry.getInstance().getRecordsProducedTotal(this.producerId, partition));
+        this.recordsProducedLatency = new LocalMeterCache<>(key -> MetricsRegistry.getInstance()
+            .getRecordsProducedLatency(this.producerId, key.partition(), key.broker(), key.sizeClass(), this.producerLatencyBuckets));
+        this.brokerProducedLatency = new LocalMeterCache<>(broker -> MetricsRegistry.getInstance().getBrokerProducedLatency(broker, this.producerLatencyBuckets));
+    }
+
+    /**
+     * @return true when the producer runs the open-loop load with target rate per partition, instead of periodic probes
+     */
+    public boolean isRateControlled() {
+        return this.ratePerPartition > 0;
     }
 
+    /**
+     * Sends one message to each owned partition, used for the periodic probes
+     * All the messages carry the time when the tick was scheduled, not when it actually ran,
+     * so a tick delayed by a previous blocked send still reports the delay.
+     * The time between the scheduled tick and the send of the last message is recorded as the dispatch skew.
+     */
     public void sendMessages() {
         LOGGER.info("Sending messages to KafkaTopic: {}", topicName);
+        applyPartitionCountUpdate();
 
-        for (int i = 0; i < this.expectedClusterSize; i++) {
-            int currentMessageNum = i;
+        long now = System.nanoTime();
+        if (this.probeTicks == 0) {
+            this.probeScheduleStart = now;
+        }
 
-            try {
-                Message generatedMessage = createMessage(currentMessageNum);
-                LOGGER.info("Sending message: {} to partition: {}", generatedMessage, currentMessageNum);
+        // intended time of the tick can't be in the future when it's called outside the scheduler
+        long intendedNanos = Math.min(now, this.probeScheduleStart + this.probeTicks++ * this.reconcileIntervalNanos);
+
+        for (int i = this.shard.index(); i < this.partitionCount; i += this.shard.count()) {
+            sendMessage(i, intendedNanos);
+        }
+
+        MetricsRegistry.getInstance().getProducerDispatchSkew(producerId, producerLatencyBuckets).record((System.nanoTime() - intendedNanos) / 1_000_000.0);
+    }
+
+    /**
+     * Waits for the next token of the open-loop load and sends one message, the owned partitions are taken round-robin
+     * so every partition receives the target rate
+     * @throws InterruptedException when the pacing thread is interrupted
+     */
+    public void sendPacedMessage() throws InterruptedException {
+        applyPartitionCountUpdate();
+
+        long scheduledNanos = this.tokenBucket.acquire();
+        distributeOmittedTokens();
+
+        int partition = this.shard.partition((int) (this.pacedMessagesCount++ % this.shard.ownedPartitionCount(this.partitionCount)));
+        sendMessage(partition, scheduledNanos);
+
+        updateAchievedRate();
+    }
+
+    private void sendMessage(int partition, long intendedNanos) {
+        AtomicInteger partitionInFlight = this.inFlight[partition];
 
-                this.producer.send(new ProducerRecord<>(this.topicName, i, null, null, generatedMessage.getJsonMessage()),
+        // the previous probes are still pending, sending more would only pile them up in the producer buffer
+        if (partitionInFlight.get() >= this.maxInFlightPerPartition) {
+            LOGGER.debug("Skipping message to partition: {}, {} messages are still in flight", partition, partitionInFlight.get());
+            MetricsRegistry.getInstance().getSkippedDueToBackpressureTotal(producerId, partition).increment();
+            // the skipped probe would have seen the latency of the pending ones, so it's corrected like an omitted one
+            this.omittedProbes.incrementAndGet(partition);
+            return;
+        }
+
+        try {
+            Message generatedMessage = createMessage(partition, intendedNanos);
+            byte[] payload = this.payloadGenerator.generate(generatedMessage);
+            String sizeClass = PayloadSizer.sizeClass(payload.length);
+            // resolved before sending, the metadata lookup can't be done in the callback running on the I/O thread
+            String broker = this.partitionLeaders.leaderOf(partition);
+            LOGGER.debug("Sending message: {} with size: {} bytes to partition: {}", generatedMessage, payload.length, partition);
+
+            partitionInFlight.incrementAndGet();
+            long sendTime = System.currentTimeMillis();
+            long sendNanos = System.nanoTime();
+
+            try {
+                // the create time is set explicitly, so the LogAppendTime returned by the broker can be told apart from it
+                this.producer.send(new ProducerRecord<>(this.topicName, partition, sendTime, null, payload),
                     (metadata, exception) -> {
+                        partitionInFlight.decrementAndGet();
+                        // the record is completed, nothing in the producer refers to the value anymore
+                        payloadGenerator.recycle(payload);
+
                         if (exception == null) {
-                            long sendDuration = System.currentTimeMillis() - generatedMessage.timestamp();
+                            long ackNanos = System.nanoTime();
+                            // both ends are in this process, so the monotonic clock gives sub-millisecond precision
+                            double sendDuration = (ackNanos - intendedNanos) / 1_000_000.0;
+
+                            if (metadata.timestamp() != sendTime) {
+                                addClockSkewSample(broker, sendTime, (ackNanos - sendNanos) / 1_000_000.0, metadata.timestamp());
+                            }
 
                             // incrementing different counter for Status check
-                            MessageCountHolder.getInstance().incrementProducedMessagesCount();
-                            MetricsRegistry.getInstance().getRecordsProducedTotal(producerId, currentMessageNum).increment();
-                            MetricsRegistry.getInstance().getRecordsProducedLatency(producerId, currentMessageNum, producerLatencyBuckets).record(sendDuration);
+                            MessageCounters.getInstance().incrementProduced(partition);
+                            recordsProducedTotal.get(partition).increment();
+                            DistributionSummary latency = recordsProducedLatency.get(new LatencyKey(partition, broker, sizeClass));
+                            DistributionSummary brokerLatency = brokerProducedLatency.get(broker);
+                            LatencyCorrection.recordWithExpectedInterval(value -> {
+                                latency.record(value);
+                                brokerLatency.record(value);
+                                LatencyRecorders.getInstance().recordProduceLatency(partition, value);
+                            }, sendDuration, expectedProbeInterval, omittedProbes.getAndSet(partition, 0));
 
-                            LOGGER.info("Message: {} successfully sent", generatedMessage);
+                            LOGGER.debug("Message: {} successfully sent", generatedMessage);
                         } else {
-                            LOGGER.error("Failed to send message with ID: {}", currentMessageNum);
-                            MetricsRegistry.getInstance().getRecordsProducedFailedTotal(producerId, currentMessageNum).increment();
+                            LOGGER.error("Failed to send message with ID: {}", partition);
+                            MetricsRegistry.getInstance().getRecordsProducedFailedTotal(producerId, partition).increment();
+                            // the sequence number is already taken, the consumer must not count the gap as a loss of the broker
+                            FailedSends.getInstance().add(partition, generatedMessage.messageId());
+
+                            // e.g. the partition leader moved, the broker tag has to follow it
+                            if (exception instanceof InvalidMetadataException) {
+                                partitionLeaders.invalidate();
+                            }
                         }
                     }
                 );
-            } catch (Exception exception) {
-                LOGGER.error("Failed to send message with ID: {}", i);
-                MetricsRegistry.getInstance().getRecordsProducedFailedTotal(producerId, i).increment();
-                exception.printStackTrace();
+                this.sequences.incrementAndGet(partition);
+            } catch (RuntimeException e) {
+                // the callback is not called when send fails right away
+                partitionInFlight.decrementAndGet();
+                this.payloadGenerator.recycle(payload);
+                throw e;
             }
+        } catch (Exception exception) {
+            LOGGER.error("Failed to send message with ID: {}", partition);
+            MetricsRegistry.getInstance().getRecordsProducedFailedTotal(producerId, partition).increment();
+            exception.printStackTrace();
         }
     }
 
-    private Message createMessage(int messageId) {
-        return new Message(producerId, messageId, System.currentTimeMillis());
+    /**
+     * The broker returns the LogAppendTime of the record when the topic is configured with it,
+     * which gives a sample of the broker clock skew used by the consumer to split the end-to-end latency
+     */
+    private static void addClockSkewSample(String broker, long sendTime, double roundTrip, long appendTime) {
+        if (PartitionLeaderCache.UNKNOWN_LEADER.equals(broker)) {
+            return;
+        }
+
+        ClockSkewEstimator estimator = ClockSkewEstimator.getInstance();
+        estimator.addSample(broker, sendTime, roundTrip, appendTime);
+        MetricsRegistry.getInstance().getBrokerClockSkew(broker, () -> estimator.skew(broker).orElse(0));
     }
 
+    /**
+     * Sets the number of partitions of the canary topic, e.g. after the cluster was scaled up
+     * The change is picked up by the sending thread before it sends the next message, so the per-partition state
+     * (sequence numbers, omitted probes) is carried over and the messages in flight are not affected.
+     * @param partitionCount new number of partitions, the count never decreases
+     */
+    public void updatePartitionCount(int partitionCount) {
+        this.pendingPartitionCount = Math.max(this.pendingPartitionCount, partitionCount);
+    }
+
+    private void applyPartitionCountUpdate() {
+        int pending = this.pendingPartitionCount;
+
+        if (pending <= this.partitionCount) {
+            return;
+        }
+
+        LOGGER.info("Switching KafkaProducer from {} to {} partitions", this.partitionCount, pending);
+
+        AtomicLongArray sequences = new AtomicLongArray(pending);
+        for (int i = 0; i < this.partitionCount; i++) {
+            sequences.set(i, this.sequences.get(i));
+        }
+        this.sequences = sequences;
+        this.inFlight = createInFlightCounters(this.inFlight, pending);
+
+        // callbacks of the messages in flight might still update the previous array, so its values are moved atomically
+        AtomicLongArray previousOmittedProbes = this.omittedProbes;
+        AtomicLongArray omittedProbes = new AtomicLongArray(pending);
+        this.omittedProbes = omittedProbes;
+        for (int i = 0; i < this.partitionCount; i++) {
+            omittedProbes.addAndGet(i, previousOmittedProbes.getAndSet(i, 0));
+        }
+
+        if (isRateControlled()) {
+            this.tokenBucket = createTokenBucket(this.ratePerPartition * this.shard.ownedPartitionCount(pending));
+            this.lastOmittedTokens = 0;
+        }
+
+        this.partitionCount = pending;
+    }
+
+    /**
+     * Tokens omitted by the token bucket are the probes which were never sent, they are spread over the owned partitions
+     * the same way as if they were sent round-robin
+     */
+    private void distributeOmittedTokens() {
+        long omitted = this.tokenBucket.getOmittedTokens() - this.lastOmittedTokens;
+
+        if (omitted == 0) {
+            return;
+        }
+
+        int ownedPartitionCount = this.shard.ownedPartitionCount(this.partitionCount);
+        long perPartition = omitted / ownedPartitionCount;
+        long remainder = omitted % ownedPartitionCount;
+        int first = (int) (this.pacedMessagesCount % ownedPartitionCount);
+
+        for (int i = 0; i < ownedPartitionCount; i++) {
+            int distance = (i - first + ownedPartitionCount) % ownedPartitionCount;
+            this.omittedProbes.addAndGet(this.shard.partition(i), perPartition + (distance < remainder ? 1 : 0));
+        }
+
+        this.pacedMessagesCount += omitted;
+        this.lastOmittedTokens += omitted;
+    }
+
+    /**
+     * Converts the {@link System#nanoTime()} value into the wall-clock timestamp in milliseconds
+     */
+    private static long toTimestamp(long nanoTime) {
+        return System.currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - nanoTime);
+    }
+
+    private void updateAchievedRate() {
+        long now = System.nanoTime();
+        this.achievedRateWindowCount++;
+
+        if (this.achievedRateWindowStart == 0) {
+            this.achievedRateWindowStart = now;
+        } else if (now - this.achievedRateWindowStart >= ACHIEVED_RATE_WINDOW_NANOS) {
+            double ratePerSecond = (double) this.achievedRateWindowCount * TimeUnit.SECONDS.toNanos(1) / (now - this.achievedRateWindowStart);
+            this.achievedRatePerPartition = ratePerSecond / this.shard.ownedPartitionCount(this.partitionCount);
+            this.achievedRateWindowStart = now;
+            this.achievedRateWindowCount = 0;
+        }
+    }
+
+    private static AtomicInteger[] createInFlightCounters(AtomicInteger[] current, int partitionCount) {
+        AtomicInteger[] counters = Arrays.copyOf(current, partitionCount);
+
+        for (int i = current.length; i < partitionCount; i++) {
+            counters[i] = new AtomicInteger();
+        }
+
+        return counters;
+    }
+
+    /**
+     * @param configured configured limit, 0 for the default one
+     * @param ratePerPartition rate of the open-loop load, 0 when only the periodic probes are sent
+     * @return max number of messages in flight per partition, one for the periodic probes
+     *         and one burst interval worth of messages for the open-loop load
+     */
+    private static int maxInFlightPerPartition(int configured, double ratePerPartition) {
+        if (configured > 0) {
+            return configured;
+        }
+
+        return (int) Math.max(1, Math.ceil(ratePerPartition * CanaryConstants.PRODUCER_RATE_BURST_INTERVAL_MS / 1000));
+    }
+
+    private static TokenBucket createTokenBucket(double rate) {
+        // allows catching up at most one burst interval worth of messages after a stall
+        int capacity = (int) Math.max(1, rate * CanaryConstants.PRODUCER_RATE_BURST_INTERVAL_MS / 1000);
+        return new TokenBucket(rate, capacity);
+    }
+
+    private static PayloadGenerator createPayloadGenerator(CanaryConfiguration configuration) {
+        MessageCodec codec = configuration.getPayloadFormat().createCodec();
+        int maxPayloadSize = PayloadSizer.maxPayloadSize(configuration.getTopicConfig());
+        PayloadSizer sizer = new PayloadSizer(configuration.getPayloadSizeDistribution(), configuration.getPayloadSizes(), configuration.getPayloadSizeSigma(), maxPayloadSize);
+        // the filler is pre-generated only when the payload is going to be padded
+        PayloadBufferPool pool = configuration.getPayloadSizes().length == 0 ? null : new PayloadBufferPool(maxPayloadSize, CanaryConstants.PAYLOAD_BUFFER_POOL_MAX_BYTES);
+
+        return new PayloadGenerator(codec, sizer, pool, configuration.getClientId());
+    }
+
+    private Message createMessage(int partition, long intendedNanos) {
+        return new Message(producerId, SessionId.current(), sequences.get(partition), toTimestamp(intendedNanos), intendedNanos);
+    }
+
+    private record LatencyKey(int partition, String broker, String sizeClass) { }
+
     @Override
     public void start() {
-        LOGGER.info("Starting KafkaProducer with properties: {}", properties);
+        LOGGER.info("Starting KafkaProducer of shard {} of {} with properties: {}", shard.index(), shard.count(), properties);
+
+        if (isRateControlled()) {
+            LOGGER.info("KafkaProducer runs open-loop load with target rate: {} messages/s per partition", this.ratePerPartition);
+            MetricsRegistry.getInstance().getProducerTargetRate(producerId, () -> this.ratePerPartition);
+            MetricsRegistry.getInstance().getProducerAchievedRate(producerId, () -> this.achievedRatePerPartition);
+        }
     }
 
     @Override
@@ -0,0 +1,232 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package clients;
+
+import common.concurrent.ThreadMode;
+import common.metrics.MetricsRegistry;
+import config.CanaryConfiguration;
+import config.CanaryConfigurationUtils;
+import config.CanaryConstants;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.RangeAssignor;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Probes the consumer group rebalances, which the canary consumer doesn't go through as it assigns the partitions itself
+ * A small group of consumers subscribed to the canary topic runs for both the eager and the cooperative-sticky protocol,
+ * every probe adds one more member to each group, or removes it again, and the {@link RebalanceTracker} measures
+ * the time to the stable assignment and the consumption gap of the moved partitions.
+ * The members only poll, the consumed messages are not checked and the offsets are not committed.
+ */
+public class RebalanceProbe implements Client {
+
+    private static final Logger LOGGER = LogManager.getLogger(RebalanceProbe.class);
+    private static final String GROUP_ID_SUFFIX = "-rebalance-probe-";
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+
+    private final List<ProbeGroup> groups = new ArrayList<>();
+
+    public RebalanceProbe(CanaryConfiguration configuration) {
+        double[] buckets = CanaryConfigurationUtils.createLatencyBuckets(CanaryConstants.REBALANCE_LATENCY_BUCKETS);
+
+        for (Protocol protocol : Protocol.values()) {
+            this.groups.add(new ProbeGroup(configuration, protocol, buckets));
+        }
+    }
+
+    /**
+     * Changes the membership of every group, the group which didn't get stable after the previous change is skipped
+     */
+    public void probe() {
+        for (ProbeGroup group : this.groups) {
+            group.changeMembership();
+        }
+    }
+
+    @Override
+    public void start() {
+        LOGGER.info("Starting rebalance probe");
+        this.groups.forEach(ProbeGroup::start);
+    }
+
+    @Override
+    public void stop() {
+        LOGGER.info("Stopping rebalance probe");
+        this.groups.forEach(ProbeGroup::stop);
+    }
+
+    private enum Protocol {
+        EAGER("eager", RangeAssignor.class.getName()),
+        COOPERATIVE_STICKY("cooperative-sticky", CooperativeStickyAssignor.class.getName());
+
+        private final String name;
+        private final String assignor;
+
+        Protocol(String name, String assignor) {
+            this.name = name;
+            this.assignor = assignor;
+        }
+    }
+
+    /**
+     * Consumer group of one protocol, the base members run all the time and the extra one joins and leaves
+     */
+    private static class ProbeGroup {
+        private final CanaryConfiguration configuration;
+        private final Protocol protocol;
+        private final String groupId;
+        private final ThreadMode threadMode;
+        private final RebalanceTracker tracker;
+        // accessed only by the probe task, except of the start and stop
+        private final List<Member> members = new ArrayList<>();
+        private Member extraMember;
+        private int memberCount;
+
+        ProbeGroup(CanaryConfiguration configuration, Protocol protocol, double[] buckets) {
+            this.configuration = configuration;
+            this.protocol = protocol;
+            this.groupId = configuration.getConsumerGroupId() + GROUP_ID_SUFFIX + protocol.name;
+            this.threadMode = configuration.getThreadMode();
+            this.tracker = new RebalanceTracker(
+                timeToStable -> MetricsRegistry.getInstance().getRebalanceTimeToStable(protocol.name, buckets).record(timeToStable),
+                gap -> MetricsRegistry.getInstance().getRebalanceConsumptionGap(protocol.name, buckets).record(gap));
+        }
+
+        synchronized void start() {
+            for (int i = 0; i < CanaryConstants.REBALANCE_PROBE_GROUP_SIZE; i++) {
+                this.members.add(newMember());
+            }
+
+            this.tracker.membershipChanged(memberIds(), System.nanoTime());
+            this.members.forEach(Member::start);
+        }
+
+        synchronized void changeMembership() {
+            if (this.tracker.isChanging()) {
+                LOGGER.warn("Rebalance probe group: {} has no stable assignment since the previous membership change", this.groupId);
+                MetricsRegistry.getInstance().getRebalanceProbeUnstableTotal(this.protocol.name).increment();
+                return;
+            }
+
+            if (this.extraMember == null) {
+                this.extraMember = newMember();
+                this.members.add(this.extraMember);
+                this.tracker.membershipChanged(memberIds(), System.nanoTime());
+                this.extraMember.start();
+            } else {
+                this.members.remove(this.extraMember);
+                this.tracker.membershipChanged(memberIds(), System.nanoTime());
+                this.extraMember.stop();
+                this.extraMember = null;
+            }
+        }
+
+        synchronized void stop() {
+            this.members.forEach(Member::stop);
+
+            try {
+                // the members leave the group when they close the consumers
+                for (Member member : this.members) {
+                    member.thread.join();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            this.members.clear();
+            this.extraMember = null;
+        }
+
+        private List<String> memberIds() {
+            return this.members.stream().map(member -> member.memberId).toList();
+        }
+
+        private Member newMember() {
+            String memberId = this.configuration.getClientId() + GROUP_ID_SUFFIX + this.protocol.name + "-" + this.memberCount++;
+            Properties properties = ClientConfiguration.consumerProperties(this.configuration);
+
+            properties.put(ConsumerConfig.CLIENT_ID_CONFIG, memberId);
+            properties.put(ConsumerConfig.GROUP_ID_CONFIG, this.groupId);
+            properties.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, this.protocol.assignor);
+            // the new member reads only the messages sent after it joins, not the whole topic again
+            properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+
+            return new Member(memberId, properties, this.configuration.getTopic(), this.tracker, this.threadMode);
+        }
+    }
+
+    /**
+     * Member of the probe group polling in its own thread, the rebalance callbacks are called from the poll
+     */
+    private static class Member implements Runnable, ConsumerRebalanceListener {
+        private final String memberId;
+        private final Properties properties;
+        private final String topicName;
+        private final RebalanceTracker tracker;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        Member(String memberId, Properties properties, String topicName, RebalanceTracker tracker, ThreadMode threadMode) {
+            this.memberId = memberId;
+            this.properties = properties;
+            this.topicName = topicName;
+            this.tracker = tracker;
+            this.thread = threadMode.newThread(this, memberId);
+        }
+
+        void start() {
+            this.thread.start();
+        }
+
+        void stop() {
+            this.running = false;
+        }
+
+        @Override
+        public void run() {
+            // created in the member thread, KafkaConsumer must not be used by multiple threads
+            try (KafkaConsumer<String, byte[]> consumer = new KafkaConsumer<>(this.properties)) {
+                consumer.subscribe(List.of(this.topicName), this);
+
+                while (this.running) {
+                    consumer.poll(POLL_TIMEOUT);
+                }
+            } catch (Exception e) {
+                LOGGER.error("Rebalance probe member: {} failed due to: {}", this.memberId, e.getMessage());
+                MetricsRegistry.getInstance().getConsumerErrorTotal(this.memberId).increment();
+            }
+        }
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            this.tracker.revoked(this.memberId, partitions(partitions), System.nanoTime());
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            this.tracker.assigned(this.memberId, partitions(partitions), System.nanoTime());
+        }
+
+        @Override
+        public void onPartitionsLost(Collection<TopicPartition> partitions) {
+            this.tracker.revoked(this.memberId, partitions(partitions), System.nanoTime());
+        }
+
+        private static List<Integer> partitions(Collection<TopicPartition> partitions) {
+            return partitions.stream().map(TopicPartition::partition).toList();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package clients;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Follows the partition assignments of the consumer group members through the rebalance listener callbacks
+ * The assignment is stable again after the membership change once every current member got its assignment
+ * and every revoked partition was assigned to one of the members. With the eager protocol all the partitions
+ * are revoked and assigned in a single rebalance, the cooperative protocol needs a second rebalance
+ * for the revoked partitions, so the time to the stable assignment covers both of them.
+ * The time between revoking and assigning a partition again is the consumption gap of the partition,
+ * nobody consumes it in the meantime.
+ */
+public class RebalanceTracker {
+    private final DoubleConsumer timeToStableRecorder;
+    private final DoubleConsumer consumptionGapRecorder;
+    private final Map<String, Set<Integer>> assignments = new HashMap<>();
+    private final Map<Integer, Long> revokedAt = new HashMap<>();
+    private final Set<String> pendingMembers = new HashSet<>();
+    private boolean changing;
+    private long changeStart;
+
+    /**
+     * @param timeToStableRecorder gets the time to the stable assignment in milliseconds
+     * @param consumptionGapRecorder gets the consumption gap of the partition in milliseconds
+     */
+    public RebalanceTracker(DoubleConsumer timeToStableRecorder, DoubleConsumer consumptionGapRecorder) {
+        this.timeToStableRecorder = timeToStableRecorder;
+        this.consumptionGapRecorder = consumptionGapRecorder;
+    }
+
+    /**
+     * @param members members of the group after the change
+     * @param nanos {@link System#nanoTime()} of the change
+     */
+    public synchronized void membershipChanged(Collection<String> members, long nanos) {
+        this.changing = true;
+        this.changeStart = nanos;
+        this.pendingMembers.clear();
+        this.pendingMembers.addAll(members);
+        // the member which left might not have revoked its partitions
+        this.assignments.keySet().retainAll(members);
+    }
+
+    public synchronized void revoked(String member, Collection<Integer> partitions, long nanos) {
+        Set<Integer> assignment = this.assignments.get(member);
+
+        if (assignment != null) {
+            assignment.removeAll(partitions);
+        }
+
+        for (int partition : partitions) {
+            this.revokedAt.putIfAbsent(partition, nanos);
+        }
+    }
+
+    /**
+     * @param partitions partitions added to the member, with the eager protocol all its partitions
+     */
+    public synchronized void assigned(String member, Collection<Integer> partitions, long nanos) {
+        this.assignments.computeIfAbsent(member, key -> new HashSet<>()).addAll(partitions);
+        this.pendingMembers.remove(member);
+
+        for (int partition : partitions) {
+            Long revoked = this.revokedAt.remove(partition);
+
+            if (revoked != null) {
+                this.consumptionGapRecorder.accept(toMillis(nanos - revoked));
+            }
+        }
+
+        if (this.changing && this.pendingMembers.isEmpty() && this.revokedAt.isEmpty()) {
+            this.changing = false;
+            this.timeToStableRecorder.accept(toMillis(nanos - this.changeStart));
+        }
+    }
+
+    /**
+     * @return true while the assignment after the last membership change isn't stable yet
+     */
+    public synchronized boolean isChanging() {
+        return this.changing;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -4,33 +4,35 @@
  */
 package common;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+/**
+ * Canary probe message
+ * @param producerId id of the producing client
+ * @param sessionId id of the producing canary process, see {@link SessionId}
+ * @param messageId sequence number of the message within the partition and the session
+ * @param timestamp intended dispatch time of the probe in milliseconds, latencies are measured from it
+ *                  so that a stalled producer doesn't hide the delay it caused
+ * @param nanoTime intended dispatch time as {@link System#nanoTime()} of the producing process, it can be compared
+ *                 only within the same session; 0 when not known
+ */
 public record Message(
     String producerId,
-    int messageId,
-    long timestamp
+    long sessionId,
+    long messageId,
+    long timestamp,
+    long nanoTime
 ) {
 
     public String getJsonMessage() {
         ObjectNode message = JsonNodeFactory.instance.objectNode();
         message.put("producerId", this.producerId);
+        message.put("sessionId", String.valueOf(this.sessionId));
         message.put("messageId", String.valueOf(this.messageId));
         message.put("timestamp", String.valueOf(this.timestamp));
+        message.put("nanoTime", String.valueOf(this.nanoTime));
 
         return message.toString();
     }
-
-    public static Message parseFromJson(String jsonMessage) {
-        ObjectMapper mapper = new ObjectMapper();
-
-        try {
-            return mapper.readValue(jsonMessage, Message.class);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
-    }
 }
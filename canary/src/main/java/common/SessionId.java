@@ -0,0 +1,41 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common;
+
+import java.security.SecureRandom;
+
+/**
+ * Id of the running canary process, embedded into every message it produces
+ * The per-partition sequence numbers restart with every process, so the session id tells the consumer
+ * which sequence numbers belong together.
+ */
+public final class SessionId {
+    /**
+     * Session id of the messages produced by canary versions which didn't send it
+     */
+    public static final long UNKNOWN = 0;
+
+    private static final long CURRENT = generate();
+
+    private SessionId() { }
+
+    /**
+     * @return session id of this canary process
+     */
+    public static long current() {
+        return CURRENT;
+    }
+
+    private static long generate() {
+        SecureRandom random = new SecureRandom();
+        long sessionId;
+
+        do {
+            sessionId = random.nextLong() & Long.MAX_VALUE;
+        } while (sessionId == UNKNOWN);
+
+        return sessionId;
+    }
+}
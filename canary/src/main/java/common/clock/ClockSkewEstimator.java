@@ -0,0 +1,61 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.clock;
+
+import config.CanaryConstants;
+
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Running estimate of the difference between the broker clocks and the clock of the canary process
+ * Every acknowledged produce request gives a sample: the broker appended the record somewhere between
+ * the request was sent and the response was received, so the skew is estimated as if it happened in the middle
+ * of the round trip, with the error bound of half of the round trip (plus the millisecond resolution of the broker time).
+ * Only the sample with the shortest round trip is kept, as it has the tightest error bound; the kept sample is replaced
+ * by any newer one once it gets older than the max sample age, so the estimate follows the clock drift.
+ */
+public class ClockSkewEstimator {
+    private static final ClockSkewEstimator INSTANCE = new ClockSkewEstimator(CanaryConstants.CLOCK_SKEW_SAMPLE_MAX_AGE_MS);
+
+    private final long sampleMaxAge;
+    private final Map<String, Sample> samples = new ConcurrentHashMap<>();
+
+    /**
+     * @param sampleMaxAge time in milliseconds after which the best sample is replaced even by a worse one
+     */
+    public ClockSkewEstimator(long sampleMaxAge) {
+        this.sampleMaxAge = sampleMaxAge;
+    }
+
+    public static ClockSkewEstimator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param broker id of the broker which appended the record
+     * @param requestTime wall-clock time in milliseconds when the request was sent
+     * @param roundTrip time in milliseconds between sending the request and receiving the response
+     * @param brokerTime broker time in milliseconds when the record was appended, i.e. the LogAppendTime
+     */
+    public void addSample(String broker, long requestTime, double roundTrip, long brokerTime) {
+        Sample sample = new Sample(brokerTime - (requestTime + roundTrip / 2), roundTrip, requestTime);
+
+        this.samples.merge(broker, sample,
+            (current, next) -> next.roundTrip() <= current.roundTrip() || next.time() - current.time() > this.sampleMaxAge ? next : current);
+    }
+
+    /**
+     * @param broker id of the broker
+     * @return broker clock minus the canary clock in milliseconds, empty when there is no sample from the broker yet
+     */
+    public OptionalDouble skew(String broker) {
+        Sample sample = this.samples.get(broker);
+        return sample == null ? OptionalDouble.empty() : OptionalDouble.of(sample.skew());
+    }
+
+    private record Sample(double skew, double roundTrip, long time) { }
+}
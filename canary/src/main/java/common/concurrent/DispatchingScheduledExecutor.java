@@ -0,0 +1,102 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.concurrent;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scheduled executor which only triggers the ticks on its scheduler thread, every run of a task is handed over to the workers,
+ * so a blocked task never delays the ticks of the other tasks
+ * A tick firing while the previous run of the same task is still running is not dropped, it's run right after it,
+ * so a task never runs concurrently with itself and, like with {@link ScheduledThreadPoolExecutor}, the late runs are run back to back.
+ * Every tick gets its run, so the tasks counting their runs (e.g. the intended time of the producer probes) don't drift after a stall.
+ * An exception thrown by a run doesn't cancel the next ticks, it's handled by the worker thread.
+ */
+class DispatchingScheduledExecutor extends ScheduledThreadPoolExecutor {
+    private final ExecutorService workers;
+
+    /**
+     * @param schedulerFactory factory of the scheduler thread
+     * @param workers executor running the tasks, e.g. one starting a new virtual thread per task
+     */
+    DispatchingScheduledExecutor(ThreadFactory schedulerFactory, ExecutorService workers) {
+        super(1, schedulerFactory);
+        this.workers = workers;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return super.schedule(dispatch(command), delay, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        return super.scheduleAtFixedRate(dispatch(command), initialDelay, period, unit);
+    }
+
+    /**
+     * The delay is counted from the dispatch of the previous run, not from its end
+     */
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        return super.scheduleWithFixedDelay(dispatch(command), initialDelay, delay, unit);
+    }
+
+    private Runnable dispatch(Runnable command) {
+        // ticks not run yet, including the one running
+        AtomicInteger pending = new AtomicInteger();
+
+        return () -> {
+            if (pending.getAndIncrement() == 0) {
+                execute(command, pending);
+            }
+        };
+    }
+
+    private void execute(Runnable command, AtomicInteger pending) {
+        try {
+            this.workers.execute(() -> {
+                try {
+                    command.run();
+                } finally {
+                    // the ticks which fired in the meantime are caught up one by one
+                    if (pending.decrementAndGet() > 0) {
+                        execute(command, pending);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // shutting down
+            pending.set(0);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        this.workers.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> pending = super.shutdownNow();
+        this.workers.shutdownNow();
+        return pending;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        return super.awaitTermination(timeout, unit) && this.workers.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.concurrent;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Threads running the canary tasks: the scheduled probes, the consumer loop, the open-loop producer load and the HTTP handlers
+ * PLATFORM is the default one, using the regular platform threads
+ * VIRTUAL uses the virtual threads of Java 21, so a blocked task doesn't hold an OS thread and idle threads cost almost nothing.
+ * The canary is built for Java 17, so the virtual threads are created through reflection;
+ * when the runtime doesn't support them, the platform threads are used instead.
+ */
+public enum ThreadMode {
+    PLATFORM("platform"),
+    VIRTUAL("virtual");
+
+    private static final Logger LOGGER = LogManager.getLogger(ThreadMode.class);
+
+    private final String name;
+
+    ThreadMode(String name) {
+        this.name = name;
+    }
+
+    public static ThreadMode forName(String name) {
+        String lowerCaseName = name.toLowerCase(Locale.ENGLISH);
+
+        for (ThreadMode mode : values()) {
+            if (mode.name.equals(lowerCaseName)) {
+                return mode;
+            }
+        }
+
+        throw new IllegalArgumentException(String.format("Unknown thread mode: %s, supported modes are: %s", name, getAllThreadModes()));
+    }
+
+    public static List<String> getAllThreadModes() {
+        return Arrays.stream(values()).map(mode -> mode.name).toList();
+    }
+
+    /**
+     * @param name name of the threads, virtual threads get a sequence number appended
+     * @return factory of the threads of this mode
+     */
+    public ThreadFactory threadFactory(String name) {
+        if (this == VIRTUAL) {
+            ThreadFactory factory = virtualThreadFactory(name);
+
+            if (factory != null) {
+                return factory;
+            }
+            LOGGER.warn("Virtual threads are not supported by Java {}, using platform threads for: {}", Runtime.version().feature(), name);
+        }
+
+        return runnable -> new Thread(runnable, name);
+    }
+
+    public Thread newThread(Runnable runnable, String name) {
+        return threadFactory(name).newThread(runnable);
+    }
+
+    /**
+     * With the virtual threads the executor only triggers the ticks, every run of a task gets its own new thread,
+     * so a blocked task can't delay the other ones; without their support it falls back to a pool of platform threads.
+     * @param poolSize number of threads running the tasks, ignored with the virtual threads
+     * @param name name of the threads
+     * @return scheduled executor running the tasks on the threads of this mode
+     */
+    public ScheduledExecutorService newScheduledExecutor(int poolSize, String name) {
+        if (this == VIRTUAL) {
+            return new DispatchingScheduledExecutor(threadFactory(name + "-scheduler"), newThreadPerTaskExecutor(name));
+        }
+
+        return Executors.newScheduledThreadPool(poolSize, threadFactory(name));
+    }
+
+    /**
+     * Reflective equivalent of {@code Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory())}
+     * @return executor starting a new virtual thread per task, or a pool of platform threads when the virtual ones are not supported
+     */
+    private ExecutorService newThreadPerTaskExecutor(String name) {
+        ThreadFactory factory = threadFactory(name);
+
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            // Java older than 21, the thread factory fell back to the platform threads as well
+            return Executors.newCachedThreadPool(factory);
+        }
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return virtualThreadFactory("canary-probe") != null;
+    }
+
+    /**
+     * Reflective equivalent of {@code Thread.ofVirtual().name(name + "-", 0).factory()}
+     * @return factory of the virtual threads, null when the runtime doesn't support them
+     */
+    private static ThreadFactory virtualThreadFactory(String name) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            // Java older than 21, or preview features not enabled
+            return null;
+        }
+    }
+
+    public String getName() {
+        return this.name;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * Coordinated omission correction of the latency samples, following HdrHistogram's {@code recordValueWithExpectedInterval}
+ * When probes which were expected every {@code expectedInterval} were not sent at all (e.g. the load fell behind
+ * the token bucket capacity, or the producer was stalled), the next measured latency is recorded together with
+ * the latencies the omitted probes would have seen: value - interval, value - 2 * interval, ... down to the interval.
+ * The number of backfilled samples is limited by the number of omitted probes, so probes which were only delayed
+ * (and measured from their intended dispatch time anyway) are never counted twice.
+ */
+public class LatencyCorrection {
+
+    private LatencyCorrection() { }
+
+    /**
+     * Records the latency with the backfill for the omitted probes
+     * @param summary histogram recording the latency
+     * @param value measured latency in milliseconds
+     * @param expectedInterval expected interval between the probes in milliseconds
+     * @param omittedProbes number of probes omitted since the previous recorded one
+     * @return number of backfilled samples
+     */
+    public static long recordWithExpectedInterval(DistributionSummary summary, double value, double expectedInterval, long omittedProbes) {
+        return recordWithExpectedInterval(summary::record, value, expectedInterval, omittedProbes);
+    }
+
+    /**
+     * Records the latency with the backfill for the omitted probes
+     * @param recorder recording every latency sample, e.g. into more histograms at once
+     * @param value measured latency in milliseconds
+     * @param expectedInterval expected interval between the probes in milliseconds
+     * @param omittedProbes number of probes omitted since the previous recorded one
+     * @return number of backfilled samples
+     */
+    public static long recordWithExpectedInterval(DoubleConsumer recorder, double value, double expectedInterval, long omittedProbes) {
+        recorder.accept(value);
+
+        if (expectedInterval <= 0) {
+            return 0;
+        }
+
+        long backfilled = 0;
+        for (double missingValue = value - expectedInterval; missingValue >= expectedInterval && backfilled < omittedProbes; missingValue -= expectedInterval) {
+            recorder.accept(missingValue);
+            backfilled++;
+        }
+
+        return backfilled;
+    }
+
+    /**
+     * Number of probes omitted between two consecutive intended dispatch times
+     * @param previousTimestamp intended dispatch time of the previous probe
+     * @param timestamp intended dispatch time of the current probe
+     * @param expectedInterval expected interval between the probes
+     * @return number of omitted probes, 0 when the timestamps are not consecutive
+     */
+    public static long omittedProbes(long previousTimestamp, long timestamp, double expectedInterval) {
+        if (previousTimestamp <= 0 || expectedInterval <= 0 || timestamp <= previousTimestamp) {
+            return 0;
+        }
+
+        return Math.max(0, Math.round((timestamp - previousTimestamp) / expectedInterval) - 1);
+    }
+}
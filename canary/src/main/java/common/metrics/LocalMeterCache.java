@@ -0,0 +1,40 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Meter handles used by a single thread, e.g. the I/O thread of one producer shard or one of the consumer threads
+ * The lookup neither builds the metric key string nor touches the maps of the {@link MetricsRegistry} shared
+ * by all the threads, the registry is called only for the first lookup of the key.
+ * It is not thread-safe, every thread keeps its own instance.
+ * @param <K> key of the meter, e.g. the partition
+ * @param <M> type of the meter
+ */
+public class LocalMeterCache<K, M> {
+    private final Map<K, M> meters = new HashMap<>();
+    private final Function<K, M> factory;
+
+    /**
+     * @param factory gets the meter from the {@link MetricsRegistry}
+     */
+    public LocalMeterCache(Function<K, M> factory) {
+        this.factory = factory;
+    }
+
+    public M get(K key) {
+        M meter = this.meters.get(key);
+
+        if (meter == null) {
+            meter = this.factory.apply(key);
+            this.meters.put(key, meter);
+        }
+
+        return meter;
+    }
+}
@@ -6,6 +6,7 @@ package common.metrics;
 
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Tags;
 import io.micrometer.prometheus.PrometheusConfig;
@@ -13,11 +14,17 @@ import io.micrometer.prometheus.PrometheusMeterRegistry;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 public class MetricsRegistry {
     private static MetricsRegistry instance = null;
     private final PrometheusMeterRegistry prometheusMeterRegistry;
     private static final String METRICS_PREFIX = "strimzi_canary_";
+    // latency percentiles are computed from HdrHistogram, next to the configured buckets; every percentile histogram
+    // keeps its own HdrHistogram buffers, so they are published only by the per-broker aggregates, not per tag combination
+    private static final double[] LATENCY_PERCENTILES = {0.5, 0.99, 0.999};
+    // significant decimal digits kept by the histogram, 3 keeps microseconds for latencies below 1 second
+    private static final int LATENCY_PERCENTILE_PRECISION = 3;
 
     private final Map<String, Counter> recordsProducedTotal = new ConcurrentHashMap<>(1);
     private final Map<String, Counter> clientCreationErrorTotal = new ConcurrentHashMap<>(1);
@@ -30,6 +37,42 @@ public class MetricsRegistry {
     private final Map<String, Counter> recordsConsumedTotal = new ConcurrentHashMap<>(1);
     private final Map<String, Counter> consumerErrorTotal = new ConcurrentHashMap<>(1);
     private final Map<String, DistributionSummary> recordsConsumedLatency = new ConcurrentHashMap<>(1);
+    private final Map<String, DistributionSummary> brokerProducedLatency = new ConcurrentHashMap<>(1);
+    private final Map<String, DistributionSummary> brokerConsumedLatency = new ConcurrentHashMap<>(1);
+    private final Map<String, DistributionSummary> offsetCommitLatency = new ConcurrentHashMap<>(1);
+    private final Map<String, Counter> offsetCommitErrorTotal = new ConcurrentHashMap<>(1);
+    private final Map<String, DistributionSummary> groupCoordinatorCommitLatency = new ConcurrentHashMap<>(1);
+    private final Map<String, DistributionSummary> groupCoordinatorFetchLatency = new ConcurrentHashMap<>(1);
+    private final Map<String, Counter> groupCoordinatorProbeErrorTotal = new ConcurrentHashMap<>(1);
+    private final Map<String, Counter> recordsConsumedMalformedTotal = new ConcurrentHashMap<>(1);
+    private final Map<String, Counter> recordsConsumedStaleTotal = new ConcurrentHashMap<>(1);
+    private final Map<String, Counter> recordsDrainedTotal = new ConcurrentHashMap<>(1);
+    private final Map<String, Gauge> consumerStartupDrainDuration = new ConcurrentHashMap<>(1);
+    private final Map<String, Counter> recordsLostTotal = new ConcurrentHashMap<>(1);
+    private final Map<String, Counter> recordsDuplicatedTotal = new ConcurrentHashMap<>(1);
+    private final Map<String, Counter> recordsOutOfOrderTotal = new ConcurrentHashMap<>(1);
+    private final Map<String, Counter> skippedDueToBackpressureTotal = new ConcurrentHashMap<>(1);
+    private final Map<String, Counter> leadershipReassignmentsTotal = new ConcurrentHashMap<>(1);
+    private final Map<String, Counter> leaderElectionsTotal = new ConcurrentHashMap<>(1);
+    private final Map<String, Counter> leadershipReconcileErrorTotal = new ConcurrentHashMap<>(1);
+    private final Map<String, Gauge> producerTargetRate = new ConcurrentHashMap<>(1);
+    private final Map<String, Gauge> producerAchievedRate = new ConcurrentHashMap<>(1);
+    private final Map<String, DistributionSummary> recordsProduceToAppendLatency = new ConcurrentHashMap<>(1);
+    private final Map<String, DistributionSummary> recordsAppendToConsumeLatency = new ConcurrentHashMap<>(1);
+    private final Map<String, Gauge> brokerClockSkew = new ConcurrentHashMap<>(1);
+    private final Map<String, DistributionSummary> producerDispatchSkew = new ConcurrentHashMap<>(1);
+    private final Map<String, DistributionSummary> recordsConsumedFollowerLatency = new ConcurrentHashMap<>(1);
+    private final Map<String, Gauge> partitionLogStartOffset = new ConcurrentHashMap<>(1);
+    private final Map<String, Gauge> partitionLogEndOffset = new ConcurrentHashMap<>(1);
+    private final Map<String, Gauge> consumerLag = new ConcurrentHashMap<>(1);
+    private final Map<String, Gauge> consumerGroupLag = new ConcurrentHashMap<>(1);
+    private final Map<String, Counter> offsetsLookupErrorTotal = new ConcurrentHashMap<>(1);
+    private final Map<String, Gauge> catchUpReadBytesRate = new ConcurrentHashMap<>(1);
+    private final Map<String, Gauge> catchUpReadRecordsRate = new ConcurrentHashMap<>(1);
+    private final Map<String, Counter> catchUpProbeErrorTotal = new ConcurrentHashMap<>(1);
+    private final Map<String, DistributionSummary> rebalanceTimeToStable = new ConcurrentHashMap<>(1);
+    private final Map<String, DistributionSummary> rebalanceConsumptionGap = new ConcurrentHashMap<>(1);
+    private final Map<String, Counter> rebalanceProbeUnstableTotal = new ConcurrentHashMap<>(1);
 
     private MetricsRegistry(PrometheusMeterRegistry prometheusMeterRegistry) {
         this.prometheusMeterRegistry = prometheusMeterRegistry;
@@ -103,9 +146,9 @@ public class MetricsRegistry {
         return recordsProducedFailedTotal.computeIfAbsent(key, func -> counter(metricName, description, tags));
     }
 
-    public DistributionSummary getRecordsProducedLatency(String clientId, int partition, double[] buckets) {
+    public DistributionSummary getRecordsProducedLatency(String clientId, int partition, String broker, String sizeClass, double[] buckets) {
         String metricName = METRICS_PREFIX + "records_produced_latency";
-        Tags tags = Tags.of(Tag.of("clientid", clientId), Tag.of("partition", String.valueOf(partition)));
+        Tags tags = Tags.of(Tag.of("clientid", clientId), Tag.of("partition", String.valueOf(partition)), Tag.of("broker", broker), Tag.of("size_class", sizeClass));
         String description = "Records produced latency in milliseconds";
         String key = metricName + "," + tags;
 
@@ -130,15 +173,339 @@ public class MetricsRegistry {
         return consumerErrorTotal.computeIfAbsent(key, func -> counter(metricName, description, tags));
     }
 
-    public DistributionSummary getRecordsConsumedLatency(String clientId, int partition, double[] buckets) {
+    public DistributionSummary getRecordsConsumedLatency(String clientId, int partition, String broker, String sizeClass, double[] buckets) {
         String metricName = METRICS_PREFIX + "records_consumed_latency";
-        Tags tags = Tags.of(Tag.of("clientid", clientId), Tag.of("partition", String.valueOf(partition)));
+        Tags tags = Tags.of(Tag.of("clientid", clientId), Tag.of("partition", String.valueOf(partition)), Tag.of("broker", broker), Tag.of("size_class", sizeClass));
         String description = "Records end-to-end latency in milliseconds";
         String key = metricName + "," + tags;
 
         return recordsConsumedLatency.computeIfAbsent(key, func -> histogram(metricName, description, tags, buckets));
     }
 
+    public DistributionSummary getBrokerProducedLatency(String broker, double[] buckets) {
+        String metricName = METRICS_PREFIX + "broker_produced_latency";
+        Tags tags = Tags.of(Tag.of("broker", broker));
+        String description = "Records produced latency in milliseconds of all the partitions led by the broker";
+        String key = metricName + "," + tags;
+
+        return brokerProducedLatency.computeIfAbsent(key, func -> percentileHistogram(metricName, description, tags, buckets));
+    }
+
+    public DistributionSummary getBrokerConsumedLatency(String broker, double[] buckets) {
+        String metricName = METRICS_PREFIX + "broker_consumed_latency";
+        Tags tags = Tags.of(Tag.of("broker", broker));
+        String description = "Records end-to-end latency in milliseconds of all the partitions led by the broker";
+        String key = metricName + "," + tags;
+
+        return brokerConsumedLatency.computeIfAbsent(key, func -> percentileHistogram(metricName, description, tags, buckets));
+    }
+
+    public DistributionSummary getOffsetCommitLatency(String clientId, double[] buckets) {
+        String metricName = METRICS_PREFIX + "offset_commit_latency";
+        Tags tags = Tags.of(Tag.of("clientid", clientId));
+        String description = "Offset commit latency in milliseconds";
+        String key = metricName + "," + tags;
+
+        return offsetCommitLatency.computeIfAbsent(key, func -> histogram(metricName, description, tags, buckets));
+    }
+
+    public Counter getOffsetCommitErrorTotal(String clientId) {
+        String metricName = METRICS_PREFIX + "offset_commit_error_total";
+        Tags tags = Tags.of(Tag.of("clientid", clientId));
+        String description = "Total number of failed offset commits";
+        String key = metricName + "," + tags;
+
+        return offsetCommitErrorTotal.computeIfAbsent(key, func -> counter(metricName, description, tags));
+    }
+
+    public DistributionSummary getGroupCoordinatorCommitLatency(String clientId, String coordinator, double[] buckets) {
+        String metricName = METRICS_PREFIX + "group_coordinator_commit_latency";
+        Tags tags = Tags.of(Tag.of("clientid", clientId), Tag.of("coordinator", coordinator));
+        String description = "Group coordinator probe offset commit latency in milliseconds";
+        String key = metricName + "," + tags;
+
+        return groupCoordinatorCommitLatency.computeIfAbsent(key, func -> histogram(metricName, description, tags, buckets));
+    }
+
+    public DistributionSummary getGroupCoordinatorFetchLatency(String clientId, String coordinator, double[] buckets) {
+        String metricName = METRICS_PREFIX + "group_coordinator_fetch_latency";
+        Tags tags = Tags.of(Tag.of("clientid", clientId), Tag.of("coordinator", coordinator));
+        String description = "Group coordinator probe offset fetch latency in milliseconds";
+        String key = metricName + "," + tags;
+
+        return groupCoordinatorFetchLatency.computeIfAbsent(key, func -> histogram(metricName, description, tags, buckets));
+    }
+
+    public Counter getGroupCoordinatorProbeErrorTotal(String clientId, String coordinator) {
+        String metricName = METRICS_PREFIX + "group_coordinator_probe_error_total";
+        Tags tags = Tags.of(Tag.of("clientid", clientId), Tag.of("coordinator", coordinator));
+        String description = "Total number of failed group coordinator probes";
+        String key = metricName + "," + tags;
+
+        return groupCoordinatorProbeErrorTotal.computeIfAbsent(key, func -> counter(metricName, description, tags));
+    }
+
+    public DistributionSummary getRecordsProduceToAppendLatency(String clientId, int partition, String broker, double[] buckets) {
+        String metricName = METRICS_PREFIX + "records_produce_to_append_latency";
+        Tags tags = Tags.of(Tag.of("clientid", clientId), Tag.of("partition", String.valueOf(partition)), Tag.of("broker", broker));
+        String description = "Latency between the intended send time and the broker LogAppendTime in milliseconds";
+        String key = metricName + "," + tags;
+
+        return recordsProduceToAppendLatency.computeIfAbsent(key, func -> histogram(metricName, description, tags, buckets));
+    }
+
+    public DistributionSummary getRecordsAppendToConsumeLatency(String clientId, int partition, String broker, double[] buckets) {
+        String metricName = METRICS_PREFIX + "records_append_to_consume_latency";
+        Tags tags = Tags.of(Tag.of("clientid", clientId), Tag.of("partition", String.valueOf(partition)), Tag.of("broker", broker));
+        String description = "Latency between the broker LogAppendTime and the consumer poll in milliseconds";
+        String key = metricName + "," + tags;
+
+        return recordsAppendToConsumeLatency.computeIfAbsent(key, func -> histogram(metricName, description, tags, buckets));
+    }
+
+    public DistributionSummary getRecordsConsumedFollowerLatency(String clientId, int partition, String rack, double[] buckets) {
+        String metricName = METRICS_PREFIX + "records_consumed_follower_latency";
+        Tags tags = Tags.of(Tag.of("clientid", clientId), Tag.of("partition", String.valueOf(partition)), Tag.of("rack", rack));
+        String description = "Records end-to-end latency of the consumer fetching from the follower in the rack in milliseconds";
+        String key = metricName + "," + tags;
+
+        return recordsConsumedFollowerLatency.computeIfAbsent(key, func -> histogram(metricName, description, tags, buckets));
+    }
+
+    public Counter getRecordsConsumedMalformedTotal(String clientId, int partition) {
+        String metricName = METRICS_PREFIX + "records_consumed_malformed_total";
+        Tags tags = Tags.of(Tag.of("clientid", clientId), Tag.of("partition", String.valueOf(partition)));
+        String description = "The total number of consumed records skipped because their payload is not a valid canary message";
+        String key = metricName + "," + tags;
+
+        return recordsConsumedMalformedTotal.computeIfAbsent(key, func -> counter(metricName, description, tags));
+    }
+
+    public Counter getRecordsConsumedStaleTotal(String clientId, int partition) {
+        String metricName = METRICS_PREFIX + "records_consumed_stale_total";
+        Tags tags = Tags.of(Tag.of("clientid", clientId), Tag.of("partition", String.valueOf(partition)));
+        String description = "The total number of consumed records produced by the previous canary sessions, excluded from the latency";
+        String key = metricName + "," + tags;
+
+        return recordsConsumedStaleTotal.computeIfAbsent(key, func -> counter(metricName, description, tags));
+    }
+
+    public Counter getRecordsDrainedTotal(String clientId, int partition) {
+        String metricName = METRICS_PREFIX + "records_drained_total";
+        Tags tags = Tags.of(Tag.of("clientid", clientId), Tag.of("partition", String.valueOf(partition)));
+        String description = "The total number of records skipped without decoding while draining the backlog at startup";
+        String key = metricName + "," + tags;
+
+        return recordsDrainedTotal.computeIfAbsent(key, func -> counter(metricName, description, tags));
+    }
+
+    public Gauge getConsumerStartupDrainDuration(String clientId, Supplier<Number> duration) {
+        String metricName = METRICS_PREFIX + "consumer_startup_drain_duration";
+        Tags tags = Tags.of(Tag.of("clientid", clientId));
+        String description = "Time in milliseconds the consumer took to drain the backlog at startup";
+        String key = metricName + "," + tags;
+
+        return consumerStartupDrainDuration.computeIfAbsent(key, func -> gauge(metricName, description, tags, duration));
+    }
+
+    public Counter getRecordsLostTotal(String clientId, int partition) {
+        String metricName = METRICS_PREFIX + "records_lost_total";
+        Tags tags = Tags.of(Tag.of("clientid", clientId), Tag.of("partition", String.valueOf(partition)));
+        String description = "The total number of records produced but never consumed, based on the gaps in the sequence numbers";
+        String key = metricName + "," + tags;
+
+        return recordsLostTotal.computeIfAbsent(key, func -> counter(metricName, description, tags));
+    }
+
+    public Counter getRecordsDuplicatedTotal(String clientId, int partition) {
+        String metricName = METRICS_PREFIX + "records_duplicated_total";
+        Tags tags = Tags.of(Tag.of("clientid", clientId), Tag.of("partition", String.valueOf(partition)));
+        String description = "The total number of records consumed more than once";
+        String key = metricName + "," + tags;
+
+        return recordsDuplicatedTotal.computeIfAbsent(key, func -> counter(metricName, description, tags));
+    }
+
+    public Counter getRecordsOutOfOrderTotal(String clientId, int partition) {
+        String metricName = METRICS_PREFIX + "records_out_of_order_total";
+        Tags tags = Tags.of(Tag.of("clientid", clientId), Tag.of("partition", String.valueOf(partition)));
+        String description = "The total number of records consumed after a record with a higher sequence number";
+        String key = metricName + "," + tags;
+
+        return recordsOutOfOrderTotal.computeIfAbsent(key, func -> counter(metricName, description, tags));
+    }
+
+    public Counter getSkippedDueToBackpressureTotal(String clientId, int partition) {
+        String metricName = METRICS_PREFIX + "skipped_due_to_backpressure_total";
+        Tags tags = Tags.of(Tag.of("clientid", clientId), Tag.of("partition", String.valueOf(partition)));
+        String description = "The total number of probes not sent because too many previous ones were still in flight";
+        String key = metricName + "," + tags;
+
+        return skippedDueToBackpressureTotal.computeIfAbsent(key, func -> counter(metricName, description, tags));
+    }
+
+    public Counter getLeadershipReassignmentsTotal(String topicName) {
+        String metricName = METRICS_PREFIX + "leadership_reassignments_total";
+        Tags tags = Tags.of(Tag.of("topic", topicName));
+        String description = "Total number of canary topic partitions reassigned to get one partition leader per broker";
+        String key = metricName + "," + tags;
+
+        return leadershipReassignmentsTotal.computeIfAbsent(key, func -> counter(metricName, description, tags));
+    }
+
+    public Counter getLeaderElectionsTotal(String topicName) {
+        String metricName = METRICS_PREFIX + "leader_elections_total";
+        Tags tags = Tags.of(Tag.of("topic", topicName));
+        String description = "Total number of preferred leader elections done for the canary topic partitions";
+        String key = metricName + "," + tags;
+
+        return leaderElectionsTotal.computeIfAbsent(key, func -> counter(metricName, description, tags));
+    }
+
+    public Counter getLeadershipReconcileErrorTotal(String topicName) {
+        String metricName = METRICS_PREFIX + "leadership_reconcile_error_total";
+        Tags tags = Tags.of(Tag.of("topic", topicName));
+        String description = "Total number of errors while balancing the canary topic partition leaders";
+        String key = metricName + "," + tags;
+
+        return leadershipReconcileErrorTotal.computeIfAbsent(key, func -> counter(metricName, description, tags));
+    }
+
+    public DistributionSummary getProducerDispatchSkew(String clientId, double[] buckets) {
+        String metricName = METRICS_PREFIX + "producer_dispatch_skew";
+        Tags tags = Tags.of(Tag.of("clientid", clientId));
+        String description = "Time between the scheduled probe tick and the send of its last message in milliseconds";
+        String key = metricName + "," + tags;
+
+        return producerDispatchSkew.computeIfAbsent(key, func -> histogram(metricName, description, tags, buckets));
+    }
+
+    public DistributionSummary getRebalanceTimeToStable(String protocol, double[] buckets) {
+        String metricName = METRICS_PREFIX + "rebalance_time_to_stable";
+        Tags tags = Tags.of(Tag.of("protocol", protocol));
+        String description = "Time from the consumer group membership change to the stable assignment in milliseconds";
+        String key = metricName + "," + tags;
+
+        return rebalanceTimeToStable.computeIfAbsent(key, func -> histogram(metricName, description, tags, buckets));
+    }
+
+    public DistributionSummary getRebalanceConsumptionGap(String protocol, double[] buckets) {
+        String metricName = METRICS_PREFIX + "rebalance_consumption_gap";
+        Tags tags = Tags.of(Tag.of("protocol", protocol));
+        String description = "Time the partition wasn't assigned to any consumer group member during the rebalance in milliseconds";
+        String key = metricName + "," + tags;
+
+        return rebalanceConsumptionGap.computeIfAbsent(key, func -> histogram(metricName, description, tags, buckets));
+    }
+
+    public Counter getRebalanceProbeUnstableTotal(String protocol) {
+        String metricName = METRICS_PREFIX + "rebalance_probe_unstable_total";
+        Tags tags = Tags.of(Tag.of("protocol", protocol));
+        String description = "Total number of rebalance probes skipped as the previous membership change didn't get stable";
+        String key = metricName + "," + tags;
+
+        return rebalanceProbeUnstableTotal.computeIfAbsent(key, func -> counter(metricName, description, tags));
+    }
+
+    public Gauge getProducerTargetRate(String clientId, Supplier<Number> rate) {
+        String metricName = METRICS_PREFIX + "producer_target_rate";
+        Tags tags = Tags.of(Tag.of("clientid", clientId));
+        String description = "Target rate of the open-loop producer load in messages per second per partition";
+        String key = metricName + "," + tags;
+
+        return producerTargetRate.computeIfAbsent(key, func -> gauge(metricName, description, tags, rate));
+    }
+
+    public Gauge getProducerAchievedRate(String clientId, Supplier<Number> rate) {
+        String metricName = METRICS_PREFIX + "producer_achieved_rate";
+        Tags tags = Tags.of(Tag.of("clientid", clientId));
+        String description = "Achieved rate of the open-loop producer load in messages per second per partition";
+        String key = metricName + "," + tags;
+
+        return producerAchievedRate.computeIfAbsent(key, func -> gauge(metricName, description, tags, rate));
+    }
+
+    public Gauge getBrokerClockSkew(String broker, Supplier<Number> skew) {
+        String metricName = METRICS_PREFIX + "broker_clock_skew";
+        Tags tags = Tags.of(Tag.of("broker", broker));
+        String description = "Estimated difference between the broker clock and the canary clock in milliseconds";
+        String key = metricName + "," + tags;
+
+        return brokerClockSkew.computeIfAbsent(key, func -> gauge(metricName, description, tags, skew));
+    }
+
+    public Gauge getPartitionLogStartOffset(String topicName, int partition, Supplier<Number> offset) {
+        String metricName = METRICS_PREFIX + "partition_log_start_offset";
+        Tags tags = Tags.of(Tag.of("topic", topicName), Tag.of("partition", String.valueOf(partition)));
+        String description = "Earliest offset of the canary topic partition";
+        String key = metricName + "," + tags;
+
+        return partitionLogStartOffset.computeIfAbsent(key, func -> gauge(metricName, description, tags, offset));
+    }
+
+    public Gauge getPartitionLogEndOffset(String topicName, int partition, Supplier<Number> offset) {
+        String metricName = METRICS_PREFIX + "partition_log_end_offset";
+        Tags tags = Tags.of(Tag.of("topic", topicName), Tag.of("partition", String.valueOf(partition)));
+        String description = "Offset of the next record appended to the canary topic partition";
+        String key = metricName + "," + tags;
+
+        return partitionLogEndOffset.computeIfAbsent(key, func -> gauge(metricName, description, tags, offset));
+    }
+
+    public Gauge getConsumerLag(String topicName, int partition, Supplier<Number> lag) {
+        String metricName = METRICS_PREFIX + "consumer_lag";
+        Tags tags = Tags.of(Tag.of("topic", topicName), Tag.of("partition", String.valueOf(partition)));
+        String description = "Number of records between the position of the canary consumer and the end of the partition";
+        String key = metricName + "," + tags;
+
+        return consumerLag.computeIfAbsent(key, func -> gauge(metricName, description, tags, lag));
+    }
+
+    public Gauge getConsumerGroupLag(String topicName, int partition, String groupId, Supplier<Number> lag) {
+        String metricName = METRICS_PREFIX + "consumer_group_lag";
+        Tags tags = Tags.of(Tag.of("topic", topicName), Tag.of("partition", String.valueOf(partition)), Tag.of("group", groupId));
+        String description = "Number of records between the committed offset of the canary consumer group and the end of the partition";
+        String key = metricName + "," + tags;
+
+        return consumerGroupLag.computeIfAbsent(key, func -> gauge(metricName, description, tags, lag));
+    }
+
+    public Counter getOffsetsLookupErrorTotal(String topicName) {
+        String metricName = METRICS_PREFIX + "offsets_lookup_error_total";
+        Tags tags = Tags.of(Tag.of("topic", topicName));
+        String description = "Total number of errors while looking up the offsets of the canary topic partitions";
+        String key = metricName + "," + tags;
+
+        return offsetsLookupErrorTotal.computeIfAbsent(key, func -> counter(metricName, description, tags));
+    }
+
+    public Gauge getCatchUpReadBytesRate(String broker, Supplier<Number> rate) {
+        String metricName = METRICS_PREFIX + "catch_up_read_bytes_rate";
+        Tags tags = Tags.of(Tag.of("broker", broker));
+        String description = "Read throughput of the catch-up read probe in MB per second";
+        String key = metricName + "," + tags;
+
+        return catchUpReadBytesRate.computeIfAbsent(key, func -> gauge(metricName, description, tags, rate));
+    }
+
+    public Gauge getCatchUpReadRecordsRate(String broker, Supplier<Number> rate) {
+        String metricName = METRICS_PREFIX + "catch_up_read_records_rate";
+        Tags tags = Tags.of(Tag.of("broker", broker));
+        String description = "Read throughput of the catch-up read probe in records per second";
+        String key = metricName + "," + tags;
+
+        return catchUpReadRecordsRate.computeIfAbsent(key, func -> gauge(metricName, description, tags, rate));
+    }
+
+    public Counter getCatchUpProbeErrorTotal(String topicName) {
+        String metricName = METRICS_PREFIX + "catch_up_probe_error_total";
+        Tags tags = Tags.of(Tag.of("topic", topicName));
+        String description = "Total number of failed or timed out catch-up read probes";
+        String key = metricName + "," + tags;
+
+        return catchUpProbeErrorTotal.computeIfAbsent(key, func -> counter(metricName, description, tags));
+    }
+
     private Counter counter(String metricName, String metricDescription, Tags tags) {
         return Counter
             .builder(metricName)
@@ -147,6 +514,14 @@ public class MetricsRegistry {
             .register(prometheusMeterRegistry);
     }
 
+    private Gauge gauge(String metricName, String metricDescription, Tags tags, Supplier<Number> value) {
+        return Gauge
+            .builder(metricName, value)
+            .description(metricDescription)
+            .tags(tags)
+            .register(prometheusMeterRegistry);
+    }
+
     private DistributionSummary histogram(String metricName, String metricDescription, Tags tags, double[] buckets) {
         return DistributionSummary
             .builder(metricName)
@@ -156,4 +531,16 @@ public class MetricsRegistry {
             .serviceLevelObjectives(buckets)
             .register(prometheusMeterRegistry);
     }
+
+    private DistributionSummary percentileHistogram(String metricName, String metricDescription, Tags tags, double[] buckets) {
+        return DistributionSummary
+            .builder(metricName)
+            .baseUnit("ms")
+            .description(metricDescription)
+            .tags(tags)
+            .serviceLevelObjectives(buckets)
+            .publishPercentiles(LATENCY_PERCENTILES)
+            .percentilePrecision(LATENCY_PERCENTILE_PRECISION)
+            .register(prometheusMeterRegistry);
+    }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.offset;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * How the consumer commits the offsets of the assigned partitions
+ * NONE doesn't commit at all, it is the default one, as the canary partitions are assigned manually and the offsets are used
+ * only on restart; without them the committed startup policy reads the partitions from the beginning and the consumer group lag is not known
+ * ASYNC commits asynchronously after every poll which returned messages, the commits are not timed, as their callbacks
+ * are called from the next polls, which would measure the poll loop instead
+ * PERIODIC commits synchronously at most once per the commit interval, every commit is timed in the offset commit latency histogram
+ */
+public enum OffsetCommitMode {
+    NONE("none"),
+    ASYNC("async"),
+    PERIODIC("periodic");
+
+    private final String name;
+
+    OffsetCommitMode(String name) {
+        this.name = name;
+    }
+
+    public static OffsetCommitMode forName(String name) {
+        String lowerCaseName = name.toLowerCase(Locale.ENGLISH);
+
+        for (OffsetCommitMode mode : values()) {
+            if (mode.name.equals(lowerCaseName)) {
+                return mode;
+            }
+        }
+
+        throw new IllegalArgumentException(String.format("Unknown offset commit mode: %s, supported modes are: %s", name, getAllOffsetCommitModes()));
+    }
+
+    public static List<String> getAllOffsetCommitModes() {
+        return Arrays.stream(values()).map(mode -> mode.name).toList();
+    }
+
+    public String getName() {
+        return this.name;
+    }
+}
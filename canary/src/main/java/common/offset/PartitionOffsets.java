@@ -0,0 +1,39 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.offset;
+
+/**
+ * Offsets of a canary topic partition as seen by one offsets lookup
+ * @param logStartOffset earliest offset of the partition
+ * @param logEndOffset offset of the next message appended to the partition
+ * @param committedOffset offset committed by the canary consumer group, {@link #NO_OFFSET} when there is none
+ * @param consumedOffset offset of the next message the canary consumer reads, {@link #NO_OFFSET} when it didn't read any yet
+ */
+public record PartitionOffsets(long logStartOffset, long logEndOffset, long committedOffset, long consumedOffset) {
+    public static final long NO_OFFSET = -1;
+
+    /**
+     * @return number of messages the consumer didn't read yet, NaN when it didn't read any yet
+     */
+    public double lag() {
+        return lag(this.consumedOffset);
+    }
+
+    /**
+     * @return number of messages the consumer group didn't commit yet, NaN when the group has no committed offset
+     */
+    public double committedLag() {
+        return lag(this.committedOffset);
+    }
+
+    private double lag(long offset) {
+        if (offset == NO_OFFSET) {
+            return Double.NaN;
+        }
+
+        // the messages removed by the retention can't be consumed anymore
+        return Math.max(0, this.logEndOffset - Math.max(offset, this.logStartOffset));
+    }
+}
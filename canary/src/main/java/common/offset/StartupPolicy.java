@@ -0,0 +1,49 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.offset;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Where the consumer starts reading the canary partitions after the canary (re)start
+ * COMMITTED continues from the committed offsets, or from the beginning when there are none, it is the default one
+ * LATEST skips all the messages already in the partitions
+ * TIMESTAMP starts from the messages produced at most the startup lookback ago
+ * DRAIN continues from the committed offsets, but reads up to the end offsets at startup without decoding the messages
+ */
+public enum StartupPolicy {
+    COMMITTED("committed"),
+    LATEST("latest"),
+    TIMESTAMP("timestamp"),
+    DRAIN("drain");
+
+    private final String name;
+
+    StartupPolicy(String name) {
+        this.name = name;
+    }
+
+    public static StartupPolicy forName(String name) {
+        String lowerCaseName = name.toLowerCase(Locale.ENGLISH);
+
+        for (StartupPolicy policy : values()) {
+            if (policy.name.equals(lowerCaseName)) {
+                return policy;
+            }
+        }
+
+        throw new IllegalArgumentException(String.format("Unknown consumer startup policy: %s, supported policies are: %s", name, getAllStartupPolicies()));
+    }
+
+    public static List<String> getAllStartupPolicies() {
+        return Arrays.stream(values()).map(policy -> policy.name).toList();
+    }
+
+    public String getName() {
+        return this.name;
+    }
+}
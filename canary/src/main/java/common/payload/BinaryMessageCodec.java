@@ -0,0 +1,157 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.payload;
+
+import common.Message;
+import common.SessionId;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Codec producing fixed-layout little-endian payload, without any per-message intermediate objects
+ * <pre>
+ *  -------------------------------------------------------------------------------------------------------------
+ *  | magic (1 B) | version (1 B) | sessionId (8 B) | messageId (8 B) | timestamp (8 B) | nanoTime (8 B) | ...
+ *  -------------------------------------------------------------------------------------------------------------
+ *  ... | producerId length (2 B) | producerId (N B) | padding |
+ *  -----------------------------------------------------------
+ * </pre>
+ * Version 1 payloads, without the session id and nano time and with 4 B message id, are still accepted by the decoder.
+ * The producer id is the only variable-length field and it is the same for all messages sent by a canary instance,
+ * so the decoder keeps the last decoded value and reuses it when the bytes match.
+ * The optional padding fills the rest of the record value and it is ignored by the decoder.
+ */
+public class BinaryMessageCodec implements MessageCodec {
+    public static final byte MAGIC = (byte) 0xCA;
+    public static final byte VERSION = 2;
+    public static final int HEADER_SIZE = 36;
+
+    private static final byte VERSION_1 = 1;
+    private static final int VERSION_1_HEADER_SIZE = 16;
+
+    private volatile CachedProducerId cachedProducerId = new CachedProducerId(new byte[0], "");
+
+    @Override
+    public byte[] encode(Message message) {
+        byte[] producerId = producerIdBytes(message.producerId());
+        byte[] payload = new byte[HEADER_SIZE + producerId.length];
+
+        encode(message, producerId, ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN));
+        return payload;
+    }
+
+    @Override
+    public void encodePadded(Message message, byte[] buffer) {
+        encode(message, ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    /**
+     * Writes the message into the buffer starting at its current position
+     * @param message message to be encoded
+     * @param buffer little-endian buffer with at least {@link #encodedSize(Message)} remaining bytes
+     */
+    public void encode(Message message, ByteBuffer buffer) {
+        encode(message, producerIdBytes(message.producerId()), buffer);
+    }
+
+    public int encodedSize(Message message) {
+        return HEADER_SIZE + producerIdBytes(message.producerId()).length;
+    }
+
+    @Override
+    public Message decode(byte[] payload) {
+        if (payload == null) {
+            throw new MalformedPayloadException("Binary payload is missing");
+        }
+        return decode(ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    /**
+     * Reads the message from the buffer starting at its current position
+     * @param buffer little-endian buffer holding the encoded message
+     * @return decoded message
+     */
+    public Message decode(ByteBuffer buffer) {
+        if (buffer.remaining() < VERSION_1_HEADER_SIZE) {
+            throw new MalformedPayloadException(String.format("Binary payload too short: %d bytes", buffer.remaining()));
+        }
+
+        byte magic = buffer.get();
+        byte version = buffer.get();
+
+        if (magic != MAGIC || version != VERSION && version != VERSION_1) {
+            throw new MalformedPayloadException(String.format("Unsupported binary payload: magic %d, version %d", magic, version));
+        }
+
+        if (version == VERSION && buffer.remaining() < HEADER_SIZE - 2) {
+            throw new MalformedPayloadException(String.format("Binary payload too short: %d bytes", buffer.remaining() + 2));
+        }
+
+        long sessionId = version == VERSION ? buffer.getLong() : SessionId.UNKNOWN;
+        long messageId = version == VERSION ? buffer.getLong() : buffer.getInt();
+        long timestamp = buffer.getLong();
+        long nanoTime = version == VERSION ? buffer.getLong() : 0;
+        int producerIdLength = Short.toUnsignedInt(buffer.getShort());
+
+        if (buffer.remaining() < producerIdLength) {
+            throw new MalformedPayloadException(String.format("Binary payload truncated: producerId needs %d bytes, %d available", producerIdLength, buffer.remaining()));
+        }
+
+        return new Message(readProducerId(buffer, producerIdLength), sessionId, messageId, timestamp, nanoTime);
+    }
+
+    private void encode(Message message, byte[] producerId, ByteBuffer buffer) {
+        buffer.put(MAGIC);
+        buffer.put(VERSION);
+        buffer.putLong(message.sessionId());
+        buffer.putLong(message.messageId());
+        buffer.putLong(message.timestamp());
+        buffer.putLong(message.nanoTime());
+        buffer.putShort((short) producerId.length);
+        buffer.put(producerId);
+    }
+
+    private byte[] producerIdBytes(String producerId) {
+        CachedProducerId cached = this.cachedProducerId;
+
+        if (cached.value().equals(producerId)) {
+            return cached.bytes();
+        }
+
+        byte[] bytes = producerId.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Producer id too long for binary payload: " + bytes.length + " bytes");
+        }
+
+        this.cachedProducerId = new CachedProducerId(bytes, producerId);
+        return bytes;
+    }
+
+    private String readProducerId(ByteBuffer buffer, int length) {
+        CachedProducerId cached = this.cachedProducerId;
+        byte[] cachedBytes = cached.bytes();
+
+        if (cachedBytes.length == length && buffer.hasArray()) {
+            int start = buffer.arrayOffset() + buffer.position();
+
+            if (Arrays.equals(buffer.array(), start, start + length, cachedBytes, 0, length)) {
+                buffer.position(buffer.position() + length);
+                return cached.value();
+            }
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        String producerId = new String(bytes, StandardCharsets.UTF_8);
+
+        this.cachedProducerId = new CachedProducerId(bytes, producerId);
+        return producerId;
+    }
+
+    private record CachedProducerId(byte[] bytes, String value) { }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.payload;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import common.Message;
+import common.SessionId;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codec producing the JSON payload used by the previous versions of the canary
+ * <pre>
+ *     {"producerId":"strimzi-canary-client","sessionId":"5981446133","messageId":"1","timestamp":"1667917402713","nanoTime":"80514616743"}
+ * </pre>
+ * Padded payloads carry the filler in an additional "payload" string field.
+ * The "sessionId" and "nanoTime" fields are optional when decoding, messages from the older canaries are decoded
+ * with {@link SessionId#UNKNOWN} and 0 nano time.
+ * Encoding writes the bytes directly, the prefix with the quoted producer id and the session id is cached
+ * as it is the same for all messages.
+ * Decoding is done in a single token-streaming pass, without building a tree or binding the record through reflection.
+ * Numeric fields are accepted both as strings (as written by {@link Message#getJsonMessage()}) and as plain numbers.
+ */
+public class JsonMessageCodec implements MessageCodec {
+    // JsonFactory is thread-safe and meant to be shared, it also keeps the symbol tables for the field names
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final byte[] SESSION_ID_FIELD = "\",\"sessionId\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MESSAGE_ID_FIELD = "\",\"messageId\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TIMESTAMP_FIELD = "\",\"timestamp\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NANO_TIME_FIELD = "\",\"nanoTime\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PAYLOAD_FIELD = "\",\"payload\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] END = "\"}".getBytes(StandardCharsets.US_ASCII);
+
+    private volatile CachedPrefix cachedPrefix = new CachedPrefix("", SessionId.UNKNOWN, new byte[0]);
+
+    @Override
+    public byte[] encode(Message message) {
+        byte[] prefix = prefixBytes(message.producerId(), message.sessionId());
+        byte[] messageId = numberBytes(message.messageId());
+        byte[] timestamp = numberBytes(message.timestamp());
+        byte[] nanoTime = numberBytes(message.nanoTime());
+        byte[] payload = new byte[headerSize(prefix, messageId, timestamp, nanoTime) + END.length];
+
+        int position = writeHeader(payload, prefix, messageId, timestamp, nanoTime);
+        System.arraycopy(END, 0, payload, position, END.length);
+        return payload;
+    }
+
+    @Override
+    public void encodePadded(Message message, byte[] buffer) {
+        byte[] prefix = prefixBytes(message.producerId(), message.sessionId());
+        byte[] messageId = numberBytes(message.messageId());
+        byte[] timestamp = numberBytes(message.timestamp());
+        byte[] nanoTime = numberBytes(message.nanoTime());
+        int headerSize = headerSize(prefix, messageId, timestamp, nanoTime) + PAYLOAD_FIELD.length;
+
+        if (headerSize + PADDED_TRAILER_SIZE > buffer.length) {
+            throw new IllegalArgumentException(String.format("Buffer of %d bytes too small for the padded message", buffer.length));
+        }
+
+        int position = writeHeader(buffer, prefix, messageId, timestamp, nanoTime);
+        System.arraycopy(PAYLOAD_FIELD, 0, buffer, position, PAYLOAD_FIELD.length);
+        System.arraycopy(END, 0, buffer, buffer.length - END.length, END.length);
+    }
+
+    private static int headerSize(byte[] prefix, byte[] messageId, byte[] timestamp, byte[] nanoTime) {
+        return prefix.length + messageId.length + TIMESTAMP_FIELD.length + timestamp.length + NANO_TIME_FIELD.length + nanoTime.length;
+    }
+
+    private static int writeHeader(byte[] buffer, byte[] prefix, byte[] messageId, byte[] timestamp, byte[] nanoTime) {
+        int position = 0;
+
+        System.arraycopy(prefix, 0, buffer, position, prefix.length);
+        position += prefix.length;
+        System.arraycopy(messageId, 0, buffer, position, messageId.length);
+        position += messageId.length;
+        System.arraycopy(TIMESTAMP_FIELD, 0, buffer, position, TIMESTAMP_FIELD.length);
+        position += TIMESTAMP_FIELD.length;
+        System.arraycopy(timestamp, 0, buffer, position, timestamp.length);
+        position += timestamp.length;
+        System.arraycopy(NANO_TIME_FIELD, 0, buffer, position, NANO_TIME_FIELD.length);
+        position += NANO_TIME_FIELD.length;
+        System.arraycopy(nanoTime, 0, buffer, position, nanoTime.length);
+        return position + nanoTime.length;
+    }
+
+    private static byte[] numberBytes(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @return bytes of {"producerId":"&lt;escaped producer id&gt;","sessionId":"&lt;session id&gt;","messageId":"
+     */
+    private byte[] prefixBytes(String producerId, long sessionId) {
+        CachedPrefix cached = this.cachedPrefix;
+
+        if (cached.sessionId() == sessionId && cached.producerId().equals(producerId)) {
+            return cached.bytes();
+        }
+
+        byte[] quoted = JsonStringEncoder.getInstance().quoteAsUTF8(producerId);
+        byte[] start = "{\"producerId\":\"".getBytes(StandardCharsets.US_ASCII);
+        byte[] session = numberBytes(sessionId);
+        byte[] prefix = new byte[start.length + quoted.length + SESSION_ID_FIELD.length + session.length + MESSAGE_ID_FIELD.length];
+        int position = 0;
+
+        for (byte[] part : new byte[][] {start, quoted, SESSION_ID_FIELD, session, MESSAGE_ID_FIELD}) {
+            System.arraycopy(part, 0, prefix, position, part.length);
+            position += part.length;
+        }
+
+        this.cachedPrefix = new CachedPrefix(producerId, sessionId, prefix);
+        return prefix;
+    }
+
+    @Override
+    public Message decode(byte[] payload) {
+        if (payload == null) {
+            throw new MalformedPayloadException("JSON payload is missing");
+        }
+
+        try (JsonParser parser = JSON_FACTORY.createParser(payload)) {
+            return parse(parser);
+        } catch (IOException e) {
+            throw new MalformedPayloadException("Failed to parse JSON payload: " + e.getMessage(), e);
+        }
+    }
+
+    private Message parse(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new MalformedPayloadException("JSON payload is not an object");
+        }
+
+        String producerId = null;
+        boolean hasMessageId = false;
+        boolean hasTimestamp = false;
+        long sessionId = SessionId.UNKNOWN;
+        long messageId = 0;
+        long timestamp = 0;
+        long nanoTime = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+
+            switch (fieldName) {
+                case "producerId" -> producerId = parser.getValueAsString();
+                case "sessionId" -> sessionId = parseLong(parser, value, fieldName);
+                case "messageId" -> {
+                    messageId = parseLong(parser, value, fieldName);
+                    hasMessageId = true;
+                }
+                case "timestamp" -> {
+                    timestamp = parseLong(parser, value, fieldName);
+                    hasTimestamp = true;
+                }
+                case "nanoTime" -> nanoTime = parseLong(parser, value, fieldName);
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (producerId == null || !hasMessageId || !hasTimestamp) {
+            throw new MalformedPayloadException("JSON payload misses one of the fields: producerId, messageId, timestamp");
+        }
+
+        return new Message(producerId, sessionId, messageId, timestamp, nanoTime);
+    }
+
+    private static long parseLong(JsonParser parser, JsonToken value, String fieldName) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+
+        if (value == JsonToken.VALUE_STRING) {
+            char[] text = parser.getTextCharacters();
+            int offset = parser.getTextOffset();
+            int length = parser.getTextLength();
+            boolean negative = length > 1 && text[offset] == '-';
+
+            if (negative) {
+                offset++;
+                length--;
+            }
+
+            // 18 digits always fit into long, only the 19th one needs the overflow check
+            if (length == 0 || length > 19) {
+                throw new MalformedPayloadException(String.format("JSON field %s is not a number", fieldName));
+            }
+
+            long parsed = 0;
+            for (int i = offset; i < offset + length; i++) {
+                char digit = text[i];
+
+                if (digit < '0' || digit > '9' || i - offset == 18 && parsed > (Long.MAX_VALUE - (digit - '0')) / 10) {
+                    throw new MalformedPayloadException(String.format("JSON field %s is not a number", fieldName));
+                }
+                parsed = parsed * 10 + (digit - '0');
+            }
+
+            return negative ? -parsed : parsed;
+        }
+
+        throw new MalformedPayloadException(String.format("JSON field %s has unexpected type %s", fieldName, value));
+    }
+
+    private record CachedPrefix(String producerId, long sessionId, byte[] bytes) { }
+}
@@ -0,0 +1,19 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.payload;
+
+/**
+ * Thrown by {@link MessageCodec#decode(byte[])} when the record value is not a valid canary message
+ */
+public class MalformedPayloadException extends RuntimeException {
+
+    public MalformedPayloadException(String message) {
+        super(message);
+    }
+
+    public MalformedPayloadException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
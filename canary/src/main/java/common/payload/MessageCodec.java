@@ -0,0 +1,35 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.payload;
+
+import common.Message;
+
+/**
+ * Encodes the canary {@link Message} into the record value and decodes it back
+ * Implementations have to be thread-safe, the same instance is used by the producer I/O thread and the consumer thread
+ */
+public interface MessageCodec {
+    /**
+     * Number of bytes at the end of the buffer which {@link #encodePadded(Message, byte[])} may overwrite
+     */
+    int PADDED_TRAILER_SIZE = 2;
+
+    byte[] encode(Message message);
+
+    /**
+     * Encodes the message at the beginning of the buffer, the rest of the buffer is kept as padding
+     * @param message message to be encoded
+     * @param buffer buffer already filled with printable ASCII filler, bigger than the encoded message
+     */
+    void encodePadded(Message message, byte[] buffer);
+
+    /**
+     * Decodes the record value
+     * @param payload record value
+     * @return decoded message, never null
+     * @throws MalformedPayloadException when the payload is not a valid canary message
+     */
+    Message decode(byte[] payload);
+}
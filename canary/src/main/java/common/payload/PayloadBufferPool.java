@@ -0,0 +1,101 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.payload;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of payload buffers pre-filled with printable filler bytes
+ * The filler is generated only once, when the pool is created; acquiring a pooled buffer doesn't allocate
+ * and the only per-message work left for the codec is writing the message header (and trailer) into it.
+ * Filler bytes are drawn from an alphanumeric alphabet, so they are valid inside of a JSON string
+ * and still compress similarly to real-world text payloads.
+ */
+public class PayloadBufferPool {
+    /**
+     * Buffers smaller than this are cheaper to allocate than to pool
+     */
+    public static final int POOLING_THRESHOLD = 1024;
+
+    private static final int MAX_BUFFERS_PER_SIZE = 8;
+    private static final byte[] FILLER_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] filler;
+    private final long maxPooledBytes;
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final Map<Integer, Queue<byte[]>> buffers = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxSize size of the largest buffer the pool can provide
+     * @param maxPooledBytes upper bound of the memory kept by the pool for reuse
+     */
+    public PayloadBufferPool(int maxSize, long maxPooledBytes) {
+        this.filler = new byte[maxSize];
+        this.maxPooledBytes = maxPooledBytes;
+
+        // fixed seed, the filler content doesn't matter, it just should not be trivially compressible
+        Random random = new Random(maxSize);
+        for (int i = 0; i < maxSize; i++) {
+            this.filler[i] = FILLER_ALPHABET[random.nextInt(FILLER_ALPHABET.length)];
+        }
+    }
+
+    /**
+     * Provides buffer of exactly the requested size, filled with the filler bytes
+     * @param size size of the buffer
+     * @return pooled or newly allocated buffer
+     */
+    public byte[] acquire(int size) {
+        if (size > this.filler.length) {
+            throw new IllegalArgumentException(String.format("Requested buffer of %d bytes, the pool provides at most %d bytes", size, this.filler.length));
+        }
+
+        Queue<byte[]> pooled = size >= POOLING_THRESHOLD ? this.buffers.get(size) : null;
+        byte[] buffer = pooled != null ? pooled.poll() : null;
+
+        if (buffer != null) {
+            this.pooledBytes.addAndGet(-size);
+            return buffer;
+        }
+
+        buffer = new byte[size];
+        System.arraycopy(this.filler, 0, buffer, 0, size);
+        return buffer;
+    }
+
+    /**
+     * Returns the buffer to the pool, restoring the filler in the regions overwritten by the codec
+     * @param buffer buffer obtained by {@link #acquire(int)}
+     * @param dirtyPrefix number of bytes overwritten at the beginning of the buffer
+     * @param dirtySuffix number of bytes overwritten at the end of the buffer
+     */
+    public void release(byte[] buffer, int dirtyPrefix, int dirtySuffix) {
+        int size = buffer.length;
+
+        if (size < POOLING_THRESHOLD || this.pooledBytes.get() + size > this.maxPooledBytes) {
+            return;
+        }
+
+        int prefix = Math.min(dirtyPrefix, size);
+        int suffix = Math.min(dirtySuffix, size - prefix);
+        System.arraycopy(this.filler, 0, buffer, 0, prefix);
+        System.arraycopy(this.filler, size - suffix, buffer, size - suffix, suffix);
+
+        Queue<byte[]> pooled = this.buffers.computeIfAbsent(size, key -> new ArrayBlockingQueue<>(MAX_BUFFERS_PER_SIZE));
+        if (pooled.offer(buffer)) {
+            this.pooledBytes.addAndGet(size);
+        }
+    }
+
+    public long getPooledBytes() {
+        return this.pooledBytes.get();
+    }
+}
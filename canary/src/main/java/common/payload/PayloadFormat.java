@@ -0,0 +1,49 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.payload;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Wire format of the canary message payload
+ * JSON is the default one, compatible with the previous versions of the canary
+ * BINARY is the fixed-layout little-endian format described in {@link BinaryMessageCodec}
+ */
+public enum PayloadFormat {
+    JSON("json"),
+    BINARY("binary");
+
+    private final String name;
+
+    PayloadFormat(String name) {
+        this.name = name;
+    }
+
+    public static PayloadFormat forName(String name) {
+        String lowerCaseName = name.toLowerCase(Locale.ENGLISH);
+
+        for (PayloadFormat format : values()) {
+            if (format.name.equals(lowerCaseName)) {
+                return format;
+            }
+        }
+
+        throw new IllegalArgumentException(String.format("Unknown payload format: %s, supported formats are: %s", name, getAllPayloadFormats()));
+    }
+
+    public static List<String> getAllPayloadFormats() {
+        return Arrays.stream(values()).map(format -> format.name).toList();
+    }
+
+    public MessageCodec createCodec() {
+        return this == BINARY ? new BinaryMessageCodec() : new JsonMessageCodec();
+    }
+
+    public String getName() {
+        return this.name;
+    }
+}
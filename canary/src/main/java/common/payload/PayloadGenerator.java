@@ -0,0 +1,56 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.payload;
+
+import common.Message;
+
+/**
+ * Generates the record values of the configured sizes
+ * Payloads bigger than the encoded message are padded with the filler taken from {@link PayloadBufferPool};
+ * the value can be given back through {@link #recycle(byte[])} once the Kafka producer is done with the record,
+ * i.e. from the send callback. The producer, its serializer or interceptors may keep a reference to the value until then.
+ */
+public class PayloadGenerator {
+    // covers any change of the header length caused by different session id, message id or timestamps, plus the padding field
+    private static final int HEADER_SLACK = 16;
+
+    private final MessageCodec codec;
+    private final PayloadSizer sizer;
+    private final PayloadBufferPool pool;
+    private final int minPaddedSize;
+
+    public PayloadGenerator(MessageCodec codec, PayloadSizer sizer, PayloadBufferPool pool, String producerId) {
+        this.codec = codec;
+        this.sizer = sizer;
+        this.pool = pool;
+        this.minPaddedSize = codec.encode(new Message(producerId, Long.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE)).length + HEADER_SLACK;
+    }
+
+    /**
+     * @param message message to be encoded
+     * @return record value, padded to the size drawn from the {@link PayloadSizer}
+     */
+    public byte[] generate(Message message) {
+        int size = this.sizer.nextSize();
+
+        if (size < this.minPaddedSize || this.pool == null) {
+            return this.codec.encode(message);
+        }
+
+        byte[] payload = this.pool.acquire(size);
+        this.codec.encodePadded(message, payload);
+        return payload;
+    }
+
+    /**
+     * Gives the padded payload back to the pool, payloads which are not padded are ignored
+     * @param payload record value obtained from {@link #generate(Message)}
+     */
+    public void recycle(byte[] payload) {
+        if (this.pool != null && payload.length >= this.minPaddedSize) {
+            this.pool.release(payload, this.minPaddedSize, MessageCodec.PADDED_TRAILER_SIZE);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.payload;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Distribution of the payload sizes, the meaning of the configured sizes depends on it
+ * <ul>
+ *  <li> FIXED: every payload has the first size
+ *  <li> UNIFORM: sizes are drawn uniformly between the first (min) and the second (max) size
+ *  <li> LOGNORMAL: the first size is the median, the optional second one caps the long tail
+ *  <li> LIST: sizes are drawn uniformly from the explicit list of sizes
+ * </ul>
+ */
+public enum PayloadSizeDistribution {
+    FIXED("fixed"),
+    UNIFORM("uniform"),
+    LOGNORMAL("lognormal"),
+    LIST("list");
+
+    private final String name;
+
+    PayloadSizeDistribution(String name) {
+        this.name = name;
+    }
+
+    public static PayloadSizeDistribution forName(String name) {
+        String lowerCaseName = name.toLowerCase(Locale.ENGLISH);
+
+        for (PayloadSizeDistribution distribution : values()) {
+            if (distribution.name.equals(lowerCaseName)) {
+                return distribution;
+            }
+        }
+
+        throw new IllegalArgumentException(String.format("Unknown payload size distribution: %s, supported distributions are: %s", name, getAllPayloadSizeDistributions()));
+    }
+
+    public static List<String> getAllPayloadSizeDistributions() {
+        return Arrays.stream(values()).map(distribution -> distribution.name).toList();
+    }
+
+    /**
+     * Checks that the sizes make sense for the distribution, no sizes means the payload is not padded at all
+     * @param sizes configured payload sizes in bytes
+     */
+    public void validateSizes(int[] sizes) {
+        for (int size : sizes) {
+            if (size <= 0) {
+                throw new IllegalArgumentException(String.format("Payload sizes must be positive: %s", Arrays.toString(sizes)));
+            }
+        }
+
+        if (sizes.length == 0) {
+            return;
+        }
+
+        switch (this) {
+            case FIXED -> {
+                if (sizes.length != 1) {
+                    throw new IllegalArgumentException(String.format("Fixed payload size distribution needs one size: %s", Arrays.toString(sizes)));
+                }
+            }
+            case UNIFORM -> {
+                if (sizes.length != 2 || sizes[0] > sizes[1]) {
+                    throw new IllegalArgumentException(String.format("Uniform payload size distribution needs min and max size: %s", Arrays.toString(sizes)));
+                }
+            }
+            case LOGNORMAL -> {
+                if (sizes.length > 2 || sizes.length == 2 && sizes[0] > sizes[1]) {
+                    throw new IllegalArgumentException(String.format("Lognormal payload size distribution needs median and optional max size: %s", Arrays.toString(sizes)));
+                }
+            }
+            default -> {
+                // any non-empty list is fine
+            }
+        }
+    }
+
+    public String getName() {
+        return this.name;
+    }
+}
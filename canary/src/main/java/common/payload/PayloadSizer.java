@@ -0,0 +1,126 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.payload;
+
+import org.apache.kafka.common.config.TopicConfig;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws the size of the next payload from the configured {@link PayloadSizeDistribution}
+ * Sizes drawn from the continuous distributions are quantized to 8 steps per power of two,
+ * so the padded payloads end up in a limited number of distinct sizes which can be pooled by {@link PayloadBufferPool}
+ */
+public class PayloadSizer {
+    /**
+     * Sizes below this value are used as they are, without quantization
+     */
+    public static final int QUANTIZATION_THRESHOLD = 1024;
+
+    // defaults of the broker's message.max.bytes and producer's max.request.size
+    private static final int MAX_MESSAGE_BYTES_DEFAULT = 1024 * 1024 + 12;
+    private static final int MAX_REQUEST_SIZE_DEFAULT = 1024 * 1024;
+    // room left for the record batch and record headers
+    private static final int RECORD_OVERHEAD = 1024;
+
+    private static final String[] SIZE_CLASSES = {"256B", "1KiB", "4KiB", "16KiB", "64KiB", "256KiB", "1MiB"};
+    private static final int NO_PADDING = 0;
+
+    private final PayloadSizeDistribution distribution;
+    private final int[] sizes;
+    private final double sigma;
+
+    /**
+     * @param distribution distribution of the sizes
+     * @param sizes configured sizes, already validated by {@link PayloadSizeDistribution#validateSizes(int[])}
+     * @param sigma standard deviation of the underlying normal distribution for {@link PayloadSizeDistribution#LOGNORMAL}
+     * @param maxSize upper bound of any drawn size
+     */
+    public PayloadSizer(PayloadSizeDistribution distribution, int[] sizes, double sigma, int maxSize) {
+        int[] cappedSizes = Arrays.stream(sizes).map(size -> Math.min(size, maxSize)).toArray();
+
+        // lognormal tail is capped by the configured max, or by the max size
+        if (distribution == PayloadSizeDistribution.LOGNORMAL && cappedSizes.length == 1) {
+            cappedSizes = new int[] {cappedSizes[0], maxSize};
+        }
+
+        this.distribution = distribution;
+        this.sizes = cappedSizes;
+        this.sigma = sigma;
+    }
+
+    /**
+     * @return size of the next payload in bytes, 0 when the payload should not be padded
+     */
+    public int nextSize() {
+        if (this.sizes.length == 0) {
+            return NO_PADDING;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        return switch (this.distribution) {
+            case FIXED -> this.sizes[0];
+            case UNIFORM -> quantize(random.nextInt(this.sizes[0], this.sizes[1] + 1), this.sizes[1]);
+            case LOGNORMAL -> {
+                double size = this.sizes[0] * Math.exp(this.sigma * random.nextGaussian());
+                yield quantize((int) Math.max(1, Math.min(size, this.sizes[1])), this.sizes[1]);
+            }
+            case LIST -> this.sizes[random.nextInt(this.sizes.length)];
+        };
+    }
+
+    /**
+     * Rounds the size up to one of 8 steps per power of two, never exceeding the max size
+     * @param size size to be quantized
+     * @param maxSize upper bound
+     * @return quantized size
+     */
+    static int quantize(int size, int maxSize) {
+        if (size < QUANTIZATION_THRESHOLD) {
+            return size;
+        }
+
+        int step = Integer.highestOneBit(size) >> 3;
+        long quantized = ((long) size + step - 1) / step * step;
+
+        return (int) Math.min(quantized, maxSize);
+    }
+
+    /**
+     * Largest payload which still fits into the canary topic and into a single produce request
+     * @param topicConfig configuration of the canary topic, can be null
+     * @return max payload size in bytes
+     */
+    public static int maxPayloadSize(Map<String, String> topicConfig) {
+        int maxMessageBytes = MAX_MESSAGE_BYTES_DEFAULT;
+
+        if (topicConfig != null && topicConfig.containsKey(TopicConfig.MAX_MESSAGE_BYTES_CONFIG)) {
+            maxMessageBytes = Integer.parseInt(topicConfig.get(TopicConfig.MAX_MESSAGE_BYTES_CONFIG));
+        }
+
+        return Math.min(maxMessageBytes, MAX_REQUEST_SIZE_DEFAULT) - RECORD_OVERHEAD;
+    }
+
+    /**
+     * Size class used for tagging the latency metrics, each class is identified by its upper bound
+     * @param size payload size in bytes
+     * @return size class label
+     */
+    public static String sizeClass(int size) {
+        long upperBound = 256;
+
+        for (String sizeClass : SIZE_CLASSES) {
+            if (size <= upperBound) {
+                return sizeClass;
+            }
+            upperBound <<= 2;
+        }
+
+        return "large";
+    }
+}
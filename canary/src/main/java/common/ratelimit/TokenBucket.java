@@ -0,0 +1,109 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.ratelimit;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket pacing the open-loop load, implemented as virtual scheduling on top of {@link System#nanoTime()}
+ * Every token has its own scheduled time, which is one token interval after the previous one.
+ * When the caller falls behind (e.g. the send blocked), the tokens which became available in the meantime
+ * are handed out immediately, up to the bucket capacity, so the load stays open-loop and doesn't silently slow down.
+ *
+ * <pre>
+ *  scheduled:   |----t0----t1----t2----t3----t4----t5---->
+ *  acquired:    |----t0----t1-------------t2,t3,t4--t5---->   (caller stalled between t1 and t4)
+ * </pre>
+ *
+ * The class is not thread-safe, it is meant to be used by a single pacing thread.
+ */
+public class TokenBucket {
+    // parking is not precise enough for the last few microseconds, those are spun instead
+    private static final long SPIN_THRESHOLD_NANOS = 50_000;
+
+    private final LongSupplier nanoClock;
+    private final long tokenIntervalNanos;
+    private final long capacityNanos;
+    private long nextTokenNanos;
+    private long omittedTokens;
+
+    /**
+     * @param ratePerSecond number of tokens per second
+     * @param capacity max number of tokens handed out back to back after a stall
+     */
+    public TokenBucket(double ratePerSecond, int capacity) {
+        this(ratePerSecond, capacity, System::nanoTime);
+    }
+
+    TokenBucket(double ratePerSecond, int capacity, LongSupplier nanoClock) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("Token bucket rate has to be positive: " + ratePerSecond);
+        }
+
+        this.nanoClock = nanoClock;
+        this.tokenIntervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.capacityNanos = this.tokenIntervalNanos * Math.max(1, capacity);
+        this.nextTokenNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Takes the next token, without waiting for it
+     * @return scheduled time of the token in {@link System#nanoTime()} units, it can be in the future
+     */
+    public long next() {
+        long now = this.nanoClock.getAsLong();
+
+        // tokens don't accumulate beyond the bucket capacity, the ones over it are omitted
+        if (now - this.nextTokenNanos > this.capacityNanos) {
+            long omittedNanos = now - this.capacityNanos - this.nextTokenNanos;
+            this.omittedTokens += omittedNanos / this.tokenIntervalNanos;
+            this.nextTokenNanos += omittedNanos / this.tokenIntervalNanos * this.tokenIntervalNanos;
+        }
+
+        long scheduled = this.nextTokenNanos;
+        this.nextTokenNanos += this.tokenIntervalNanos;
+        return scheduled;
+    }
+
+    /**
+     * Takes the next token, waiting until its scheduled time
+     * @return scheduled time of the token in {@link System#nanoTime()} units
+     * @throws InterruptedException when the thread is interrupted while waiting
+     */
+    public long acquire() throws InterruptedException {
+        long scheduled = next();
+        awaitNanos(scheduled);
+        return scheduled;
+    }
+
+    /**
+     * @return total number of tokens which were never handed out because the caller fell behind more than the capacity
+     */
+    public long getOmittedTokens() {
+        return this.omittedTokens;
+    }
+
+    public long getTokenIntervalNanos() {
+        return this.tokenIntervalNanos;
+    }
+
+    private void awaitNanos(long deadline) throws InterruptedException {
+        long remaining = deadline - this.nanoClock.getAsLong();
+
+        while (remaining > 0) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+            remaining = deadline - this.nanoClock.getAsLong();
+        }
+    }
+}
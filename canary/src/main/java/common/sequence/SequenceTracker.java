@@ -0,0 +1,248 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.sequence;
+
+import java.util.function.LongPredicate;
+
+/**
+ * Tracks the sequence numbers received from a single partition in a sliding bitmap window
+ * The window covers the last {@code windowSize} sequence numbers up to the highest one received so far.
+ * A sequence number which is not received is counted as lost when the loss deadline passes since it was skipped over,
+ * or at the latest when it slides out of the window, so reordered messages are tolerated as long as they arrive in time.
+ *
+ * <pre>
+ *  window:      [ h-w+1 ........................ h ]
+ *  received:    [ 1 1 1 0 1 1 0 1 1 1 1 1 1 1 1 1 ]    (0 past the deadline or leaving the window = lost)
+ * </pre>
+ *
+ * Tracking starts at the first received sequence number, the ones before it are not considered lost,
+ * because the consumer might have started in the middle of the stream.
+ * A message arriving after it was counted as lost, or older than the window, is reported as expired; the latter can't be
+ * told apart from a duplicate anymore. Either way it must not be counted as delivered, as it's already counted as lost or delivered.
+ * The sequence numbers of the sends which failed in the producer are excused, they are never counted as lost.
+ *
+ * The class is not thread-safe, it is meant to be used by the consumer thread owning the partition.
+ */
+public class SequenceTracker {
+
+    public enum Outcome {
+        IN_ORDER,
+        OUT_OF_ORDER,
+        DUPLICATE,
+        EXPIRED
+    }
+
+    private final long[] received;
+    // sequence numbers counted as lost by the deadline while still in the window
+    private final long[] expired;
+    // System.nanoTime() when the sequence number of the slot was skipped over
+    private final long[] pendingSince;
+    private final int windowSize;
+    private final long lossDeadlineNanos;
+    private final LongPredicate excused;
+    private long first = -1;
+    private long highest = -1;
+    // all the sequence numbers below it are either received or counted as lost
+    private long expiryScanStart;
+    private long lost;
+
+    /**
+     * Tracker without the loss deadline, the missing sequence numbers are counted as lost only when leaving the window
+     * @param windowSize number of tracked sequence numbers
+     */
+    public SequenceTracker(int windowSize) {
+        this(windowSize, Long.MAX_VALUE, sequence -> false);
+    }
+
+    /**
+     * @param windowSize number of tracked sequence numbers, it's also the delay (in messages) before a missing one is counted as lost at the latest
+     * @param lossDeadlineNanos time after which a skipped sequence number is counted as lost, even when it's still in the window
+     * @param excused tells whether the missing sequence number belongs to a failed send, it's asked only once per sequence number
+     */
+    public SequenceTracker(int windowSize, long lossDeadlineNanos, LongPredicate excused) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Sequence window size has to be positive, got " + windowSize);
+        }
+
+        if (lossDeadlineNanos <= 0) {
+            throw new IllegalArgumentException("Sequence loss deadline has to be positive, got " + lossDeadlineNanos);
+        }
+
+        this.windowSize = windowSize;
+        this.lossDeadlineNanos = lossDeadlineNanos;
+        this.excused = excused;
+        this.received = new long[(windowSize + Long.SIZE - 1) / Long.SIZE];
+        this.expired = new long[this.received.length];
+        this.pendingSince = new long[windowSize];
+    }
+
+    public Outcome record(long sequence) {
+        return record(sequence, System.nanoTime());
+    }
+
+    /**
+     * @param sequence received sequence number, non-negative
+     * @param nowNanos current {@link System#nanoTime()}, the sequence numbers skipped over are pending since then
+     * @return how the sequence number relates to the ones received before
+     */
+    public Outcome record(long sequence, long nowNanos) {
+        if (this.highest < 0) {
+            this.first = sequence;
+            this.highest = sequence;
+            this.expiryScanStart = sequence;
+            set(this.received, sequence);
+            return Outcome.IN_ORDER;
+        }
+
+        if (sequence > this.highest) {
+            advance(sequence, nowNanos);
+            set(this.received, sequence);
+            return Outcome.IN_ORDER;
+        }
+
+        if (sequence < this.first) {
+            return Outcome.OUT_OF_ORDER;
+        }
+
+        if (sequence <= this.highest - this.windowSize || isSet(this.expired, sequence)) {
+            return Outcome.EXPIRED;
+        }
+
+        if (isSet(this.received, sequence)) {
+            return Outcome.DUPLICATE;
+        }
+
+        set(this.received, sequence);
+        return Outcome.OUT_OF_ORDER;
+    }
+
+    /**
+     * Counts the sequence numbers pending for longer than the loss deadline as lost
+     * It has to be called periodically, otherwise a partition which stops delivering keeps its missing sequence numbers pending.
+     * @param nowNanos current {@link System#nanoTime()}
+     */
+    public void expire(long nowNanos) {
+        if (this.highest < 0) {
+            return;
+        }
+
+        long sequence = Math.max(this.expiryScanStart, this.highest - this.windowSize + 1);
+
+        // sequence numbers are skipped over in ascending order, so the pending ones are sorted by their age
+        for (; sequence < this.highest; sequence++) {
+            if (isResolved(sequence)) {
+                continue;
+            }
+
+            if (nowNanos - this.pendingSince[slot(sequence)] < this.lossDeadlineNanos) {
+                break;
+            }
+
+            if (this.excused.test(sequence)) {
+                // nothing to wait for anymore, the send failed
+                set(this.received, sequence);
+            } else {
+                set(this.expired, sequence);
+                this.lost++;
+            }
+        }
+
+        this.expiryScanStart = sequence;
+    }
+
+    /**
+     * @return sequence number below which all the sequence numbers are settled, either received or counted as lost
+     *         (or never tracked, below the first one), -1 when nothing was received yet
+     */
+    public long getSettledBelow() {
+        if (this.highest < 0) {
+            return -1;
+        }
+
+        return Math.max(this.expiryScanStart, this.highest - this.windowSize + 1);
+    }
+
+    /**
+     * @return number of sequence numbers found lost since the previous call
+     */
+    public long pollLost() {
+        long polled = this.lost;
+        this.lost = 0;
+        return polled;
+    }
+
+    /**
+     * Slides the window so the sequence number becomes the highest one, counting the missing ones leaving the window
+     */
+    private void advance(long sequence, long nowNanos) {
+        long distance = sequence - this.highest;
+
+        if (distance >= this.windowSize) {
+            // the whole window is recycled, the sequence numbers skipped over completely are lost as well
+            for (long leaving = Math.max(this.first, this.highest - this.windowSize + 1); leaving <= this.highest; leaving++) {
+                countLostIfMissing(leaving);
+            }
+
+            for (int i = 0; i < this.received.length; i++) {
+                this.received[i] = 0;
+                this.expired[i] = 0;
+            }
+
+            for (long skipped = this.highest + 1; skipped <= sequence - this.windowSize; skipped++) {
+                countLostIfMissing(skipped);
+            }
+
+            for (long next = sequence - this.windowSize + 1; next < sequence; next++) {
+                this.pendingSince[slot(next)] = nowNanos;
+            }
+        } else {
+            for (long next = this.highest + 1; next <= sequence; next++) {
+                // the slot of the new sequence number held the one leaving the window
+                long leaving = next - this.windowSize;
+
+                if (leaving >= this.first) {
+                    countLostIfMissing(leaving);
+                }
+                clear(this.received, next);
+                clear(this.expired, next);
+                this.pendingSince[slot(next)] = nowNanos;
+            }
+        }
+
+        this.highest = sequence;
+    }
+
+    private void countLostIfMissing(long sequence) {
+        // sequence numbers skipped over completely were never in the window, so they are missing
+        boolean inWindow = sequence > this.highest - this.windowSize && sequence <= this.highest;
+
+        if ((!inWindow || !isResolved(sequence)) && !this.excused.test(sequence)) {
+            this.lost++;
+        }
+    }
+
+    private boolean isResolved(long sequence) {
+        return isSet(this.received, sequence) || isSet(this.expired, sequence);
+    }
+
+    private boolean isSet(long[] bitmap, long sequence) {
+        int slot = slot(sequence);
+        return (bitmap[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    private void set(long[] bitmap, long sequence) {
+        int slot = slot(sequence);
+        bitmap[slot >>> 6] |= 1L << slot;
+    }
+
+    private void clear(long[] bitmap, long sequence) {
+        int slot = slot(sequence);
+        bitmap[slot >>> 6] &= ~(1L << slot);
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % this.windowSize);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.timewindow;
+
+import config.CanaryConstants;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ *   HistogramRing keeps the interval histograms of a {@link Recorder} covering a sliding time window of specified "timeWindowSize"
+ *   sampled with "sampling" rate, the same way {@link TimeWindowRing} keeps the counts
+ *   Percentiles of any part of the time window are computed from the merged histograms of its intervals, which costs
+ *   O(buckets x intervals) regardless of the number of recorded values.
+ *   The intervals are numbered from the start of the recording, the ring might start at a later one. Like the {@link TimeWindowRing},
+ *   the ring can be read as it was after any number of intervals, as long as the view is no more than "slack" intervals old.
+ *   The histogram leaving the buffer is not read by any readable view, so it's recycled by the recorder for the next interval.
+ */
+public class HistogramRing {
+    private final Histogram[] buffer;
+    // number of intervals in the sliding time window, the rest of the buffer keeps the intervals of the previous views
+    private final int capacity;
+    private final long sampling;
+    private final long firstInterval;
+    // number of the next interval
+    private long intervals;
+
+    public HistogramRing(long timeWindowSize, long sampling) {
+        this(timeWindowSize, sampling, 0, 0);
+    }
+
+    /**
+     * @param slack number of intervals added after a view, which the view stays readable for
+     * @param firstInterval number of the first interval added to the ring
+     */
+    public HistogramRing(long timeWindowSize, long sampling, int slack, long firstInterval) {
+        this.capacity = (int) Math.max(1, Math.min(timeWindowSize / sampling, CanaryConstants.MAX_TIME_WINDOW_RING_BUFFER_BUCKETS));
+        this.buffer = new Histogram[this.capacity + slack];
+        this.sampling = sampling;
+        this.firstInterval = firstInterval;
+        this.intervals = firstInterval;
+    }
+
+    /**
+     * Takes the values recorded since the previous call as the newest interval
+     */
+    public void putInterval(Recorder recorder) {
+        int next = (int) (this.intervals % this.buffer.length);
+
+        // null while the buffer is filled for the first time
+        this.buffer[next] = recorder.getIntervalHistogram(this.buffer[next]);
+        this.intervals++;
+    }
+
+    /**
+     * @param timeWindow length of the time window in milliseconds, at most the ring time window is used
+     * @return histogram of the values recorded in the intervals within the time window, null when there is no interval yet
+     */
+    public Histogram getWindow(long timeWindow) {
+        return getWindow(timeWindow, this.intervals);
+    }
+
+    /**
+     * @param timeWindow length of the time window in milliseconds, at most the ring time window is used
+     * @param intervals number of the intervals recorded when the view was taken, including those before the first interval of the ring
+     * @return histogram of the values recorded in the intervals of the view within the time window, null when there was no interval yet
+     */
+    public Histogram getWindow(long timeWindow, long intervals) {
+        long count = getCount(intervals);
+
+        if (count <= 0) {
+            return null;
+        }
+
+        int windowIntervals = (int) Math.min(Math.max(1, timeWindow / this.sampling), count);
+        Histogram head = this.buffer[(int) ((intervals - 1) % this.buffer.length)];
+        // auto-resizing, it grows to the highest value of the merged intervals
+        Histogram window = new Histogram(head.getNumberOfSignificantValueDigits());
+
+        for (int i = 0; i < windowIntervals; i++) {
+            window.add(this.buffer[(int) ((intervals - 1 - i) % this.buffer.length)]);
+        }
+
+        return window;
+    }
+
+    public long getCount() {
+        return getCount(this.intervals);
+    }
+
+    private long getCount(long intervals) {
+        return Math.min(intervals - this.firstInterval, this.capacity);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.timewindow;
+
+import config.CanaryConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *   RollupRing stores a cumulative count at several resolutions, so both short and long time windows can be asked for
+ *   The first level is sampled with the "sampling" rate, every further level keeps one of "ratio" values of the previous level,
+ *   e.g. 30 s x 384, 10 min x 384 and 2 h x 384 with the default resolutions. Every level is a {@link TimeWindowRing},
+ *   so adding a value costs O(number of levels) and no level is ever copied.
+ *   As the stored count only grows, the value at the end of a coarse bucket rolls up all the values of the finer buckets.
+ *   The coarser levels lag behind by up to one of their resolution.
+ *   The number of values of every level follows from the number of values added to the ring, so like a {@link TimeWindowRing}
+ *   it can be read as it was after any number of added values, as long as the view is no more than "slack" values old.
+ */
+public class RollupRing {
+    private final List<TimeWindowRing> levels = new ArrayList<>();
+    private final List<Long> resolutions = new ArrayList<>();
+    // values of the previous level needed for one value of the level
+    private final List<Integer> ratios = new ArrayList<>();
+    // values added to the previous level since the last value of the level
+    private int[] pending;
+    private final int slack;
+
+    public RollupRing(long sampling) {
+        this(sampling, CanaryConstants.STATUS_ROLLUP_RESOLUTIONS_MS, 0);
+    }
+
+    public RollupRing(long sampling, List<Long> rollupResolutions) {
+        this(sampling, rollupResolutions, 0);
+    }
+
+    /**
+     * @param sampling interval between the added values, the resolution of the first level
+     * @param rollupResolutions resolutions of the further levels, those not coarser than the previous level are skipped,
+     *                          the others are rounded down to a multiple of the previous level resolution
+     * @param slack number of values added after a view, which the view stays readable for
+     */
+    public RollupRing(long sampling, List<Long> rollupResolutions, int slack) {
+        this.slack = slack;
+        addLevel(sampling, 1);
+
+        for (long resolution : rollupResolutions) {
+            long previous = this.resolutions.get(this.resolutions.size() - 1);
+            int ratio = (int) (resolution / previous);
+
+            if (ratio >= 2) {
+                addLevel(previous * ratio, ratio);
+            }
+        }
+
+        this.pending = new int[this.levels.size()];
+    }
+
+    private void addLevel(long resolution, int ratio) {
+        this.levels.add(new TimeWindowRing(resolution * CanaryConstants.MAX_TIME_WINDOW_RING_BUFFER_BUCKETS, resolution, this.slack));
+        this.resolutions.add(resolution);
+        this.ratios.add(ratio);
+    }
+
+    public void putValue(long value) {
+        this.levels.get(0).putValue(value);
+
+        for (int level = 1; level < this.levels.size(); level++) {
+            if (++this.pending[level] < this.ratios.get(level)) {
+                return;
+            }
+
+            this.pending[level] = 0;
+            this.levels.get(level).putValue(value);
+        }
+    }
+
+    /**
+     * Picks the finest level covering the whole time window, or the coarsest level when none of them does
+     * @param timeWindow length of the time window in milliseconds
+     * @return increase of the count within the time window, null when there is no value yet
+     */
+    public Window getWindow(long timeWindow) {
+        return getWindow(timeWindow, this.levels.get(0).getWritten());
+    }
+
+    /**
+     * @param timeWindow length of the time window in milliseconds
+     * @param written number of values added to the ring when the view was taken, see {@link #getWritten()}
+     * @return increase of the count within the time window of the view, null when there was no value yet
+     */
+    public Window getWindow(long timeWindow, long written) {
+        int level = 0;
+        long levelWritten = written;
+
+        while (level < this.levels.size() - 1 && span(level) < timeWindow) {
+            level++;
+            // a level gets one value per "ratio" values of the previous level
+            levelWritten /= this.ratios.get(level);
+        }
+
+        TimeWindowRing ring = this.levels.get(level);
+        long count = ring.getCount(levelWritten);
+
+        if (count == 0) {
+            return null;
+        }
+
+        long resolution = this.resolutions.get(level);
+        int values = (int) Math.min(Math.max(1, timeWindow / resolution), count);
+
+        return new Window(resolution * values, ring.getValue(0, levelWritten) - ring.getValue(values - 1, levelWritten));
+    }
+
+    private long span(int level) {
+        return this.resolutions.get(level) * this.levels.get(level).getCapacity();
+    }
+
+    /**
+     * @return number of values added so far, it identifies the current view of the ring
+     */
+    public long getWritten() {
+        return this.levels.get(0).getWritten();
+    }
+
+    public boolean isEmpty() {
+        return this.levels.get(0).isEmpty();
+    }
+
+    public List<Long> getResolutions() {
+        return List.copyOf(this.resolutions);
+    }
+
+    /**
+     * Increase of the count within the time window
+     * @param duration covered part of the time window in milliseconds, the number of values times their resolution
+     * @param delta difference between the newest and the oldest value in the time window
+     */
+    public record Window(long duration, long delta) { }
+}
@@ -13,8 +13,13 @@ import org.apache.logging.log4j.Logger;
  *   covering a sliding time window of specified "timeWindowSize" and sampled with "sampling" rate
  *   NOTE: internal buffer size is determined by time windows size and sampling rate capped at {@link CanaryConstants#MAX_TIME_WINDOW_RING_BUFFER_BUCKETS}
  *
- *   {@link TimeWindowRing#tail} (T): provides the first added value in the current sliding time window, it moves forward when the buffer is full and new values come
- *   {@link TimeWindowRing#head} (H): provides the last added value in the current sliding time window, it always moves forward since the beginning restarting when buffer is full
+ *   tail (T): provides the first added value in the current sliding time window, it moves forward when the buffer is full and new values come
+ *   head (H): provides the last added value in the current sliding time window, it always moves forward since the beginning restarting when buffer is full
+ *
+ *   The values are numbered by the order they were added in, so the ring can be read as it was after any number of added values,
+ *   as long as the values of that view are not overwritten yet. The ring keeps "slack" more values than its capacity,
+ *   so a view stays readable until "slack" more values are added, without copying the buffer. The ring isn't thread-safe,
+ *   the readers of the view rely on its publication by the writer.
  *
  * <pre>
  *  --------------------------------------
@@ -41,47 +46,45 @@ import org.apache.logging.log4j.Logger;
 public class TimeWindowRing {
     private static final Logger LOGGER = LogManager.getLogger(TimeWindowRing.class);
 
-    private long[] buffer;
-    private int head;
-    private int tail;
-    private int count;
+    private final long[] buffer;
+    // number of values in the sliding time window, the rest of the buffer keeps the values of the previous views
+    private final int capacity;
+    // number of values added so far, the last one is the head
+    private long written;
 
     public TimeWindowRing(
         long timeWindowSize,
         long sampling
+    ) {
+        this(timeWindowSize, sampling, 0);
+    }
+
+    /**
+     * @param slack number of values added after a view, which the view stays readable for
+     */
+    public TimeWindowRing(
+        long timeWindowSize,
+        long sampling,
+        int slack
     ) {
         int bufferSize = (int) (timeWindowSize / sampling);
         if (bufferSize > CanaryConstants.MAX_TIME_WINDOW_RING_BUFFER_BUCKETS) {
             bufferSize = CanaryConstants.MAX_TIME_WINDOW_RING_BUFFER_BUCKETS;
             LOGGER.warn("Time window {} ms too wide with {} ms sampling; resized to {} ms", timeWindowSize, sampling, bufferSize * sampling);
         }
-        this.buffer = new long[bufferSize];
-        this.head = -1;
-        this.tail = -1;
-        this.count = 0;
+        this.capacity = bufferSize;
+        this.buffer = new long[bufferSize + slack];
+        this.written = 0;
     }
 
     /**
-     * Method inserting new value to buffer:
-     * <ol>
-     *  <li> moves head to new position
-     *  <li> puts value on head position
-     *  <li> moves tail if buffer is filled and head == tail
-     *  <li> increases {@link TimeWindowRing#count} if the buffer is not fully filled
-     * </ol>
+     * Method inserting new value to buffer, on the position following the head
+     * The tail moves forward with the head once the time window is full.
      * @param value new value to be added into the buffer
      */
-    public void putValue(int value) {
-        incrementHead();
-        this.buffer[this.head] = value;
-
-        if (this.head == this.tail || this.tail == -1) {
-            incrementTail();
-        }
-
-        if (this.count < this.buffer.length) {
-            this.count++;
-        }
+    public void putValue(long value) {
+        this.buffer[(int) (this.written % this.buffer.length)] = value;
+        this.written++;
     }
 
     /**
@@ -89,7 +92,7 @@ public class TimeWindowRing {
      * @return value on head index in buffer
      */
     public long getHead() {
-        return this.buffer[this.head];
+        return getValue(0);
     }
 
     /**
@@ -97,7 +100,32 @@ public class TimeWindowRing {
      * @return value on tail index in buffer
      */
     public long getTail() {
-        return this.buffer[this.tail];
+        return getValue((int) getCount() - 1);
+    }
+
+    /**
+     * Method returning value added before the head
+     * @param back number of values added after the returned one, 0 returns the head
+     * @return value on the index {@code back} positions before the head in buffer
+     */
+    public long getValue(int back) {
+        return getValue(back, this.written);
+    }
+
+    /**
+     * Method returning value added before the head of the view
+     * @param back number of values added after the returned one, 0 returns the head of the view
+     * @param written number of values added when the view was taken, see {@link #getWritten()}
+     * @return value on the index {@code back} positions before the head of the view in buffer
+     */
+    public long getValue(int back, long written) {
+        long count = getCount(written);
+
+        if (back < 0 || back >= count) {
+            throw new IndexOutOfBoundsException("Only " + count + " values in buffer, requested " + back + " before head");
+        }
+
+        return this.buffer[(int) ((written - 1 - back) % this.buffer.length)];
     }
 
     /**
@@ -105,38 +133,46 @@ public class TimeWindowRing {
      * @return count of values stored in buffer
      */
     public long getCount() {
-        return this.count;
+        return getCount(this.written);
     }
 
     /**
-     * Method returning whole buffer
-     * @return buffer
+     * @param written number of values added when the view was taken
+     * @return count of values in the time window of the view
      */
-    public long[] getBuffer() {
-        return buffer;
+    public long getCount(long written) {
+        return Math.min(written, this.capacity);
     }
 
     /**
-     * Checks whether buffer is empty
-     * @return result if buffer is empty
+     * Method returning number of values added so far, it identifies the current view of the ring
+     * @return number of values added since the ring was created
      */
-    public boolean isEmpty() {
-        return this.tail == -1 && this.head == -1;
+    public long getWritten() {
+        return this.written;
+    }
+
+    /**
+     * Method returning max number of values in the time window
+     * @return capacity of the time window, without the slack
+     */
+    public int getCapacity() {
+        return this.capacity;
     }
 
     /**
-     * Method for moving head to new position
-     * In case head is at the end of buffer, moves it to beginning of buffer
+     * Method returning whole buffer
+     * @return buffer
      */
-    private void incrementHead() {
-        this.head = (this.head + 1) % this.buffer.length;
+    public long[] getBuffer() {
+        return buffer;
     }
 
     /**
-     * Method for moving tail to new position
-     * In case tail is at the end of buffer, moves it to beginning of buffer
+     * Checks whether buffer is empty
+     * @return result if buffer is empty
      */
-    private void incrementTail() {
-        this.tail = (this.tail + 1) % this.buffer.length;
+    public boolean isEmpty() {
+        return this.written == 0;
     }
 }
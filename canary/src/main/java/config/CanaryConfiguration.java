@@ -4,12 +4,22 @@
  */
 package config;
 
+import common.concurrent.ThreadMode;
+import common.offset.OffsetCommitMode;
+import common.offset.StartupPolicy;
+import common.payload.PayloadFormat;
+import common.payload.PayloadSizeDistribution;
+
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 import static config.CanaryConfigurationUtils.createLatencyBuckets;
+import static config.CanaryConfigurationUtils.createPayloadSizes;
+import static config.CanaryConfigurationUtils.createRacks;
 import static config.CanaryConfigurationUtils.createTopicConfig;
 import static config.CanaryConfigurationUtils.parseBooleanOrDefault;
+import static config.CanaryConfigurationUtils.parseDoubleOrDefault;
 import static config.CanaryConfigurationUtils.parseIntOrDefault;
 import static config.CanaryConfigurationUtils.parseLongOrDefault;
 import static config.CanaryConfigurationUtils.parseStringOrDefault;
@@ -33,6 +43,27 @@ public class CanaryConfiguration {
     private final String saslPassword;
     private final long statusCheckInterval;
     private final long statusTimeWindow;
+    private final PayloadFormat payloadFormat;
+    private final PayloadSizeDistribution payloadSizeDistribution;
+    private final int[] payloadSizes;
+    private final double payloadSizeSigma;
+    private final double producerRatePerPartition;
+    private final int sequenceWindowSize;
+    private final long leadershipReconcileInterval;
+    private final ThreadMode threadMode;
+    private final int producerMaxInFlightPerPartition;
+    private final OffsetCommitMode offsetCommitMode;
+    private final long offsetCommitInterval;
+    private final long groupCoordinatorProbeInterval;
+    private final int producerShards;
+    private final int consumerThreads;
+    private final long rebalanceProbeInterval;
+    private final List<String> followerFetchRacks;
+    private final long offsetsExportInterval;
+    private final long catchUpProbeInterval;
+    private final long catchUpProbeLookback;
+    private final StartupPolicy consumerStartupPolicy;
+    private final long consumerStartupLookback;
 
     @SuppressWarnings({"checkstyle:ParameterNumber"})
     public CanaryConfiguration(
@@ -53,7 +84,28 @@ public class CanaryConfiguration {
         String saslUser,
         String saslPassword,
         long statusCheckInterval,
-        long statusTimeWindow
+        long statusTimeWindow,
+        PayloadFormat payloadFormat,
+        PayloadSizeDistribution payloadSizeDistribution,
+        int[] payloadSizes,
+        double payloadSizeSigma,
+        double producerRatePerPartition,
+        int sequenceWindowSize,
+        long leadershipReconcileInterval,
+        ThreadMode threadMode,
+        int producerMaxInFlightPerPartition,
+        OffsetCommitMode offsetCommitMode,
+        long offsetCommitInterval,
+        long groupCoordinatorProbeInterval,
+        int producerShards,
+        int consumerThreads,
+        long rebalanceProbeInterval,
+        List<String> followerFetchRacks,
+        long offsetsExportInterval,
+        long catchUpProbeInterval,
+        long catchUpProbeLookback,
+        StartupPolicy consumerStartupPolicy,
+        long consumerStartupLookback
     ) {
         this.bootstrapServers = bootstrapServers;
         this.topic = topic;
@@ -73,6 +125,27 @@ public class CanaryConfiguration {
         this.saslPassword = saslPassword;
         this.statusCheckInterval = statusCheckInterval;
         this.statusTimeWindow = statusTimeWindow;
+        this.payloadFormat = payloadFormat;
+        this.payloadSizeDistribution = payloadSizeDistribution;
+        this.payloadSizes = payloadSizes;
+        this.payloadSizeSigma = payloadSizeSigma;
+        this.producerRatePerPartition = producerRatePerPartition;
+        this.sequenceWindowSize = sequenceWindowSize;
+        this.leadershipReconcileInterval = leadershipReconcileInterval;
+        this.threadMode = threadMode;
+        this.producerMaxInFlightPerPartition = producerMaxInFlightPerPartition;
+        this.offsetCommitMode = offsetCommitMode;
+        this.offsetCommitInterval = offsetCommitInterval;
+        this.groupCoordinatorProbeInterval = groupCoordinatorProbeInterval;
+        this.producerShards = producerShards;
+        this.consumerThreads = consumerThreads;
+        this.rebalanceProbeInterval = rebalanceProbeInterval;
+        this.followerFetchRacks = followerFetchRacks;
+        this.offsetsExportInterval = offsetsExportInterval;
+        this.catchUpProbeInterval = catchUpProbeInterval;
+        this.catchUpProbeLookback = catchUpProbeLookback;
+        this.consumerStartupPolicy = consumerStartupPolicy;
+        this.consumerStartupLookback = consumerStartupLookback;
     }
 
     public static CanaryConfiguration fromMap(Map<String, String> map) {
@@ -95,6 +168,27 @@ public class CanaryConfiguration {
         String saslPassword = parseStringOrDefault(map.get(CanaryConstants.SASL_PASSWORD_ENV), "");
         long statusCheckInterval = parseLongOrDefault(map.get(CanaryConstants.STATUS_CHECK_INTERVAL_MS_ENV), CanaryConstants.STATUS_CHECK_INTERVAL_MS_DEFAULT);
         long statusTimeWindow = parseLongOrDefault(map.get(CanaryConstants.STATUS_TIME_WINDOW_MS_ENV), CanaryConstants.STATUS_TIME_WINDOW_MS_DEFAULT);
+        PayloadFormat payloadFormat = PayloadFormat.forName(parseStringOrDefault(map.get(CanaryConstants.PAYLOAD_FORMAT_ENV), CanaryConstants.PAYLOAD_FORMAT_DEFAULT));
+        PayloadSizeDistribution payloadSizeDistribution = PayloadSizeDistribution.forName(parseStringOrDefault(map.get(CanaryConstants.PAYLOAD_SIZE_DISTRIBUTION_ENV), CanaryConstants.PAYLOAD_SIZE_DISTRIBUTION_DEFAULT));
+        int[] payloadSizes = createPayloadSizes(parseStringOrDefault(map.get(CanaryConstants.PAYLOAD_SIZES_ENV), CanaryConstants.PAYLOAD_SIZES_DEFAULT));
+        double payloadSizeSigma = parseDoubleOrDefault(map.get(CanaryConstants.PAYLOAD_SIZE_SIGMA_ENV), CanaryConstants.PAYLOAD_SIZE_SIGMA_DEFAULT);
+        double producerRatePerPartition = parseDoubleOrDefault(map.get(CanaryConstants.PRODUCER_RATE_PER_PARTITION_ENV), CanaryConstants.PRODUCER_RATE_PER_PARTITION_DEFAULT);
+        int sequenceWindowSize = parseIntOrDefault(map.get(CanaryConstants.SEQUENCE_WINDOW_SIZE_ENV), CanaryConstants.SEQUENCE_WINDOW_SIZE_DEFAULT);
+        long leadershipReconcileInterval = parseLongOrDefault(map.get(CanaryConstants.LEADERSHIP_RECONCILE_INTERVAL_MS_ENV), CanaryConstants.LEADERSHIP_RECONCILE_INTERVAL_MS_DEFAULT);
+        ThreadMode threadMode = ThreadMode.forName(parseStringOrDefault(map.get(CanaryConstants.THREAD_MODE_ENV), CanaryConstants.THREAD_MODE_DEFAULT));
+        int producerMaxInFlightPerPartition = parseIntOrDefault(map.get(CanaryConstants.PRODUCER_MAX_IN_FLIGHT_PER_PARTITION_ENV), CanaryConstants.PRODUCER_MAX_IN_FLIGHT_PER_PARTITION_DEFAULT);
+        OffsetCommitMode offsetCommitMode = OffsetCommitMode.forName(parseStringOrDefault(map.get(CanaryConstants.OFFSET_COMMIT_MODE_ENV), CanaryConstants.OFFSET_COMMIT_MODE_DEFAULT));
+        long offsetCommitInterval = parseLongOrDefault(map.get(CanaryConstants.OFFSET_COMMIT_INTERVAL_MS_ENV), CanaryConstants.OFFSET_COMMIT_INTERVAL_MS_DEFAULT);
+        long groupCoordinatorProbeInterval = parseLongOrDefault(map.get(CanaryConstants.GROUP_COORDINATOR_PROBE_INTERVAL_MS_ENV), CanaryConstants.GROUP_COORDINATOR_PROBE_INTERVAL_MS_DEFAULT);
+        int producerShards = parseIntOrDefault(map.get(CanaryConstants.PRODUCER_SHARDS_ENV), CanaryConstants.PRODUCER_SHARDS_DEFAULT);
+        int consumerThreads = parseIntOrDefault(map.get(CanaryConstants.CONSUMER_THREADS_ENV), CanaryConstants.CONSUMER_THREADS_DEFAULT);
+        long rebalanceProbeInterval = parseLongOrDefault(map.get(CanaryConstants.REBALANCE_PROBE_INTERVAL_MS_ENV), CanaryConstants.REBALANCE_PROBE_INTERVAL_MS_DEFAULT);
+        List<String> followerFetchRacks = createRacks(parseStringOrDefault(map.get(CanaryConstants.FOLLOWER_FETCH_RACKS_ENV), CanaryConstants.FOLLOWER_FETCH_RACKS_DEFAULT));
+        long offsetsExportInterval = parseLongOrDefault(map.get(CanaryConstants.OFFSETS_EXPORT_INTERVAL_MS_ENV), CanaryConstants.OFFSETS_EXPORT_INTERVAL_MS_DEFAULT);
+        long catchUpProbeInterval = parseLongOrDefault(map.get(CanaryConstants.CATCH_UP_PROBE_INTERVAL_MS_ENV), CanaryConstants.CATCH_UP_PROBE_INTERVAL_MS_DEFAULT);
+        long catchUpProbeLookback = parseLongOrDefault(map.get(CanaryConstants.CATCH_UP_PROBE_LOOKBACK_MS_ENV), CanaryConstants.CATCH_UP_PROBE_LOOKBACK_MS_DEFAULT);
+        StartupPolicy consumerStartupPolicy = StartupPolicy.forName(parseStringOrDefault(map.get(CanaryConstants.CONSUMER_STARTUP_POLICY_ENV), CanaryConstants.CONSUMER_STARTUP_POLICY_DEFAULT));
+        long consumerStartupLookback = parseLongOrDefault(map.get(CanaryConstants.CONSUMER_STARTUP_LOOKBACK_MS_ENV), CanaryConstants.CONSUMER_STARTUP_LOOKBACK_MS_DEFAULT);
 
         // check if username and password is specified in case that SASL mechanism isn't empty
         if (!saslMechanism.isEmpty()) {
@@ -106,6 +200,8 @@ public class CanaryConfiguration {
             }
         }
 
+        payloadSizeDistribution.validateSizes(payloadSizes);
+
         return new CanaryConfiguration(
             bootstrapServers,
             topic,
@@ -124,7 +220,28 @@ public class CanaryConfiguration {
             saslUser,
             saslPassword,
             statusCheckInterval,
-            statusTimeWindow
+            statusTimeWindow,
+            payloadFormat,
+            payloadSizeDistribution,
+            payloadSizes,
+            payloadSizeSigma,
+            producerRatePerPartition,
+            sequenceWindowSize,
+            leadershipReconcileInterval,
+            threadMode,
+            producerMaxInFlightPerPartition,
+            offsetCommitMode,
+            offsetCommitInterval,
+            groupCoordinatorProbeInterval,
+            producerShards,
+            consumerThreads,
+            rebalanceProbeInterval,
+            followerFetchRacks,
+            offsetsExportInterval,
+            catchUpProbeInterval,
+            catchUpProbeLookback,
+            consumerStartupPolicy,
+            consumerStartupLookback
         );
     }
 
@@ -200,6 +317,110 @@ public class CanaryConfiguration {
         return statusTimeWindow;
     }
 
+    public PayloadFormat getPayloadFormat() {
+        return payloadFormat;
+    }
+
+    public PayloadSizeDistribution getPayloadSizeDistribution() {
+        return payloadSizeDistribution;
+    }
+
+    public int[] getPayloadSizes() {
+        return payloadSizes;
+    }
+
+    public double getPayloadSizeSigma() {
+        return payloadSizeSigma;
+    }
+
+    public double getProducerRatePerPartition() {
+        return producerRatePerPartition;
+    }
+
+    /**
+     * @return expected interval between two probes sent to the same partition in milliseconds
+     */
+    public double getExpectedProbeInterval() {
+        return producerRatePerPartition > 0 ? 1000 / producerRatePerPartition : reconcileInterval;
+    }
+
+    public int getSequenceWindowSize() {
+        return sequenceWindowSize;
+    }
+
+    /**
+     * @return time in milliseconds after which a missing message is counted as lost, see {@link CanaryConstants#SEQUENCE_LOSS_DEADLINE_RECONCILE_INTERVALS}
+     */
+    public long getSequenceLossDeadline() {
+        return reconcileInterval * CanaryConstants.SEQUENCE_LOSS_DEADLINE_RECONCILE_INTERVALS;
+    }
+
+    /**
+     * Interval of the leadership reconciliation, which issues the partition reassignments and preferred leader elections
+     * of the canary topic, so every broker leads one of its partitions. It's disabled by default (0), as a monitoring tool
+     * should not move replicas in the monitored cluster unless it's asked to, see {@link CanaryConstants#LEADERSHIP_RECONCILE_INTERVAL_MS_ENV}.
+     * @return interval in milliseconds, 0 when disabled
+     */
+    public long getLeadershipReconcileInterval() {
+        return leadershipReconcileInterval;
+    }
+
+    public ThreadMode getThreadMode() {
+        return threadMode;
+    }
+
+    public int getProducerMaxInFlightPerPartition() {
+        return producerMaxInFlightPerPartition;
+    }
+
+    public OffsetCommitMode getOffsetCommitMode() {
+        return offsetCommitMode;
+    }
+
+    public long getOffsetCommitInterval() {
+        return offsetCommitInterval;
+    }
+
+    public long getGroupCoordinatorProbeInterval() {
+        return groupCoordinatorProbeInterval;
+    }
+
+    public int getProducerShards() {
+        return producerShards;
+    }
+
+    public int getConsumerThreads() {
+        return consumerThreads;
+    }
+
+    public long getRebalanceProbeInterval() {
+        return rebalanceProbeInterval;
+    }
+
+    public List<String> getFollowerFetchRacks() {
+        return followerFetchRacks;
+    }
+
+    public long getOffsetsExportInterval() {
+        return offsetsExportInterval;
+    }
+
+    public long getCatchUpProbeInterval() {
+        return catchUpProbeInterval;
+    }
+
+    public long getCatchUpProbeLookback() {
+        return catchUpProbeLookback;
+    }
+
+    public StartupPolicy getConsumerStartupPolicy() {
+        return consumerStartupPolicy;
+    }
+
+    public long getConsumerStartupLookback() {
+        return consumerStartupLookback;
+    }
+
     @Override
     public String toString() {
         String tlsCaCert = getTlsCaCert().equals("") ? "" : "[CA cert]";
@@ -233,6 +454,27 @@ public class CanaryConfiguration {
             ", saslPassword='" + saslPassword + '\'' +
             ", statusCheckInterval='" + getStatusCheckInterval() + '\'' +
             ", statusTimeWindow='" + getStatusTimeWindow() + '\'' +
+            ", payloadFormat='" + getPayloadFormat().getName() + '\'' +
+            ", payloadSizeDistribution='" + getPayloadSizeDistribution().getName() + '\'' +
+            ", payloadSizes='" + Arrays.toString(getPayloadSizes()) + '\'' +
+            ", payloadSizeSigma='" + getPayloadSizeSigma() + '\'' +
+            ", producerRatePerPartition='" + getProducerRatePerPartition() + '\'' +
+            ", sequenceWindowSize='" + getSequenceWindowSize() + '\'' +
+            ", leadershipReconcileInterval='" + getLeadershipReconcileInterval() + '\'' +
+            ", threadMode='" + getThreadMode().getName() + '\'' +
+            ", producerMaxInFlightPerPartition='" + getProducerMaxInFlightPerPartition() + '\'' +
+            ", offsetCommitMode='" + getOffsetCommitMode().getName() + '\'' +
+            ", offsetCommitInterval='" + getOffsetCommitInterval() + '\'' +
+            ", groupCoordinatorProbeInterval='" + getGroupCoordinatorProbeInterval() + '\'' +
+            ", producerShards='" + getProducerShards() + '\'' +
+            ", consumerThreads='" + getConsumerThreads() + '\'' +
+            ", rebalanceProbeInterval='" + getRebalanceProbeInterval() + '\'' +
+            ", followerFetchRacks='" + getFollowerFetchRacks() + '\'' +
+            ", offsetsExportInterval='" + getOffsetsExportInterval() + '\'' +
+            ", catchUpProbeInterval='" + getCatchUpProbeInterval() + '\'' +
+            ", catchUpProbeLookback='" + getCatchUpProbeLookback() + '\'' +
+            ", consumerStartupPolicy='" + getConsumerStartupPolicy().getName() + '\'' +
+            ", consumerStartupLookback='" + getConsumerStartupLookback() + '\'' +
             '}';
     }
 }
@@ -5,7 +5,9 @@
 package config;
 
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -55,6 +57,23 @@ public class CanaryConfigurationUtils {
         return latencyBucketsArr;
     }
 
+    public static int[] createPayloadSizes(String payloadSizes) {
+        return Arrays.stream(payloadSizes.split(","))
+            .map(String::trim)
+            // the empty value should not be parsed
+            .filter(value -> value.length() != 0)
+            .mapToInt(Integer::parseInt)
+            .toArray();
+    }
+
+    public static List<String> createRacks(String racks) {
+        return Arrays.stream(racks.split(","))
+            .map(String::trim)
+            .filter(value -> value.length() != 0)
+            .distinct()
+            .toList();
+    }
+
     public static Duration parseDurationOrDefault(String value, Duration defaultValue) {
         return Duration.ofMillis(parseLongOrDefault(value, defaultValue.toMillis()));
     }
@@ -63,6 +82,10 @@ public class CanaryConfigurationUtils {
         return parseOrDefault(value, Boolean::parseBoolean, defaultValue);
     }
 
+    public static double parseDoubleOrDefault(String value, double defaultValue) {
+        return parseOrDefault(value, Double::parseDouble, defaultValue);
+    }
+
     public static long parseLongOrDefault(String value, long defaultValue) {
         return parseOrDefault(value, Long::parseLong, defaultValue);
     }
@@ -4,6 +4,8 @@
  */
 package config;
 
+import java.util.List;
+
 public class CanaryConstants {
     /**
      * Canary configuration's environment variable constants
@@ -26,6 +28,27 @@ public class CanaryConstants {
     public static final String SASL_PASSWORD_ENV = "SASL_PASSWORD";
     public static final String STATUS_CHECK_INTERVAL_MS_ENV = "STATUS_CHECK_INTERVAL_MS";
     public static final String STATUS_TIME_WINDOW_MS_ENV = "STATUS_TIME_WINDOW_MS";
+    public static final String PAYLOAD_FORMAT_ENV = "PAYLOAD_FORMAT";
+    public static final String PAYLOAD_SIZE_DISTRIBUTION_ENV = "PAYLOAD_SIZE_DISTRIBUTION";
+    public static final String PAYLOAD_SIZES_ENV = "PAYLOAD_SIZES";
+    public static final String PAYLOAD_SIZE_SIGMA_ENV = "PAYLOAD_SIZE_SIGMA";
+    public static final String PRODUCER_RATE_PER_PARTITION_ENV = "PRODUCER_RATE_PER_PARTITION";
+    public static final String SEQUENCE_WINDOW_SIZE_ENV = "SEQUENCE_WINDOW_SIZE";
+    public static final String LEADERSHIP_RECONCILE_INTERVAL_MS_ENV = "LEADERSHIP_RECONCILE_INTERVAL_MS";
+    public static final String THREAD_MODE_ENV = "THREAD_MODE";
+    public static final String PRODUCER_MAX_IN_FLIGHT_PER_PARTITION_ENV = "PRODUCER_MAX_IN_FLIGHT_PER_PARTITION";
+    public static final String OFFSET_COMMIT_MODE_ENV = "OFFSET_COMMIT_MODE";
+    public static final String OFFSET_COMMIT_INTERVAL_MS_ENV = "OFFSET_COMMIT_INTERVAL_MS";
+    public static final String GROUP_COORDINATOR_PROBE_INTERVAL_MS_ENV = "GROUP_COORDINATOR_PROBE_INTERVAL_MS";
+    public static final String PRODUCER_SHARDS_ENV = "PRODUCER_SHARDS";
+    public static final String CONSUMER_THREADS_ENV = "CONSUMER_THREADS";
+    public static final String REBALANCE_PROBE_INTERVAL_MS_ENV = "REBALANCE_PROBE_INTERVAL_MS";
+    public static final String FOLLOWER_FETCH_RACKS_ENV = "FOLLOWER_FETCH_RACKS";
+    public static final String OFFSETS_EXPORT_INTERVAL_MS_ENV = "OFFSETS_EXPORT_INTERVAL_MS";
+    public static final String CATCH_UP_PROBE_INTERVAL_MS_ENV = "CATCH_UP_PROBE_INTERVAL_MS";
+    public static final String CATCH_UP_PROBE_LOOKBACK_MS_ENV = "CATCH_UP_PROBE_LOOKBACK_MS";
+    public static final String CONSUMER_STARTUP_POLICY_ENV = "CONSUMER_STARTUP_POLICY";
+    public static final String CONSUMER_STARTUP_LOOKBACK_MS_ENV = "CONSUMER_STARTUP_LOOKBACK_MS";
 
     /**
      * Canary configuration's defaults
@@ -35,12 +58,50 @@ public class CanaryConstants {
     public static final long RECONCILE_INTERVAL_DEFAULT = 30000;
     public static final String CLIENT_ID_DEFAULT = "strimzi-canary-client";
     public static final String CONSUMER_GROUP_ID_DEFAULT = "strimzi-canary-group";
-    public static final String PRODUCER_LATENCY_BUCKETS_DEFAULT = "2,5,10,20,50,100,200,400";
-    public static final String ENDTOEND_LATENCY_BUCKETS_DEFAULT = "5,10,20,50,100,200,400,800";
+    // the produce ack on fast disks is often below 1 ms, so the buckets start at sub-millisecond values
+    public static final String PRODUCER_LATENCY_BUCKETS_DEFAULT = "0.25,0.5,1,2,5,10,20,50,100,200,400";
+    public static final String ENDTOEND_LATENCY_BUCKETS_DEFAULT = "0.5,1,2,5,10,20,50,100,200,400,800";
     public static final int EXPECTED_CLUSTER_SIZE_DEFAULT = 1;
     public static final boolean TLS_ENABLED_DEFAULT = false;
     public static final long STATUS_CHECK_INTERVAL_MS_DEFAULT = 30000;
     public static final long STATUS_TIME_WINDOW_MS_DEFAULT = 300000;
+    public static final String PAYLOAD_FORMAT_DEFAULT = "json";
+    public static final String PAYLOAD_SIZE_DISTRIBUTION_DEFAULT = "fixed";
+    public static final String PAYLOAD_SIZES_DEFAULT = "";
+    public static final double PAYLOAD_SIZE_SIGMA_DEFAULT = 1.0;
+    public static final long PAYLOAD_BUFFER_POOL_MAX_BYTES = 16 * 1024 * 1024;
+    public static final double PRODUCER_RATE_PER_PARTITION_DEFAULT = 0;
+    public static final long PRODUCER_RATE_BURST_INTERVAL_MS = 1000;
+    public static final int SEQUENCE_WINDOW_SIZE_DEFAULT = 32;
+    // the delivery timeout is one reconcile interval, so the failed sends are known before a gap is counted as lost
+    public static final int SEQUENCE_LOSS_DEADLINE_RECONCILE_INTERVALS = 2;
+    public static final long PARTITION_LEADER_REFRESH_INTERVAL_MS = 5000;
+    // opt-in, the reconciliation moves replicas and leaders of the canary topic in the monitored cluster
+    public static final long LEADERSHIP_RECONCILE_INTERVAL_MS_DEFAULT = 0;
+    public static final String THREAD_MODE_DEFAULT = "platform";
+    public static final int PRODUCER_MAX_IN_FLIGHT_PER_PARTITION_DEFAULT = 0;
+    // the canary partitions are assigned manually, the committed offsets are only needed by some of the startup policies
+    public static final String OFFSET_COMMIT_MODE_DEFAULT = "none";
+    public static final long OFFSET_COMMIT_INTERVAL_MS_DEFAULT = 5000;
+    // the periodic commit blocks the poll loop, so it's given up after a short time and committed again next time
+    public static final long OFFSET_COMMIT_TIMEOUT_MS = 1000;
+    public static final long GROUP_COORDINATOR_PROBE_INTERVAL_MS_DEFAULT = 0;
+    public static final long CLOCK_SKEW_SAMPLE_MAX_AGE_MS = 60000;
+    public static final int PRODUCER_SHARDS_DEFAULT = 1;
+    public static final int CONSUMER_THREADS_DEFAULT = 1;
+    public static final int REBALANCE_PROBE_GROUP_SIZE = 2;
+    public static final String REBALANCE_LATENCY_BUCKETS = "100,200,500,1000,2000,5000,10000,30000";
+    public static final long REBALANCE_PROBE_INTERVAL_MS_DEFAULT = 0;
+    public static final String FOLLOWER_FETCH_RACKS_DEFAULT = "";
+    public static final long OFFSETS_EXPORT_INTERVAL_MS_DEFAULT = 30000;
+    public static final long CATCH_UP_PROBE_TIMEOUT_MS = 60000;
+    public static final long CATCH_UP_PROBE_INTERVAL_MS_DEFAULT = 0;
+    public static final long CATCH_UP_PROBE_LOOKBACK_MS_DEFAULT = 600000;
+    public static final String CONSUMER_STARTUP_POLICY_DEFAULT = "committed";
+    public static final long CONSUMER_STARTUP_LOOKBACK_MS_DEFAULT = 60000;
     public static final long TASK_TERMINATION_TIMEOUT = 120000;
     public static final int MAX_TIME_WINDOW_RING_BUFFER_BUCKETS = 384;
+    public static final List<Long> STATUS_ROLLUP_RESOLUTIONS_MS = List.of(30000L, 600000L, 7200000L);
+    // status checks a status snapshot stays readable for, the rings keep as many extra values
+    public static final int STATUS_SNAPSHOT_SLACK_CHECKS = 2;
 }
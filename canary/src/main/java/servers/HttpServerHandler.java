@@ -4,15 +4,18 @@
  */
 package servers;
 
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import common.concurrent.ThreadMode;
 import common.metrics.MetricsRegistry;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.handler.AbstractHandler;
 import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
-import status.ConsumingStatus;
+import status.StatusReport;
 import status.StatusService;
 
 import javax.servlet.http.HttpServletRequest;
@@ -27,8 +30,8 @@ public class HttpServerHandler {
     private StatusService statusService;
     private Server server;
 
-    public HttpServerHandler(StatusService statusService) {
-        this.server = new Server(HTTP_PORT);
+    public HttpServerHandler(StatusService statusService, ThreadMode threadMode) {
+        this.server = createServer(threadMode);
         this.statusService = statusService;
 
         ContextHandler livenessContext = new ContextHandler();
@@ -56,6 +59,20 @@ public class HttpServerHandler {
         server.setHandler(contexts);
     }
 
+    private static Server createServer(ThreadMode threadMode) {
+        if (threadMode != ThreadMode.VIRTUAL || !ThreadMode.isVirtualThreadSupported()) {
+            return new Server(HTTP_PORT);
+        }
+
+        LOGGER.info("HTTP server handles the requests on virtual threads");
+        Server server = new Server(new ThreadPerTaskPool(threadMode.threadFactory("canary-http")));
+        ServerConnector connector = new ServerConnector(server);
+        connector.setPort(HTTP_PORT);
+        server.addConnector(connector);
+
+        return server;
+    }
+
     public void startHttpServer() {
         try {
             getServer().start();
@@ -74,6 +91,22 @@ public class HttpServerHandler {
         }
     }
 
+    private static long parseWindow(String window) {
+        long timeWindow;
+
+        try {
+            timeWindow = Long.parseLong(window);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid time window: " + window + ", expected milliseconds");
+        }
+
+        if (timeWindow <= 0) {
+            throw new IllegalArgumentException("Time window must be positive: " + window);
+        }
+
+        return timeWindow;
+    }
+
     private Server getServer() {
         return server;
     }
@@ -113,13 +146,25 @@ public class HttpServerHandler {
     }
 
     public class StatusHandler extends AbstractHandler {
+
         @Override
         public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException {
-            ConsumingStatus consumingStatus = statusService.getConsumingStatus();
             response.setContentType("application/json");
+            String window = request.getParameter("window");
+            StatusReport statusReport;
+
+            try {
+                // time window in milliseconds, the configured one by default
+                statusReport = window == null ? statusService.getStatusReport() : statusService.getStatusReport(parseWindow(window));
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                response.getWriter().println(JsonNodeFactory.instance.objectNode().put("error", e.getMessage()).toPrettyString());
+                baseRequest.setHandled(true);
+                return;
+            }
 
             response.setStatus(HttpServletResponse.SC_OK);
-            response.getWriter().println(consumingStatus.toJsonString());
+            response.getWriter().println(statusReport.toJsonString());
 
             baseRequest.setHandled(true);
         }
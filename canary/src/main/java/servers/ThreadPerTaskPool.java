@@ -0,0 +1,67 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package servers;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Jetty thread pool starting a new thread for every task, meant to be used with the virtual threads
+ * Jetty 9.4 has no built-in support for the virtual threads, so they are plugged in through the {@link ThreadPool} interface.
+ * Selectors and acceptors run as long-lived tasks, the request handling gets its own short-lived thread.
+ */
+public class ThreadPerTaskPool extends AbstractLifeCycle implements ThreadPool {
+    private final ThreadFactory threadFactory;
+    private final AtomicInteger threads = new AtomicInteger();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    public ThreadPerTaskPool(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        this.threads.incrementAndGet();
+
+        this.threadFactory.newThread(() -> {
+            try {
+                task.run();
+            } finally {
+                this.threads.decrementAndGet();
+            }
+        }).start();
+    }
+
+    @Override
+    public void join() throws InterruptedException {
+        this.stopped.await();
+    }
+
+    @Override
+    public int getThreads() {
+        return this.threads.get();
+    }
+
+    @Override
+    public int getIdleThreads() {
+        // there are no idle threads, every task gets a new one
+        return 0;
+    }
+
+    @Override
+    public boolean isLowOnThreads() {
+        return false;
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        super.doStop();
+        this.stopped.countDown();
+    }
+}
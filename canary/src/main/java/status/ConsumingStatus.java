@@ -12,13 +12,18 @@ public record ConsumingStatus(long timeWindow, float percentage) {
     public String toJsonString() {
 
         ObjectNode root = JsonNodeFactory.instance.objectNode();
+
+        root.set("Consuming", toJson());
+
+        return root.toPrettyString();
+    }
+
+    public ObjectNode toJson() {
         ObjectNode values = JsonNodeFactory.instance.objectNode();
 
         values.put("TimeWindow", this.timeWindow);
         values.put("Percentage", this.percentage);
 
-        root.set("Consuming", values);
-
-        return root.toPrettyString();
+        return values;
     }
 }
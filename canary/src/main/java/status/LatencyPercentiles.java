@@ -0,0 +1,42 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package status;
+
+import clients.LatencyRecorders;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency percentiles in milliseconds within the status time window
+ */
+public record LatencyPercentiles(long count, double p50, double p95, double p99, double max) {
+
+    public static LatencyPercentiles of(Histogram histogram) {
+        return new LatencyPercentiles(
+            histogram.getTotalCount(),
+            toMillis(histogram.getValueAtPercentile(50)),
+            toMillis(histogram.getValueAtPercentile(95)),
+            toMillis(histogram.getValueAtPercentile(99)),
+            toMillis(histogram.getMaxValue())
+        );
+    }
+
+    private static double toMillis(long value) {
+        return value / LatencyRecorders.MICROS_PER_MILLI;
+    }
+
+    public ObjectNode toJson() {
+        ObjectNode values = JsonNodeFactory.instance.objectNode();
+
+        values.put("Count", this.count);
+        values.put("P50", this.p50);
+        values.put("P95", this.p95);
+        values.put("P99", this.p99);
+        values.put("Max", this.max);
+
+        return values;
+    }
+}
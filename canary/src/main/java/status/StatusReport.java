@@ -0,0 +1,38 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package status;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Status returned by the /status endpoint, the consumed percentage and the latency percentiles per partition
+ */
+public record StatusReport(ConsumingStatus consuming, Map<Integer, LatencyPercentiles> produceLatency, Map<Integer, LatencyPercentiles> endToEndLatency) {
+
+    public String toJsonString() {
+        ObjectNode root = JsonNodeFactory.instance.objectNode();
+        ObjectNode latency = JsonNodeFactory.instance.objectNode();
+
+        latency.set("Produce", partitionsToJson(this.produceLatency));
+        latency.set("EndToEnd", partitionsToJson(this.endToEndLatency));
+
+        root.set("Consuming", this.consuming.toJson());
+        root.set("Latency", latency);
+
+        return root.toPrettyString();
+    }
+
+    private static ObjectNode partitionsToJson(Map<Integer, LatencyPercentiles> partitions) {
+        ObjectNode values = JsonNodeFactory.instance.objectNode();
+
+        new TreeMap<>(partitions).forEach((partition, percentiles) -> values.set(String.valueOf(partition), percentiles.toJson()));
+
+        return values;
+    }
+}
@@ -4,77 +4,215 @@
  */
 package status;
 
-import clients.MessageCountHolder;
-import common.timewindow.TimeWindowRing;
+import clients.LatencyRecorders;
+import clients.MessageCounters;
+import common.timewindow.HistogramRing;
+import common.timewindow.RollupRing;
 import config.CanaryConfiguration;
+import config.CanaryConstants;
 import org.apache.logging.log4j.LogManager;
+import org.HdrHistogram.Recorder;
 import org.apache.logging.log4j.Logger;
 
-import java.text.DecimalFormat;
-
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the produced, consumed and lost counts and the latency histograms of the status checks
+ * The rings are changed only by the status check on the scheduler thread. At the end of every status check it publishes
+ * a {@link StatusSnapshot}, which reads the rings as they were after that check, the HTTP server threads only read
+ * the latest snapshot, so they never block the status check and never see a half of it. Like with a sequence lock,
+ * the check announces itself before changing the rings, so a reader outrun by the checks reads the latest snapshot again.
+ *
+ * The lost count includes the overdue messages, those acknowledged by the broker longer than the loss deadline ago and
+ * neither consumed nor found lost since. It catches a partition which stopped delivering at all, so the consumer
+ * sees no gap in its sequence numbers. The overdue count drops again when such messages arrive late or are found lost.
+ */
 public class StatusService {
 
     private static final Logger LOGGER = LogManager.getLogger(StatusService.class);
 
     private long statusCheckInterval;
-    private TimeWindowRing producerRing;
-    private TimeWindowRing consumerRing;
+    private long statusTimeWindow;
+    private RollupRing producerRing;
+    private RollupRing consumerRing;
+    // lost and overdue messages
+    private RollupRing lostRing;
+    // number of status checks covering the loss deadline
+    private final int lossDeadlineChecks;
+    // produced counts of the last status checks covering the loss deadline, per partition, accessed only by the status check
+    private final Map<Integer, Deque<Long>> producedHistory = new HashMap<>();
+    // latency histograms of the status check intervals within the status time window, per partition, shared with the snapshots
+    private final Map<Integer, HistogramRing> produceLatencyRings = new ConcurrentHashMap<>();
+    private final Map<Integer, HistogramRing> endToEndLatencyRings = new ConcurrentHashMap<>();
+    // changed only by the status check, the snapshots read it to find out whether their values were overwritten
+    private volatile long checksStarted;
+    private final LongSupplier checksStartedSupplier = () -> this.checksStarted;
+    private volatile StatusSnapshot snapshot;
 
     public StatusService(CanaryConfiguration canaryConfiguration) {
         this.statusCheckInterval = canaryConfiguration.getStatusCheckInterval();
-        this.producerRing = new TimeWindowRing(canaryConfiguration.getStatusTimeWindow(), statusCheckInterval);
-        this.consumerRing = new TimeWindowRing(canaryConfiguration.getStatusTimeWindow(), statusCheckInterval);
+        this.statusTimeWindow = canaryConfiguration.getStatusTimeWindow();
+        this.producerRing = new RollupRing(statusCheckInterval);
+        this.consumerRing = new RollupRing(statusCheckInterval, CanaryConstants.STATUS_ROLLUP_RESOLUTIONS_MS, CanaryConstants.STATUS_SNAPSHOT_SLACK_CHECKS);
+        this.lostRing = new RollupRing(statusCheckInterval, CanaryConstants.STATUS_ROLLUP_RESOLUTIONS_MS, CanaryConstants.STATUS_SNAPSHOT_SLACK_CHECKS);
+        this.lossDeadlineChecks = (int) Math.max(1, (canaryConfiguration.getSequenceLossDeadline() + statusCheckInterval - 1) / statusCheckInterval);
+        this.snapshot = createSnapshot(0);
     }
 
     public void statusCheck() {
-        this.producerRing.putValue(MessageCountHolder.getInstance().getProducedMessagesCount());
-        this.consumerRing.putValue(MessageCountHolder.getInstance().getConsumedMessagesCount());
+        long checks = this.checksStarted + 1;
+        this.checksStarted = checks;
+        // the readers seeing any of the changes below see the check started as well
+        VarHandle.storeStoreFence();
+
+        long produced = 0;
+        long consumed = 0;
+        long lost = 0;
+        long overdue = 0;
+
+        // consumed and lost counts come from the same snapshot, so the percentage doesn't see half of an update
+        for (Map.Entry<Integer, MessageCounters.MessageCounts> entry : MessageCounters.getInstance().snapshotPartitions().entrySet()) {
+            MessageCounters.MessageCounts counts = entry.getValue();
+            produced += counts.produced();
+            consumed += counts.consumed();
+            lost += counts.lost();
+            overdue += overdue(entry.getKey(), counts);
+        }
+
+        this.producerRing.putValue(produced);
+        this.consumerRing.putValue(consumed);
+        this.lostRing.putValue(lost + overdue);
+
+        putLatencyIntervals(LatencyRecorders.getInstance().getProduceRecorders(), this.produceLatencyRings, checks - 1);
+        putLatencyIntervals(LatencyRecorders.getInstance().getEndToEndRecorders(), this.endToEndLatencyRings, checks - 1);
 
-        LOGGER.info("Status check: produced [head = {}, tail = {}, count = {}], consumed [head = {}, tail = {}, count = {}]",
-            producerRing.getHead(), producerRing.getTail(), producerRing.getCount(),
-            consumerRing.getHead(), consumerRing.getTail(), consumerRing.getCount()
-        );
+        this.snapshot = createSnapshot(checks);
+
+        LOGGER.info("Status check: produced = {}, consumed = {}, lost = {}, overdue = {}", produced, consumed, lost, overdue);
     }
 
-    public ConsumingStatus getConsumingStatus() {
-        float calculatedPercentage = calculateConsumedPercentage();
+    private StatusSnapshot createSnapshot(long checks) {
+        return new StatusSnapshot(this.statusTimeWindow, checks, this.checksStartedSupplier, this.consumerRing, this.lostRing,
+            this.produceLatencyRings, this.endToEndLatencyRings);
+    }
 
-        if (calculatedPercentage == -1) {
-            LOGGER.warn("No data samples available in the time window ring");
+    /**
+     * Reads the latest snapshot, again when the status checks overwrote a part of it in the meantime
+     * It happens only when the reader takes longer than {@link CanaryConstants#STATUS_SNAPSHOT_SLACK_CHECKS} status checks,
+     * the values read until then might be inconsistent, so they are thrown away, as is any exception caused by them.
+     */
+    private <T> T read(Function<StatusSnapshot, T> reader) {
+        while (true) {
+            StatusSnapshot snapshot = this.snapshot;
+
+            try {
+                T result = reader.apply(snapshot);
+
+                if (snapshot.isReadable()) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                if (snapshot.isReadable()) {
+                    throw e;
+                }
+            }
         }
-
-        return new ConsumingStatus(
-            this.statusCheckInterval * this.consumerRing.getCount(),
-            calculatedPercentage
-        );
     }
 
-    public float calculateConsumedPercentage() {
-        if (this.producerRing.isEmpty() || this.consumerRing.isEmpty()) {
-            return -1;
+    /**
+     * @return number of messages of the partition acknowledged before the loss deadline, which were neither consumed nor found lost
+     */
+    private long overdue(int partition, MessageCounters.MessageCounts counts) {
+        Deque<Long> history = this.producedHistory.computeIfAbsent(partition, p -> new ArrayDeque<>());
+        history.addLast(counts.produced());
+
+        if (history.size() <= this.lossDeadlineChecks) {
+            return 0;
+        }
+
+        while (history.size() > this.lossDeadlineChecks + 1) {
+            history.removeFirst();
         }
 
-        long produced = this.producerRing.getHead() - this.producerRing.getTail();
-        long consumed = this.consumerRing.getHead() - this.consumerRing.getTail();
+        return Math.max(0, history.getFirst() - counts.consumed() - counts.lost());
+    }
+
+    /**
+     * @param interval number of the interval, the intervals are numbered by the status checks
+     */
+    private void putLatencyIntervals(Map<Integer, Recorder> recorders, Map<Integer, HistogramRing> rings, long interval) {
+        recorders.forEach((partition, recorder) -> rings
+            .computeIfAbsent(partition, p -> new HistogramRing(this.statusTimeWindow, this.statusCheckInterval, CanaryConstants.STATUS_SNAPSHOT_SLACK_CHECKS, interval))
+            .putInterval(recorder));
+    }
+
+    public StatusReport getStatusReport() {
+        return getStatusReport(this.statusTimeWindow);
+    }
+
+    /**
+     * @param timeWindow length of the time window in milliseconds, the latency percentiles cover at most the configured status time window
+     */
+    public StatusReport getStatusReport(long timeWindow) {
+        StatusReport statusReport = read(snapshot -> snapshot.statusReport(timeWindow));
+
+        warnIfNoData(statusReport.consuming());
+        return statusReport;
+    }
+
+    public ConsumingStatus getConsumingStatus() {
+        return getConsumingStatus(this.statusTimeWindow);
+    }
+
+    /**
+     * @param timeWindow length of the time window in milliseconds, the longer ones are served by the coarser resolutions
+     */
+    public ConsumingStatus getConsumingStatus(long timeWindow) {
+        ConsumingStatus consumingStatus = read(snapshot -> snapshot.consumingStatus(timeWindow));
 
-        if (produced == 0 || consumed == 0) {
-            return -1;
+        warnIfNoData(consumingStatus);
+        return consumingStatus;
+    }
+
+    private static void warnIfNoData(ConsumingStatus consumingStatus) {
+        if (consumingStatus.percentage() == -1) {
+            LOGGER.warn("No data samples available in the time window ring");
         }
+    }
 
-        float percentage = (float) (consumed * 100) / produced;
+    /**
+     * Percentage of the messages delivered out of those which were either delivered or found lost (or overdue) in the time window
+     * Messages still in flight are not counted, unlike with the produced count, so they don't lower the percentage.
+     * @return percentage of the delivered messages, -1 when there is no data in the time window
+     */
+    public float calculateConsumedPercentage() {
+        return calculateConsumedPercentage(this.statusTimeWindow);
+    }
 
-        return Float.parseFloat(new DecimalFormat("#.##").format(percentage));
+    public float calculateConsumedPercentage(long timeWindow) {
+        return read(snapshot -> snapshot.consumedPercentage(timeWindow));
     }
 
     public long getStatusCheckInterval() {
         return statusCheckInterval;
     }
 
-    public TimeWindowRing getConsumerRing() {
+    public RollupRing getConsumerRing() {
         return consumerRing;
     }
 
-    public TimeWindowRing getProducerRing() {
+    public RollupRing getProducerRing() {
         return producerRing;
     }
+
+    public RollupRing getLostRing() {
+        return lostRing;
+    }
 }
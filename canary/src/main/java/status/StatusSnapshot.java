@@ -0,0 +1,155 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package status;
+
+import common.timewindow.HistogramRing;
+import common.timewindow.RollupRing;
+import config.CanaryConstants;
+import org.HdrHistogram.Histogram;
+
+import java.lang.invoke.VarHandle;
+import java.text.DecimalFormat;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * View of the status as of one status check, it's the only object the status check allocates for the readers
+ * The snapshot doesn't copy the rings, it shares them with the status check and reads them as they were after its number
+ * of checks. The rings keep {@link CanaryConstants#STATUS_SNAPSHOT_SLACK_CHECKS} more values than their time window,
+ * so the values of the snapshot are not overwritten until as many further checks start; {@link #isReadable()} tells
+ * whether it happened while reading, the reader reads the latest snapshot again then.
+ * The report of the configured status time window is computed by the first reader and kept for the others.
+ */
+final class StatusSnapshot {
+    private final long statusTimeWindow;
+    private final long checks;
+    private final LongSupplier checksStarted;
+    private final RollupRing consumerRing;
+    private final RollupRing lostRing;
+    private final Map<Integer, HistogramRing> produceLatencyRings;
+    private final Map<Integer, HistogramRing> endToEndLatencyRings;
+    private volatile StatusReport statusReport;
+
+    /**
+     * @param statusTimeWindow configured status time window in milliseconds
+     * @param checks number of the status checks done, it's the view of the rings
+     * @param checksStarted number of the status checks started so far, the latest one might be changing the rings
+     * @param consumerRing consumed counts ring
+     * @param lostRing lost counts ring
+     * @param produceLatencyRings produce latency rings, per partition, the map is shared with the status check adding new partitions
+     * @param endToEndLatencyRings end-to-end latency rings, per partition, the map is shared with the status check adding new partitions
+     */
+    StatusSnapshot(long statusTimeWindow, long checks, LongSupplier checksStarted, RollupRing consumerRing, RollupRing lostRing,
+                   Map<Integer, HistogramRing> produceLatencyRings, Map<Integer, HistogramRing> endToEndLatencyRings) {
+        this.statusTimeWindow = statusTimeWindow;
+        this.checks = checks;
+        this.checksStarted = checksStarted;
+        this.consumerRing = consumerRing;
+        this.lostRing = lostRing;
+        this.produceLatencyRings = produceLatencyRings;
+        this.endToEndLatencyRings = endToEndLatencyRings;
+    }
+
+    /**
+     * @return true when none of the values of the snapshot was overwritten so far, so everything read from it before is consistent
+     */
+    boolean isReadable() {
+        // the values have to be read before the number of started checks
+        VarHandle.loadLoadFence();
+        return this.checksStarted.getAsLong() - this.checks <= CanaryConstants.STATUS_SNAPSHOT_SLACK_CHECKS;
+    }
+
+    /**
+     * @param timeWindow length of the time window in milliseconds, the latency percentiles cover at most the configured status time window
+     */
+    StatusReport statusReport(long timeWindow) {
+        if (timeWindow != this.statusTimeWindow) {
+            return computeStatusReport(timeWindow);
+        }
+
+        StatusReport statusReport = this.statusReport;
+
+        if (statusReport == null) {
+            statusReport = computeStatusReport(timeWindow);
+
+            // concurrent readers might compute it as well, any of the reports can be kept
+            if (isReadable()) {
+                this.statusReport = statusReport;
+            }
+        }
+
+        return statusReport;
+    }
+
+    /**
+     * @param timeWindow length of the time window in milliseconds, the longer ones are served by the coarser resolutions
+     */
+    ConsumingStatus consumingStatus(long timeWindow) {
+        StatusReport statusReport = this.statusReport;
+
+        return timeWindow == this.statusTimeWindow && statusReport != null ? statusReport.consuming() : computeConsumingStatus(timeWindow);
+    }
+
+    float consumedPercentage(long timeWindow) {
+        return consumingStatus(timeWindow).percentage();
+    }
+
+    private StatusReport computeStatusReport(long timeWindow) {
+        return new StatusReport(computeConsumingStatus(timeWindow),
+            latencyPercentiles(this.produceLatencyRings, timeWindow),
+            latencyPercentiles(this.endToEndLatencyRings, timeWindow));
+    }
+
+    private ConsumingStatus computeConsumingStatus(long timeWindow) {
+        RollupRing.Window window = this.consumerRing.getWindow(timeWindow, this.checks);
+
+        return new ConsumingStatus(
+            window == null ? 0 : window.duration(),
+            computeConsumedPercentage(timeWindow)
+        );
+    }
+
+    /**
+     * Percentage of the messages delivered out of those which were either delivered or found lost (or overdue) in the time window
+     * Messages still in flight are not counted, unlike with the produced count, so they don't lower the percentage.
+     * @return percentage of the delivered messages, -1 when there is no data in the time window
+     */
+    private float computeConsumedPercentage(long timeWindow) {
+        RollupRing.Window consumedWindow = this.consumerRing.getWindow(timeWindow, this.checks);
+        RollupRing.Window lostWindow = this.lostRing.getWindow(timeWindow, this.checks);
+
+        if (consumedWindow == null || lostWindow == null) {
+            return -1;
+        }
+
+        long consumed = consumedWindow.delta();
+        // overdue messages arriving late lower the count, they are in the consumed count instead
+        long lost = Math.max(0, lostWindow.delta());
+
+        if (consumed + lost == 0) {
+            return -1;
+        }
+
+        float percentage = (float) (consumed * 100) / (consumed + lost);
+
+        return Float.parseFloat(new DecimalFormat("#.##").format(percentage));
+    }
+
+    private Map<Integer, LatencyPercentiles> latencyPercentiles(Map<Integer, HistogramRing> rings, long timeWindow) {
+        Map<Integer, LatencyPercentiles> percentiles = new HashMap<>();
+
+        rings.forEach((partition, ring) -> {
+            // null for the partitions added by the later checks
+            Histogram window = ring.getWindow(timeWindow, this.checks);
+
+            if (window != null && window.getTotalCount() > 0) {
+                percentiles.put(partition, LatencyPercentiles.of(window));
+            }
+        });
+
+        return Map.copyOf(percentiles);
+    }
+}
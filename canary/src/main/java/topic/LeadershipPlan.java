@@ -0,0 +1,77 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package topic;
+
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Changes needed for every broker to lead exactly one partition of the canary topic
+ * Partition {@code i} is meant to be led by the i-th broker of the cluster, ordered by broker id.
+ * A partition whose preferred (first) replica is a different broker gets reassigned, the desired broker becomes
+ * the first replica and the other replicas are kept as much as possible to limit the data movement.
+ * A partition whose preferred replica is right, but isn't the current leader, gets the preferred leader election.
+ * Partitions being reassigned are elected in the following reconciliation, once the reassignment is done.
+ *
+ * @param reassignments new replicas of the partitions to be reassigned
+ * @param elections partitions which need the preferred leader election
+ */
+public record LeadershipPlan(Map<TopicPartition, List<Integer>> reassignments, Set<TopicPartition> elections) {
+
+    /**
+     * @param topicName name of the canary topic
+     * @param brokerIds ids of the brokers in the cluster
+     * @param partitions current state of the canary topic partitions
+     * @return changes needed to get one partition leader per broker
+     */
+    public static LeadershipPlan create(String topicName, Collection<Integer> brokerIds, List<TopicPartitionInfo> partitions) {
+        List<Integer> brokers = brokerIds.stream().sorted().toList();
+        Map<TopicPartition, List<Integer>> reassignments = new HashMap<>();
+        Set<TopicPartition> elections = new HashSet<>();
+
+        for (TopicPartitionInfo partition : partitions) {
+            TopicPartition topicPartition = new TopicPartition(topicName, partition.partition());
+            int desiredLeader = brokers.get(partition.partition() % brokers.size());
+            List<Integer> replicas = partition.replicas().stream().map(Node::id).toList();
+
+            if (replicas.isEmpty() || replicas.get(0) != desiredLeader) {
+                reassignments.put(topicPartition, reassignedReplicas(replicas, desiredLeader));
+            } else if (partition.leader() == null || partition.leader().id() != desiredLeader) {
+                elections.add(topicPartition);
+            }
+        }
+
+        return new LeadershipPlan(reassignments, elections);
+    }
+
+    /**
+     * @return replicas with the desired leader first, the replication factor stays the same
+     */
+    private static List<Integer> reassignedReplicas(List<Integer> replicas, int desiredLeader) {
+        List<Integer> reassigned = new ArrayList<>(replicas.size());
+        reassigned.add(desiredLeader);
+
+        for (int replica : replicas) {
+            if (replica != desiredLeader && reassigned.size() < replicas.size()) {
+                reassigned.add(replica);
+            }
+        }
+
+        return reassigned;
+    }
+
+    public boolean isEmpty() {
+        return reassignments.isEmpty() && elections.isEmpty();
+    }
+}
@@ -4,6 +4,8 @@
  */
 package topic;
 
+import org.apache.kafka.common.config.TopicConfig;
+
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -14,4 +16,21 @@ public record Topic(String topicName, Map<String, String> topicConfig) {
         this.topicConfig = Objects.requireNonNullElse(topicConfig, new HashMap<>(Collections.emptyMap()));
         this.topicName = topicName;
     }
+
+    /**
+     * Makes sure the topic keeps the messages at least for the given time, the longer retention configured by the user is kept
+     * @param minRetentionMs minimal retention in milliseconds, 0 when there is no requirement
+     * @return true when the retention was raised
+     */
+    public boolean ensureRetention(long minRetentionMs) {
+        String retention = this.topicConfig.get(TopicConfig.RETENTION_MS_CONFIG);
+
+        // -1 means unlimited retention
+        if (minRetentionMs <= 0 || retention != null && (Long.parseLong(retention) < 0 || Long.parseLong(retention) >= minRetentionMs)) {
+            return false;
+        }
+
+        this.topicConfig.put(TopicConfig.RETENTION_MS_CONFIG, String.valueOf(minRetentionMs));
+        return true;
+    }
 }
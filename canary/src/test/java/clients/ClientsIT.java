@@ -5,6 +5,8 @@
 package clients;
 
 import common.Message;
+import common.SessionId;
+import common.payload.PayloadFormat;
 import config.CanaryConfiguration;
 import config.CanaryConstants;
 import io.strimzi.test.container.StrimziKafkaContainer;
@@ -29,8 +31,8 @@ import static org.hamcrest.CoreMatchers.not;
 public class ClientsIT {
 
     private static StrimziKafkaContainer kafkaContainer;
-    private static KafkaProducer<String, String> kafkaProducer;
-    private static KafkaConsumer<String, String> kafkaConsumer;
+    private static KafkaProducer<String, byte[]> kafkaProducer;
+    private static KafkaConsumer<String, byte[]> kafkaConsumer;
     private static String topicName;
     private static Producer producer;
     private static Consumer consumer;
@@ -45,12 +47,12 @@ public class ClientsIT {
 
     @Test
     void testReceiveMessages() throws ExecutionException, InterruptedException {
-        int sentMessage = 1;
+        long sentMessage = 1;
         int triesCounter = 0;
-        Message generatedMessage = new Message("my-producer", sentMessage, System.currentTimeMillis());
+        Message generatedMessage = new Message("my-producer", SessionId.current(), sentMessage, System.currentTimeMillis(), System.nanoTime());
 
         LOGGER.info("Send one message to Kafka using official Kafka producer");
-        kafkaProducer.send(new ProducerRecord<>(topicName, 0, null, null, generatedMessage.getJsonMessage())).get();
+        kafkaProducer.send(new ProducerRecord<>(topicName, 0, null, null, PayloadFormat.JSON.createCodec().encode(generatedMessage))).get();
 
         LOGGER.info("First poll for fetching metadata about cluster");
         consumer.receiveMessages();
@@ -63,7 +65,7 @@ public class ClientsIT {
         }
 
         LOGGER.info("Check that message counter is increased");
-        assertThat(MessageCountHolder.getInstance().getConsumedMessagesCount(), is(not(0)));
+        assertThat(MessageCounters.getInstance().snapshot().consumed(), is(not(0L)));
     }
 
     @Test
@@ -82,7 +84,7 @@ public class ClientsIT {
         kafkaConsumer.poll(Duration.ofMillis(1000));
 
         LOGGER.info("Check that message counter is increased");
-        assertThat(MessageCountHolder.getInstance().getProducedMessagesCount(), is(sentMessage));
+        assertThat(MessageCounters.getInstance().snapshot().produced(), is(sentMessage));
     }
 
     @BeforeAll
@@ -0,0 +1,100 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package clients;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MessageCountersTest {
+
+    @Test
+    void testCountsArePerPartition() {
+        MessageCounters counters = new MessageCounters();
+
+        counters.incrementProduced(0);
+        counters.incrementProduced(0);
+        counters.incrementProduced(100);
+        counters.addConsumed(0, 1, 0);
+        counters.addConsumed(100, 0, 3);
+
+        assertThat(counters.snapshot(0), is(new MessageCounters.MessageCounts(2, 1, 0)));
+        assertThat(counters.snapshot(100), is(new MessageCounters.MessageCounts(1, 0, 3)));
+        assertThat(counters.snapshot(1), is(MessageCounters.MessageCounts.EMPTY));
+        assertThat(counters.snapshot(5000), is(MessageCounters.MessageCounts.EMPTY));
+        assertThat(counters.snapshot(), is(new MessageCounters.MessageCounts(3, 1, 3)));
+    }
+
+    @Test
+    void testCountsAreLong() {
+        MessageCounters counters = new MessageCounters();
+
+        counters.addConsumed(0, Integer.MAX_VALUE, 0);
+        counters.addConsumed(0, Integer.MAX_VALUE, 0);
+
+        assertThat(counters.snapshot().consumed(), is(2L * Integer.MAX_VALUE));
+    }
+
+    @Test
+    void testInvalidPartition() {
+        MessageCounters counters = new MessageCounters();
+
+        assertThrows(IllegalArgumentException.class, () -> counters.incrementProduced(-1));
+        assertThrows(IllegalArgumentException.class, () -> counters.snapshot(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void testConcurrentIncrementsAreNotLost() throws InterruptedException {
+        MessageCounters counters = new MessageCounters();
+        int increments = 100_000;
+        List<Thread> threads = new ArrayList<>();
+
+        // several producers share the partition, each consumer owns its own partition
+        for (int i = 0; i < 4; i++) {
+            int partition = i;
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < increments; j++) {
+                    counters.incrementProduced(0);
+                    counters.addConsumed(partition, 1, 0);
+                }
+            }));
+        }
+
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(counters.snapshot(0).produced(), is(4L * increments));
+        assertThat(counters.snapshot(), is(new MessageCounters.MessageCounts(4L * increments, 4L * increments, 0)));
+    }
+
+    @Test
+    void testSnapshotSeesWholeUpdates() throws InterruptedException {
+        MessageCounters counters = new MessageCounters();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread consumer = new Thread(() -> {
+            while (running.get()) {
+                counters.addConsumed(7, 1, 1);
+            }
+        });
+
+        consumer.start();
+
+        for (int i = 0; i < 100_000; i++) {
+            MessageCounters.MessageCounts counts = counters.snapshot(7);
+            assertThat(counts.consumed(), is(counts.lost()));
+        }
+
+        running.set(false);
+        consumer.join();
+    }
+}
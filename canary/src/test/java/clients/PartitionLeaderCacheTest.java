@@ -0,0 +1,91 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package clients;
+
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class PartitionLeaderCacheTest {
+    private static final String TOPIC = "__strimzi_canary";
+    private static final Node BROKER_0 = new Node(0, "broker-0", 9092);
+    private static final Node BROKER_1 = new Node(1, "broker-1", 9092);
+
+    @Test
+    void testLeadersAreRefreshedPeriodically() {
+        AtomicLong clock = new AtomicLong(0);
+        AtomicInteger refreshes = new AtomicInteger();
+        AtomicReference<List<PartitionInfo>> partitions = new AtomicReference<>(List.of(partition(0, BROKER_0), partition(1, BROKER_1)));
+        PartitionLeaderCache cache = new PartitionLeaderCache(() -> {
+            refreshes.incrementAndGet();
+            return partitions.get();
+        }, 1000, clock::get);
+
+        assertThat(cache.leaderOf(0), is("0"));
+        assertThat(cache.leaderOf(1), is("1"));
+        assertThat(refreshes.get(), is(1));
+
+        // partition 1 moved to broker 0, but the cache is still fresh
+        partitions.set(List.of(partition(0, BROKER_0), partition(1, BROKER_0)));
+        clock.set(999_000_000L);
+        assertThat(cache.leaderOf(1), is("1"));
+
+        clock.set(1_000_000_000L);
+        assertThat(cache.leaderOf(1), is("0"));
+        assertThat(refreshes.get(), is(2));
+    }
+
+    @Test
+    void testInvalidateForcesRefresh() {
+        AtomicReference<List<PartitionInfo>> partitions = new AtomicReference<>(List.of(partition(0, BROKER_0)));
+        PartitionLeaderCache cache = new PartitionLeaderCache(partitions::get, 60000, () -> 0);
+
+        assertThat(cache.leaderOf(0), is("0"));
+
+        partitions.set(List.of(partition(0, BROKER_1)));
+        cache.invalidate();
+        assertThat(cache.leaderOf(0), is("1"));
+    }
+
+    @Test
+    void testUnknownLeader() {
+        AtomicReference<List<PartitionInfo>> partitions = new AtomicReference<>(List.of(partition(0, null), partition(1, Node.noNode())));
+        PartitionLeaderCache cache = new PartitionLeaderCache(partitions::get, 1000, () -> 0);
+
+        assertThat(cache.leaderOf(0), is(PartitionLeaderCache.UNKNOWN_LEADER));
+        assertThat(cache.leaderOf(1), is(PartitionLeaderCache.UNKNOWN_LEADER));
+        assertThat(cache.leaderOf(2), is(PartitionLeaderCache.UNKNOWN_LEADER));
+    }
+
+    @Test
+    void testFailedRefreshKeepsPreviousLeaders() {
+        AtomicReference<List<PartitionInfo>> partitions = new AtomicReference<>(List.of(partition(0, BROKER_0)));
+        PartitionLeaderCache cache = new PartitionLeaderCache(() -> {
+            List<PartitionInfo> current = partitions.get();
+            if (current == null) {
+                throw new IllegalStateException("metadata not available");
+            }
+            return current;
+        }, 1000, () -> 0);
+
+        assertThat(cache.leaderOf(0), is("0"));
+
+        partitions.set(null);
+        cache.invalidate();
+        assertThat(cache.leaderOf(0), is("0"));
+    }
+
+    private static PartitionInfo partition(int partition, Node leader) {
+        return new PartitionInfo(TOPIC, partition, leader, new Node[0], new Node[0]);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package clients;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PartitionShardTest {
+
+    @Test
+    void testShardsOwnDisjointPartitions() {
+        List<PartitionShard> shards = PartitionShard.create(3);
+
+        assertThat(shards.get(0).ownedPartitions(7), is(List.of(0, 3, 6)));
+        assertThat(shards.get(1).ownedPartitions(7), is(List.of(1, 4)));
+        assertThat(shards.get(2).ownedPartitions(7), is(List.of(2, 5)));
+
+        for (int partition = 0; partition < 7; partition++) {
+            int owners = 0;
+            for (PartitionShard shard : shards) {
+                owners += shard.owns(partition) ? 1 : 0;
+            }
+            assertThat(owners, is(1));
+        }
+    }
+
+    @Test
+    void testOwnedPartitionCount() {
+        PartitionShard shard = new PartitionShard(2, 3);
+
+        assertThat(shard.ownedPartitionCount(2), is(0));
+        assertThat(shard.ownedPartitionCount(3), is(1));
+        assertThat(shard.ownedPartitionCount(7), is(2));
+        assertThat(shard.ownedPartitionCount(9), is(3));
+        assertThat(shard.partition(0), is(2));
+        assertThat(shard.partition(2), is(8));
+        assertThat(PartitionShard.ALL.ownedPartitionCount(5), is(5));
+    }
+
+    @Test
+    void testClientId() {
+        assertThat(PartitionShard.ALL.clientId("strimzi-canary-client"), is("strimzi-canary-client"));
+        assertThat(new PartitionShard(1, 2).clientId("strimzi-canary-client"), is("strimzi-canary-client-1"));
+    }
+
+    @Test
+    void testInvalidShard() {
+        assertThrows(IllegalArgumentException.class, () -> new PartitionShard(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new PartitionShard(2, 2));
+        assertThrows(IllegalArgumentException.class, () -> PartitionShard.create(0));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package clients;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RebalanceTrackerTest {
+    private final List<Double> timesToStable = new ArrayList<>();
+    private final List<Double> gaps = new ArrayList<>();
+    private final RebalanceTracker tracker = new RebalanceTracker(timesToStable::add, gaps::add);
+
+    private static long ms(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Test
+    void testEagerJoin() {
+        tracker.membershipChanged(List.of("a", "b"), ms(0));
+        tracker.assigned("a", List.of(0, 1), ms(100));
+        tracker.assigned("b", List.of(2), ms(100));
+        assertThat(timesToStable, is(List.of(100.0)));
+
+        // all the partitions are revoked and assigned again
+        tracker.membershipChanged(List.of("a", "b", "c"), ms(1000));
+        tracker.revoked("a", List.of(0, 1), ms(1010));
+        tracker.revoked("b", List.of(2), ms(1020));
+        tracker.assigned("a", List.of(0), ms(1100));
+        tracker.assigned("b", List.of(1), ms(1100));
+        assertThat(tracker.isChanging(), is(true));
+
+        tracker.assigned("c", List.of(2), ms(1200));
+
+        assertThat(tracker.isChanging(), is(false));
+        assertThat(timesToStable, is(List.of(100.0, 200.0)));
+        assertThat(gaps, is(List.of(90.0, 90.0, 180.0)));
+    }
+
+    @Test
+    void testCooperativeJoin() {
+        tracker.membershipChanged(List.of("a", "b"), ms(0));
+        tracker.assigned("a", List.of(0, 1), ms(100));
+        tracker.assigned("b", List.of(2), ms(100));
+
+        tracker.membershipChanged(List.of("a", "b", "c"), ms(1000));
+        // first rebalance revokes only the partition moving to the new member
+        tracker.revoked("a", List.of(1), ms(1100));
+        tracker.assigned("a", List.of(), ms(1100));
+        tracker.assigned("b", List.of(), ms(1100));
+        tracker.assigned("c", List.of(), ms(1100));
+        assertThat(tracker.isChanging(), is(true));
+
+        // second rebalance assigns it
+        tracker.assigned("c", List.of(1), ms(1300));
+
+        assertThat(timesToStable, is(List.of(100.0, 300.0)));
+        assertThat(gaps, is(List.of(200.0)));
+    }
+
+    @Test
+    void testMemberLeaves() {
+        tracker.membershipChanged(List.of("a", "b"), ms(0));
+        tracker.assigned("a", List.of(0), ms(100));
+        tracker.assigned("b", List.of(1), ms(100));
+
+        tracker.membershipChanged(List.of("a"), ms(1000));
+        tracker.revoked("b", List.of(1), ms(1000));
+        tracker.assigned("a", List.of(1), ms(1500));
+
+        assertThat(timesToStable, is(List.of(100.0, 500.0)));
+        assertThat(gaps, is(List.of(500.0)));
+    }
+}
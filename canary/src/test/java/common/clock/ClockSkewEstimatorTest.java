@@ -0,0 +1,56 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.clock;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ClockSkewEstimatorTest {
+
+    @Test
+    void testNoSample() {
+        ClockSkewEstimator estimator = new ClockSkewEstimator(60000);
+
+        assertThat(estimator.skew("0").isPresent(), is(false));
+    }
+
+    @Test
+    void testSkewFromTheMiddleOfTheRoundTrip() {
+        ClockSkewEstimator estimator = new ClockSkewEstimator(60000);
+
+        // broker clock is 100 ms ahead, the record was appended 5 ms after sending
+        estimator.addSample("0", 1000, 10, 1105);
+
+        assertThat(estimator.skew("0").getAsDouble(), is(100.0));
+        assertThat(estimator.skew("1").isPresent(), is(false));
+    }
+
+    @Test
+    void testShortestRoundTripWins() {
+        ClockSkewEstimator estimator = new ClockSkewEstimator(60000);
+
+        estimator.addSample("0", 1000, 2, 1101);
+        // the slow request was queued on the broker, so the estimate would be off
+        estimator.addSample("0", 2000, 200, 2180);
+
+        assertThat(estimator.skew("0").getAsDouble(), is(100.0));
+
+        estimator.addSample("0", 3000, 1, 3051);
+
+        assertThat(estimator.skew("0").getAsDouble(), is(50.5));
+    }
+
+    @Test
+    void testOldSampleIsReplaced() {
+        ClockSkewEstimator estimator = new ClockSkewEstimator(60000);
+
+        estimator.addSample("0", 1000, 2, 1101);
+        estimator.addSample("0", 62000, 20, 62010);
+
+        assertThat(estimator.skew("0").getAsDouble(), is(0.0));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ThreadModeTest {
+
+    @Test
+    void testThreadModeForName() {
+        assertThat(ThreadMode.forName("platform"), is(ThreadMode.PLATFORM));
+        assertThat(ThreadMode.forName("VIRTUAL"), is(ThreadMode.VIRTUAL));
+        assertThrows(IllegalArgumentException.class, () -> ThreadMode.forName("green"));
+    }
+
+    @Test
+    void testPlatformThread() {
+        Thread thread = ThreadMode.PLATFORM.newThread(() -> { }, "canary-consumer");
+
+        assertThat(thread.getName(), is("canary-consumer"));
+    }
+
+    @Test
+    void testVirtualModeRunsTasks() throws InterruptedException {
+        // falls back to the platform threads when the runtime doesn't support the virtual ones
+        ScheduledExecutorService executor = ThreadMode.VIRTUAL.newScheduledExecutor(1, "canary");
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<String> threadName = new AtomicReference<>();
+
+        try {
+            executor.schedule(() -> {
+                threadName.set(Thread.currentThread().getName());
+                latch.countDown();
+            }, 1, TimeUnit.MILLISECONDS);
+
+            assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+            assertThat(threadName.get(), startsWith("canary"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testVirtualModeBlockedTaskDoesNotDelayOthers() throws InterruptedException {
+        // a single thread would be taken by the blocked task in the platform mode
+        ScheduledExecutorService executor = ThreadMode.VIRTUAL.newScheduledExecutor(1, "canary");
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch statusChecks = new CountDownLatch(3);
+
+        try {
+            executor.scheduleAtFixedRate(() -> {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, 0, 10, TimeUnit.MILLISECONDS);
+            assertThat(blocked.await(10, TimeUnit.SECONDS), is(true));
+
+            executor.scheduleAtFixedRate(statusChecks::countDown, 0, 10, TimeUnit.MILLISECONDS);
+            assertThat(statusChecks.await(10, TimeUnit.SECONDS), is(true));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testVirtualModeStalledRunDoesNotShiftIntendedTimes() throws InterruptedException {
+        ScheduledExecutorService executor = ThreadMode.VIRTUAL.newScheduledExecutor(1, "canary");
+        long periodNanos = TimeUnit.MILLISECONDS.toNanos(50);
+        List<Long> runs = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(15);
+        long start = System.nanoTime();
+
+        try {
+            executor.scheduleAtFixedRate(() -> {
+                runs.add(System.nanoTime());
+                // the second run stalls for 5 ticks, they are caught up instead of dropped
+                if (runs.size() == 2) {
+                    try {
+                        Thread.sleep(250);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                done.countDown();
+            }, 0, 50, TimeUnit.MILLISECONDS);
+
+            assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+
+            // intended time counted from the runs, like in Producer.sendMessages, it would be 5 ticks too early with the dropped ticks
+            long intended = start + 14 * periodNanos;
+            assertThat(runs.get(14), greaterThanOrEqualTo(intended));
+            assertThat(runs.get(14) - intended, lessThan(2 * periodNanos));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class LatencyCorrectionTest {
+
+    @Test
+    void testNoBackfillWithoutOmittedProbes() {
+        DistributionSummary summary = createSummary();
+
+        assertThat(LatencyCorrection.recordWithExpectedInterval(summary, 5000, 100, 0), is(0L));
+        assertThat(summary.count(), is(1L));
+    }
+
+    @Test
+    void testBackfillIsLimitedByValueAndOmittedProbes() {
+        DistributionSummary summary = createSummary();
+
+        // 450 ms latency with 100 ms interval backfills 350, 250, 150
+        assertThat(LatencyCorrection.recordWithExpectedInterval(summary, 450, 100, 10), is(3L));
+        assertThat(summary.count(), is(4L));
+        assertThat(summary.totalAmount(), is(450.0 + 350.0 + 250.0 + 150.0));
+
+        // only 1 probe was omitted
+        assertThat(LatencyCorrection.recordWithExpectedInterval(summary, 450, 100, 1), is(1L));
+        // latency below the interval is never backfilled
+        assertThat(LatencyCorrection.recordWithExpectedInterval(summary, 50, 100, 10), is(0L));
+    }
+
+    @Test
+    void testOmittedProbes() {
+        assertThat(LatencyCorrection.omittedProbes(0, 1000, 100), is(0L));
+        assertThat(LatencyCorrection.omittedProbes(1000, 1100, 100), is(0L));
+        assertThat(LatencyCorrection.omittedProbes(1000, 1120, 100), is(0L));
+        assertThat(LatencyCorrection.omittedProbes(1000, 1500, 100), is(4L));
+        assertThat(LatencyCorrection.omittedProbes(1500, 1000, 100), is(0L));
+    }
+
+    private DistributionSummary createSummary() {
+        return DistributionSummary.builder("test").register(new SimpleMeterRegistry());
+    }
+}
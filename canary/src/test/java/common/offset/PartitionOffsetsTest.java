@@ -0,0 +1,42 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.offset;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class PartitionOffsetsTest {
+
+    @Test
+    void testLag() {
+        assertThat(new PartitionOffsets(0, 100, PartitionOffsets.NO_OFFSET, 90).lag(), is(10.0));
+        assertThat(new PartitionOffsets(0, 100, PartitionOffsets.NO_OFFSET, 100).lag(), is(0.0));
+    }
+
+    @Test
+    void testLagBehindLogStart() {
+        // consumed offset was already deleted by the retention
+        assertThat(new PartitionOffsets(50, 100, PartitionOffsets.NO_OFFSET, 20).lag(), is(50.0));
+    }
+
+    @Test
+    void testNothingConsumed() {
+        assertThat(Double.isNaN(new PartitionOffsets(0, 100, 90, PartitionOffsets.NO_OFFSET).lag()), is(true));
+    }
+
+    @Test
+    void testCommittedLag() {
+        // the consumer is ahead of the committed offset
+        assertThat(new PartitionOffsets(0, 100, 90, 100).committedLag(), is(10.0));
+        assertThat(new PartitionOffsets(50, 100, 20, 100).committedLag(), is(50.0));
+    }
+
+    @Test
+    void testNoCommittedOffset() {
+        assertThat(Double.isNaN(new PartitionOffsets(0, 100, PartitionOffsets.NO_OFFSET, 100).committedLag()), is(true));
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.payload;
+
+import common.Message;
+import common.SessionId;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MessageCodecTest {
+    private static final Message MESSAGE = new Message("strimzi-canary-client", 5981446133L, 3, 1667917402713L, 80514616743L);
+
+    @Test
+    void testJsonRoundTrip() {
+        MessageCodec codec = PayloadFormat.JSON.createCodec();
+        byte[] payload = codec.encode(MESSAGE);
+
+        assertThat(new String(payload, StandardCharsets.UTF_8), is(MESSAGE.getJsonMessage()));
+        assertThat(codec.decode(payload), is(MESSAGE));
+    }
+
+    @Test
+    void testJsonDecodeAcceptsNumbersAndUnknownFields() {
+        MessageCodec codec = PayloadFormat.JSON.createCodec();
+        String json = "{\"timestamp\":1667917402713,\"extra\":{\"nested\":[1,2]},\"producerId\":\"strimzi-canary-client\",\"messageId\":3,\"sessionId\":5981446133,\"nanoTime\":80514616743}";
+
+        assertThat(codec.decode(json.getBytes(StandardCharsets.UTF_8)), is(MESSAGE));
+    }
+
+    @Test
+    void testJsonDecodeWithoutSessionId() {
+        MessageCodec codec = PayloadFormat.JSON.createCodec();
+        String json = "{\"producerId\":\"strimzi-canary-client\",\"messageId\":\"3\",\"timestamp\":\"1667917402713\"}";
+
+        assertThat(codec.decode(json.getBytes(StandardCharsets.UTF_8)), is(new Message("strimzi-canary-client", SessionId.UNKNOWN, 3, 1667917402713L, 0)));
+    }
+
+    @Test
+    void testJsonDecodeLongLimits() {
+        MessageCodec codec = PayloadFormat.JSON.createCodec();
+        String json = "{\"producerId\":\"p\",\"sessionId\":\"" + Long.MAX_VALUE + "\",\"messageId\":\"1\",\"timestamp\":\"1\"}";
+        String overflow = "{\"producerId\":\"p\",\"sessionId\":\"9223372036854775808\",\"messageId\":\"1\",\"timestamp\":\"1\"}";
+
+        assertThat(codec.decode(json.getBytes(StandardCharsets.UTF_8)).sessionId(), is(Long.MAX_VALUE));
+        assertThrows(MalformedPayloadException.class, () -> codec.decode(overflow.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testJsonDecodeRejectsMalformedPayload() {
+        MessageCodec codec = PayloadFormat.JSON.createCodec();
+
+        assertThrows(MalformedPayloadException.class, () -> codec.decode(null));
+        assertThrows(MalformedPayloadException.class, () -> codec.decode("not json".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(MalformedPayloadException.class, () -> codec.decode("[1,2]".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(MalformedPayloadException.class, () -> codec.decode("{\"producerId\":\"p\",\"messageId\":\"1\"}".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(MalformedPayloadException.class, () -> codec.decode("{\"producerId\":\"p\",\"messageId\":\"x1\",\"timestamp\":\"1\"}".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(MalformedPayloadException.class, () -> codec.decode("{\"producerId\":\"p\",\"messageId\":\"1\",\"timestamp\":true}".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(MalformedPayloadException.class, () -> codec.decode("{\"producerId\":\"p\",\"messageId\":\"1\",\"timest".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testBinaryRoundTrip() {
+        MessageCodec codec = PayloadFormat.BINARY.createCodec();
+        byte[] payload = codec.encode(MESSAGE);
+
+        assertThat(payload.length, is(BinaryMessageCodec.HEADER_SIZE + MESSAGE.producerId().length()));
+        assertThat(codec.decode(payload), is(MESSAGE));
+        // second decode goes through the cached producer id
+        assertThat(codec.decode(payload), is(MESSAGE));
+        assertThat(codec.decode(codec.encode(new Message("other-producer", 7L, 4, 1L, 2L))), is(new Message("other-producer", 7L, 4, 1L, 2L)));
+    }
+
+    @Test
+    void testBinaryLayoutIsLittleEndian() {
+        byte[] payload = PayloadFormat.BINARY.createCodec().encode(MESSAGE);
+        ByteBuffer buffer = ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN);
+
+        assertThat(buffer.get(), is(BinaryMessageCodec.MAGIC));
+        assertThat(buffer.get(), is(BinaryMessageCodec.VERSION));
+        assertThat(buffer.getLong(), is(MESSAGE.sessionId()));
+        assertThat(buffer.getLong(), is(MESSAGE.messageId()));
+        assertThat(buffer.getLong(), is(MESSAGE.timestamp()));
+        assertThat(buffer.getLong(), is(MESSAGE.nanoTime()));
+        assertThat((int) buffer.getShort(), is(MESSAGE.producerId().length()));
+    }
+
+    @Test
+    void testBinaryDecodesVersion1() {
+        ByteBuffer buffer = ByteBuffer.allocate(16 + MESSAGE.producerId().length()).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.put(BinaryMessageCodec.MAGIC);
+        buffer.put((byte) 1);
+        buffer.putInt(3);
+        buffer.putLong(MESSAGE.timestamp());
+        buffer.putShort((short) MESSAGE.producerId().length());
+        buffer.put(MESSAGE.producerId().getBytes(StandardCharsets.UTF_8));
+
+        assertThat(PayloadFormat.BINARY.createCodec().decode(buffer.array()), is(new Message(MESSAGE.producerId(), SessionId.UNKNOWN, 3, MESSAGE.timestamp(), 0)));
+    }
+
+    @Test
+    void testBinaryEncodeIntoByteBuffer() {
+        BinaryMessageCodec codec = new BinaryMessageCodec();
+        ByteBuffer buffer = ByteBuffer.allocate(codec.encodedSize(MESSAGE) + 4).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.putInt(42);
+        codec.encode(MESSAGE, buffer);
+        buffer.flip();
+        buffer.getInt();
+
+        assertThat(codec.decode(buffer), is(MESSAGE));
+        assertThat(buffer.hasRemaining(), is(false));
+    }
+
+    @Test
+    void testBinaryDecodeRejectsInvalidPayload() {
+        MessageCodec codec = PayloadFormat.BINARY.createCodec();
+        byte[] payload = codec.encode(MESSAGE);
+
+        assertThrows(MalformedPayloadException.class, () -> codec.decode(new byte[] {1, 2, 3}));
+        assertThrows(MalformedPayloadException.class, () -> codec.decode(MESSAGE.getJsonMessage().getBytes(StandardCharsets.UTF_8)));
+
+        byte[] truncated = new byte[payload.length - 1];
+        System.arraycopy(payload, 0, truncated, 0, truncated.length);
+        assertThrows(MalformedPayloadException.class, () -> codec.decode(truncated));
+    }
+
+    @Test
+    void testPayloadFormatForName() {
+        assertThat(PayloadFormat.forName("json"), is(PayloadFormat.JSON));
+        assertThat(PayloadFormat.forName("BINARY"), is(PayloadFormat.BINARY));
+        assertThrows(IllegalArgumentException.class, () -> PayloadFormat.forName("avro"));
+    }
+}
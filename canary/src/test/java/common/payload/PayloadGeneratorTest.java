@@ -0,0 +1,80 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.payload;
+
+import common.Message;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class PayloadGeneratorTest {
+    private static final int MAX_SIZE = 64 * 1024;
+    private static final String PRODUCER_ID = "strimzi-canary-client";
+
+    @Test
+    void testPaddedPayloadRoundTrip() {
+        for (PayloadFormat format : PayloadFormat.values()) {
+            MessageCodec codec = format.createCodec();
+            PayloadGenerator generator = createGenerator(codec, 10000);
+
+            Message message = new Message(PRODUCER_ID, 1L, 7, 1667917402713L, 80514616743L);
+            byte[] payload = generator.generate(message);
+
+            assertThat(payload.length, is(10000));
+            assertThat(codec.decode(payload), is(message));
+        }
+    }
+
+    @Test
+    void testSmallSizeIsNotPadded() {
+        MessageCodec codec = PayloadFormat.JSON.createCodec();
+        Message message = new Message(PRODUCER_ID, 1L, 7, 1667917402713L, 80514616743L);
+
+        assertThat(createGenerator(codec, 10).generate(message), is(codec.encode(message)));
+    }
+
+    @Test
+    void testRecycledBufferIsReusedAndClean() {
+        MessageCodec codec = PayloadFormat.JSON.createCodec();
+        PayloadGenerator generator = createGenerator(codec, 4096);
+
+        byte[] first = generator.generate(new Message(PRODUCER_ID, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE));
+        generator.recycle(first);
+
+        // shorter header than the previous message, leftovers of the previous header would break the JSON
+        Message message = new Message(PRODUCER_ID, 1L, 1, 2, 3);
+        byte[] second = generator.generate(message);
+
+        assertThat(second, sameInstance(first));
+        assertThat(codec.decode(second), is(message));
+    }
+
+    @Test
+    void testPoolKeepsOnlyBuffersWithinBudget() {
+        PayloadBufferPool pool = new PayloadBufferPool(MAX_SIZE, 3000);
+        byte[] first = pool.acquire(2000);
+        byte[] second = pool.acquire(2000);
+
+        pool.release(first, 0, 0);
+        pool.release(second, 0, 0);
+        assertThat(pool.getPooledBytes(), is(2000L));
+
+        // small buffers are never pooled
+        byte[] small = pool.acquire(100);
+        pool.release(small, 0, 0);
+        assertThat(pool.acquire(100), not(sameInstance(small)));
+
+        assertThat(pool.acquire(2000), sameInstance(first));
+        assertThat(pool.getPooledBytes(), is(0L));
+    }
+
+    private PayloadGenerator createGenerator(MessageCodec codec, int size) {
+        PayloadSizer sizer = new PayloadSizer(PayloadSizeDistribution.FIXED, new int[] {size}, 1.0, MAX_SIZE);
+        return new PayloadGenerator(codec, sizer, new PayloadBufferPool(MAX_SIZE, MAX_SIZE), PRODUCER_ID);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.payload;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.isOneOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PayloadSizerTest {
+    private static final int MAX_SIZE = 1024 * 1024;
+
+    @Test
+    void testNoPadding() {
+        PayloadSizer sizer = new PayloadSizer(PayloadSizeDistribution.FIXED, new int[0], 1.0, MAX_SIZE);
+
+        assertThat(sizer.nextSize(), is(0));
+    }
+
+    @Test
+    void testFixedSizeIsCappedByMaxSize() {
+        assertThat(new PayloadSizer(PayloadSizeDistribution.FIXED, new int[] {1000}, 1.0, MAX_SIZE).nextSize(), is(1000));
+        assertThat(new PayloadSizer(PayloadSizeDistribution.FIXED, new int[] {2 * MAX_SIZE}, 1.0, MAX_SIZE).nextSize(), is(MAX_SIZE));
+    }
+
+    @Test
+    void testUniformAndLognormalStayInBounds() {
+        PayloadSizer uniform = new PayloadSizer(PayloadSizeDistribution.UNIFORM, new int[] {100, 50000}, 1.0, MAX_SIZE);
+        PayloadSizer lognormal = new PayloadSizer(PayloadSizeDistribution.LOGNORMAL, new int[] {4096}, 3.0, MAX_SIZE);
+
+        for (int i = 0; i < 10000; i++) {
+            assertThat(uniform.nextSize(), greaterThanOrEqualTo(100));
+            assertThat(uniform.nextSize(), lessThanOrEqualTo(50000));
+            assertThat(lognormal.nextSize(), greaterThanOrEqualTo(1));
+            assertThat(lognormal.nextSize(), lessThanOrEqualTo(MAX_SIZE));
+        }
+    }
+
+    @Test
+    void testListSizes() {
+        PayloadSizer sizer = new PayloadSizer(PayloadSizeDistribution.LIST, new int[] {100, 10000, 500000}, 1.0, MAX_SIZE);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(sizer.nextSize(), isOneOf(100, 10000, 500000));
+        }
+    }
+
+    @Test
+    void testQuantize() {
+        assertThat(PayloadSizer.quantize(1000, MAX_SIZE), is(1000));
+        assertThat(PayloadSizer.quantize(1024, MAX_SIZE), is(1024));
+        assertThat(PayloadSizer.quantize(1025, MAX_SIZE), is(1152));
+        assertThat(PayloadSizer.quantize(100000, MAX_SIZE), is(106496));
+        assertThat(PayloadSizer.quantize(MAX_SIZE - 1, MAX_SIZE - 1), is(MAX_SIZE - 1));
+    }
+
+    @Test
+    void testSizeClass() {
+        assertThat(PayloadSizer.sizeClass(60), is("256B"));
+        assertThat(PayloadSizer.sizeClass(1024), is("1KiB"));
+        assertThat(PayloadSizer.sizeClass(1025), is("4KiB"));
+        assertThat(PayloadSizer.sizeClass(1000000), is("1MiB"));
+        assertThat(PayloadSizer.sizeClass(2000000), is("large"));
+    }
+
+    @Test
+    void testMaxPayloadSize() {
+        assertThat(PayloadSizer.maxPayloadSize(null), is(1024 * 1024 - 1024));
+        assertThat(PayloadSizer.maxPayloadSize(Map.of("max.message.bytes", "65536")), is(65536 - 1024));
+    }
+
+    @Test
+    void testValidateSizes() {
+        PayloadSizeDistribution.FIXED.validateSizes(new int[0]);
+        PayloadSizeDistribution.LOGNORMAL.validateSizes(new int[] {1000});
+        PayloadSizeDistribution.LIST.validateSizes(new int[] {1000, 10, 100});
+
+        assertThrows(IllegalArgumentException.class, () -> PayloadSizeDistribution.FIXED.validateSizes(new int[] {10, 20}));
+        assertThrows(IllegalArgumentException.class, () -> PayloadSizeDistribution.UNIFORM.validateSizes(new int[] {10}));
+        assertThrows(IllegalArgumentException.class, () -> PayloadSizeDistribution.UNIFORM.validateSizes(new int[] {20, 10}));
+        assertThrows(IllegalArgumentException.class, () -> PayloadSizeDistribution.LIST.validateSizes(new int[] {20, -10}));
+    }
+}
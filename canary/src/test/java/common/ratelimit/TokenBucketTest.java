@@ -0,0 +1,61 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TokenBucketTest {
+
+    @Test
+    void testTokensAreScheduledAtFixedInterval() {
+        AtomicLong clock = new AtomicLong(1000);
+        TokenBucket bucket = new TokenBucket(1000, 10, clock::get);
+
+        assertThat(bucket.getTokenIntervalNanos(), is(1_000_000L));
+        assertThat(bucket.next(), is(1000L));
+        assertThat(bucket.next(), is(1_001_000L));
+        assertThat(bucket.next(), is(2_001_000L));
+    }
+
+    @Test
+    void testStalledCallerGetsBacklogUpToCapacity() {
+        AtomicLong clock = new AtomicLong(0);
+        TokenBucket bucket = new TokenBucket(1000, 3, clock::get);
+
+        bucket.next();
+        // caller stalled for 100 tokens, only 3 of them are handed out immediately
+        clock.set(100_000_000L);
+
+        assertThat(bucket.next(), is(97_000_000L));
+        assertThat(bucket.getOmittedTokens(), is(96L));
+        assertThat(bucket.next(), is(98_000_000L));
+        assertThat(bucket.next(), is(99_000_000L));
+        assertThat(bucket.next(), is(100_000_000L));
+        assertThat(bucket.next(), is(101_000_000L));
+        assertThat(bucket.getOmittedTokens(), is(96L));
+    }
+
+    @Test
+    void testAcquireWaitsForScheduledTime() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(200, 1);
+
+        bucket.acquire();
+        long scheduled = bucket.acquire();
+
+        assertThat(System.nanoTime(), greaterThanOrEqualTo(scheduled));
+    }
+
+    @Test
+    void testInvalidRate() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+    }
+}
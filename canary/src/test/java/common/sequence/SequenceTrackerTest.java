@@ -0,0 +1,149 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.sequence;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SequenceTrackerTest {
+
+    @Test
+    void testInOrderSequenceHasNoLoss() {
+        SequenceTracker tracker = new SequenceTracker(4);
+
+        for (long sequence = 10; sequence < 100; sequence++) {
+            assertThat(tracker.record(sequence), is(SequenceTracker.Outcome.IN_ORDER));
+        }
+        assertThat(tracker.pollLost(), is(0L));
+    }
+
+    @Test
+    void testMissingSequenceIsLostWhenLeavingWindow() {
+        SequenceTracker tracker = new SequenceTracker(4);
+
+        tracker.record(0);
+        tracker.record(2);
+        tracker.record(3);
+        // 1 is still within the window
+        assertThat(tracker.pollLost(), is(0L));
+
+        tracker.record(4);
+        tracker.record(5);
+        assertThat(tracker.pollLost(), is(1L));
+        assertThat(tracker.pollLost(), is(0L));
+    }
+
+    @Test
+    void testReorderedSequenceWithinWindow() {
+        SequenceTracker tracker = new SequenceTracker(4);
+
+        tracker.record(0);
+        tracker.record(2);
+        assertThat(tracker.record(1), is(SequenceTracker.Outcome.OUT_OF_ORDER));
+        assertThat(tracker.record(1), is(SequenceTracker.Outcome.DUPLICATE));
+        assertThat(tracker.record(2), is(SequenceTracker.Outcome.DUPLICATE));
+
+        for (long sequence = 3; sequence < 20; sequence++) {
+            tracker.record(sequence);
+        }
+        assertThat(tracker.pollLost(), is(0L));
+        // too old to be told apart from a duplicate
+        assertThat(tracker.record(1), is(SequenceTracker.Outcome.EXPIRED));
+    }
+
+    @Test
+    void testMissingSequenceIsLostAfterDeadline() {
+        SequenceTracker tracker = new SequenceTracker(32, 1000, sequence -> false);
+
+        tracker.record(0, 0);
+        tracker.record(3, 100);
+        // 1 and 2 are still within the window, the partition delivers nothing more
+        tracker.expire(1099);
+        assertThat(tracker.pollLost(), is(0L));
+
+        tracker.expire(1100);
+        assertThat(tracker.pollLost(), is(2L));
+
+        // counted as lost already, neither when it arrives nor when it leaves the window
+        assertThat(tracker.record(1, 1200), is(SequenceTracker.Outcome.EXPIRED));
+        for (long sequence = 4; sequence < 100; sequence++) {
+            tracker.record(sequence, 1300);
+        }
+        assertThat(tracker.pollLost(), is(0L));
+    }
+
+    @Test
+    void testFailedSendsAreNotLost() {
+        SequenceTracker tracker = new SequenceTracker(4, 1000, sequence -> sequence == 2 || sequence == 20);
+
+        tracker.record(0, 0);
+        tracker.record(3, 0);
+        tracker.expire(1000);
+        // 1 is lost, 2 was never sent
+        assertThat(tracker.pollLost(), is(1L));
+
+        tracker.record(30, 0);
+        // 4..26 are skipped over completely, they are lost except 20
+        assertThat(tracker.pollLost(), is(22L));
+
+        // 27..29 are still in the window
+        tracker.expire(1000);
+        assertThat(tracker.pollLost(), is(3L));
+    }
+
+    @Test
+    void testJumpOverWholeWindow() {
+        SequenceTracker tracker = new SequenceTracker(64);
+
+        tracker.record(0);
+        tracker.record(1);
+        // 2..100 are lost, 101..163 are still in the window
+        tracker.record(164);
+        assertThat(tracker.pollLost(), is(99L));
+
+        tracker.record(300);
+        // 101..163 left the window, 165..236 are skipped over completely
+        assertThat(tracker.pollLost(), is(63L + 72L));
+    }
+
+    @Test
+    void testSequencesBeforeFirstAreNotLost() {
+        SequenceTracker tracker = new SequenceTracker(4);
+
+        tracker.record(100);
+        tracker.record(101);
+        tracker.record(200);
+        // 102..196 are lost, 0..99 were never tracked
+        assertThat(tracker.pollLost(), is(95L));
+        assertThat(tracker.record(99), is(SequenceTracker.Outcome.OUT_OF_ORDER));
+    }
+
+    @Test
+    void testSettledBelow() {
+        SequenceTracker tracker = new SequenceTracker(8, 1000, sequence -> false);
+        assertThat(tracker.getSettledBelow(), is(-1L));
+
+        tracker.record(10, 0);
+        tracker.record(13, 0);
+        // 11 and 12 are still pending
+        tracker.expire(500);
+        assertThat(tracker.getSettledBelow(), is(11L));
+
+        tracker.expire(1000);
+        assertThat(tracker.getSettledBelow(), is(13L));
+
+        tracker.record(30, 1000);
+        // everything below the window is settled, the pending ones in it are not
+        assertThat(tracker.getSettledBelow(), is(23L));
+    }
+
+    @Test
+    void testInvalidWindowSize() {
+        assertThrows(IllegalArgumentException.class, () -> new SequenceTracker(0));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.timewindow;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class HistogramRingTest {
+
+    @Test
+    void testEmptyRing() {
+        HistogramRing ring = new HistogramRing(60000, 20000);
+
+        assertThat(ring.getCount(), is(0L));
+        assertThat(ring.getWindow(60000), is(nullValue()));
+    }
+
+    @Test
+    void testWindowMergesLastIntervals() {
+        HistogramRing ring = new HistogramRing(60000, 20000);
+        Recorder recorder = new Recorder(2);
+
+        // interval values 1, 2, 3 and 4, only the last three intervals fit into the ring
+        for (int interval = 1; interval <= 4; interval++) {
+            for (int i = 0; i < 100; i++) {
+                recorder.recordValue(interval * 1000L);
+            }
+            ring.putInterval(recorder);
+        }
+
+        assertThat(ring.getCount(), is(3L));
+
+        Histogram last = ring.getWindow(20000);
+        assertThat(last.getTotalCount(), is(100L));
+        assertThat(last.getMinValue(), is(last.lowestEquivalentValue(4000)));
+
+        Histogram all = ring.getWindow(3_600_000);
+        assertThat(all.getTotalCount(), is(300L));
+        assertThat(all.getMinValue(), is(all.lowestEquivalentValue(2000)));
+        assertThat(all.getValueAtPercentile(50), is(all.highestEquivalentValue(3000)));
+        assertThat(all.getMaxValue(), is(all.highestEquivalentValue(4000)));
+    }
+
+    @Test
+    void testEmptyIntervalIsKept() {
+        HistogramRing ring = new HistogramRing(60000, 20000);
+        Recorder recorder = new Recorder(2);
+
+        recorder.recordValue(1000);
+        ring.putInterval(recorder);
+        ring.putInterval(recorder);
+
+        assertThat(ring.getWindow(20000).getTotalCount(), is(0L));
+        assertThat(ring.getWindow(40000).getTotalCount(), is(1L));
+    }
+
+    @Test
+    void testViewIsNotChangedByLaterIntervals() {
+        HistogramRing ring = new HistogramRing(40000, 20000, 1, 0);
+        Recorder recorder = new Recorder(2);
+
+        recorder.recordValue(1000);
+        ring.putInterval(recorder);
+        long view = 1;
+
+        recorder.recordValue(2000);
+        recorder.recordValue(2000);
+        ring.putInterval(recorder);
+
+        assertThat(ring.getWindow(40000).getTotalCount(), is(3L));
+        assertThat(ring.getWindow(40000, view).getTotalCount(), is(1L));
+        assertThat(ring.getWindow(40000, view).getMaxValue(), is(ring.getWindow(40000, view).highestEquivalentValue(1000)));
+    }
+
+    @Test
+    void testRingStartingAtLaterInterval() {
+        HistogramRing ring = new HistogramRing(60000, 20000, 1, 5);
+        Recorder recorder = new Recorder(2);
+
+        recorder.recordValue(1000);
+        ring.putInterval(recorder);
+
+        assertThat(ring.getCount(), is(1L));
+        // the views taken before the first interval of the ring
+        assertThat(ring.getWindow(60000, 5), is(nullValue()));
+        assertThat(ring.getWindow(60000, 6).getTotalCount(), is(1L));
+    }
+}
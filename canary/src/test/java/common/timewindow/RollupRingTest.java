@@ -0,0 +1,79 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package common.timewindow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RollupRingTest {
+
+    @Test
+    void testLevelResolutions() {
+        assertThat(new RollupRing(30000).getResolutions(), is(List.of(30000L, 600000L, 7200000L)));
+        assertThat(new RollupRing(1000).getResolutions(), is(List.of(1000L, 30000L, 600000L, 7200000L)));
+        // rounded down to a multiple of the previous level
+        assertThat(new RollupRing(7000, List.of(30000L, 10000L)).getResolutions(), is(List.of(7000L, 28000L)));
+    }
+
+    @Test
+    void testEmptyRing() {
+        RollupRing ring = new RollupRing(1000, List.of(10000L));
+
+        assertThat(ring.isEmpty(), is(true));
+        assertThat(ring.getWindow(5000), is(nullValue()));
+        assertThat(ring.getWindow(3_600_000), is(nullValue()));
+    }
+
+    @Test
+    void testWindowIsServedByFinestCoveringLevel() {
+        RollupRing ring = new RollupRing(1000, List.of(10000L));
+
+        // counter growing by 2 every second for 1000 seconds
+        for (int i = 0; i <= 1000; i++) {
+            ring.putValue(2L * i);
+        }
+
+        assertThat(ring.isEmpty(), is(false));
+        // first level keeps the last 384 seconds
+        assertThat(ring.getWindow(60000), is(new RollupRing.Window(60000, 118)));
+        assertThat(ring.getWindow(384000), is(new RollupRing.Window(384000, 766)));
+        // 10 seconds resolution for the longer windows
+        assertThat(ring.getWindow(600000), is(new RollupRing.Window(600000, 1180)));
+        // only 100 values on the coarse level so far
+        assertThat(ring.getWindow(3_600_000), is(new RollupRing.Window(1000000, 1980)));
+    }
+
+    @Test
+    void testWindowShorterThanResolution() {
+        RollupRing ring = new RollupRing(1000, List.of());
+
+        ring.putValue(5);
+        ring.putValue(7);
+
+        assertThat(ring.getWindow(1), is(new RollupRing.Window(1000, 0)));
+        assertThat(ring.getWindow(2000), is(new RollupRing.Window(2000, 2)));
+    }
+
+    @Test
+    void testWindowOfView() {
+        RollupRing ring = new RollupRing(1000, List.of(10000L), 2);
+
+        for (int i = 0; i < 25; i++) {
+            ring.putValue((long) i * i);
+        }
+
+        assertThat(ring.getWritten(), is(25L));
+        assertThat(ring.getWindow(5000), is(new RollupRing.Window(5000, 576 - 400)));
+        assertThat(ring.getWindow(5000, 23), is(new RollupRing.Window(5000, 484 - 324)));
+        // the coarse level had only one value after 19 values
+        assertThat(ring.getWindow(400000), is(new RollupRing.Window(20000, 361 - 81)));
+        assertThat(ring.getWindow(400000, 19), is(new RollupRing.Window(10000, 0)));
+    }
+}
@@ -69,4 +69,23 @@ public class TimeWindowRingTest {
         assertThat(timeWindowRing.getHead(), is(3L));
         assertThat(timeWindowRing.getTail(), is(1L));
     }
+
+    @Test
+    void testTimeWindowRingView() {
+        TimeWindowRing timeWindowRing = new TimeWindowRing(60000, 20000, 1);
+
+        for (int i = 0; i < 4; i++) {
+            timeWindowRing.putValue(i);
+        }
+
+        assertThat(timeWindowRing.getBuffer().length, is(4));
+        assertThat(timeWindowRing.getWritten(), is(4L));
+        assertThat(timeWindowRing.getCount(), is(3L));
+        assertThat(timeWindowRing.getTail(), is(1L));
+
+        // the view before the last value keeps its whole time window
+        assertThat(timeWindowRing.getCount(3), is(3L));
+        assertThat(timeWindowRing.getValue(0, 3), is(2L));
+        assertThat(timeWindowRing.getValue(2, 3), is(0L));
+    }
 }
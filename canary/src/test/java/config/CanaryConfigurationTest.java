@@ -4,11 +4,17 @@
  */
 package config;
 
+import common.concurrent.ThreadMode;
+import common.offset.OffsetCommitMode;
+import common.offset.StartupPolicy;
+import common.payload.PayloadFormat;
+import common.payload.PayloadSizeDistribution;
 import common.security.SaslType;
 import org.junit.jupiter.api.Test;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.CoreMatchers.is;
@@ -20,8 +26,8 @@ public class CanaryConfigurationTest {
     @Test
     void testDefaultCanaryConfiguration() {
         CanaryConfiguration canaryConfiguration = CanaryConfiguration.fromMap(Collections.emptyMap());
-        double[] defaultProducerLatencyBuckets = {2.0, 5.0, 10.0, 20.0, 50.0, 100.0, 200.0, 400.0};
-        double[] defaultE2ELatencyBuckets = {5.0, 10.0, 20.0, 50.0, 100.0, 200.0, 400.0, 800.0};
+        double[] defaultProducerLatencyBuckets = {0.25, 0.5, 1.0, 2.0, 5.0, 10.0, 20.0, 50.0, 100.0, 200.0, 400.0};
+        double[] defaultE2ELatencyBuckets = {0.5, 1.0, 2.0, 5.0, 10.0, 20.0, 50.0, 100.0, 200.0, 400.0, 800.0};
 
         assertThat(canaryConfiguration.getBootstrapServers(), is(CanaryConstants.BOOTSTRAP_SERVERS_DEFAULT));
         assertThat(canaryConfiguration.getTopic(), is(CanaryConstants.TOPIC_DEFAULT));
@@ -41,6 +47,27 @@ public class CanaryConfigurationTest {
         assertThat(canaryConfiguration.getSaslPassword(), is(""));
         assertThat(canaryConfiguration.getStatusCheckInterval(), is(CanaryConstants.STATUS_CHECK_INTERVAL_MS_DEFAULT));
         assertThat(canaryConfiguration.getStatusTimeWindow(), is(CanaryConstants.STATUS_TIME_WINDOW_MS_DEFAULT));
+        assertThat(canaryConfiguration.getPayloadFormat(), is(PayloadFormat.JSON));
+        assertThat(canaryConfiguration.getPayloadSizeDistribution(), is(PayloadSizeDistribution.FIXED));
+        assertThat(canaryConfiguration.getPayloadSizes(), is(new int[0]));
+        assertThat(canaryConfiguration.getPayloadSizeSigma(), is(CanaryConstants.PAYLOAD_SIZE_SIGMA_DEFAULT));
+        assertThat(canaryConfiguration.getProducerRatePerPartition(), is(CanaryConstants.PRODUCER_RATE_PER_PARTITION_DEFAULT));
+        assertThat(canaryConfiguration.getSequenceWindowSize(), is(CanaryConstants.SEQUENCE_WINDOW_SIZE_DEFAULT));
+        assertThat(canaryConfiguration.getLeadershipReconcileInterval(), is(CanaryConstants.LEADERSHIP_RECONCILE_INTERVAL_MS_DEFAULT));
+        assertThat(canaryConfiguration.getThreadMode(), is(ThreadMode.PLATFORM));
+        assertThat(canaryConfiguration.getProducerMaxInFlightPerPartition(), is(CanaryConstants.PRODUCER_MAX_IN_FLIGHT_PER_PARTITION_DEFAULT));
+        assertThat(canaryConfiguration.getOffsetCommitMode(), is(OffsetCommitMode.NONE));
+        assertThat(canaryConfiguration.getOffsetCommitInterval(), is(CanaryConstants.OFFSET_COMMIT_INTERVAL_MS_DEFAULT));
+        assertThat(canaryConfiguration.getGroupCoordinatorProbeInterval(), is(CanaryConstants.GROUP_COORDINATOR_PROBE_INTERVAL_MS_DEFAULT));
+        assertThat(canaryConfiguration.getProducerShards(), is(CanaryConstants.PRODUCER_SHARDS_DEFAULT));
+        assertThat(canaryConfiguration.getConsumerThreads(), is(CanaryConstants.CONSUMER_THREADS_DEFAULT));
+        assertThat(canaryConfiguration.getRebalanceProbeInterval(), is(CanaryConstants.REBALANCE_PROBE_INTERVAL_MS_DEFAULT));
+        assertThat(canaryConfiguration.getFollowerFetchRacks(), is(List.of()));
+        assertThat(canaryConfiguration.getOffsetsExportInterval(), is(CanaryConstants.OFFSETS_EXPORT_INTERVAL_MS_DEFAULT));
+        assertThat(canaryConfiguration.getCatchUpProbeInterval(), is(CanaryConstants.CATCH_UP_PROBE_INTERVAL_MS_DEFAULT));
+        assertThat(canaryConfiguration.getCatchUpProbeLookback(), is(CanaryConstants.CATCH_UP_PROBE_LOOKBACK_MS_DEFAULT));
+        assertThat(canaryConfiguration.getConsumerStartupPolicy(), is(StartupPolicy.COMMITTED));
+        assertThat(canaryConfiguration.getConsumerStartupLookback(), is(CanaryConstants.CONSUMER_STARTUP_LOOKBACK_MS_DEFAULT));
     }
 
     @Test
@@ -75,6 +102,17 @@ public class CanaryConfigurationTest {
         long statusTimeWindow = 65523;
         String statusTimeWindowString = "65523";
 
+        PayloadFormat payloadFormat = PayloadFormat.BINARY;
+        PayloadSizeDistribution payloadSizeDistribution = PayloadSizeDistribution.UNIFORM;
+        String payloadSizes = "100, 200000";
+        int[] payloadSizesInt = {100, 200000};
+        double payloadSizeSigma = 0.5;
+        double producerRatePerPartition = 250.5;
+        int sequenceWindowSize = 128;
+        long leadershipReconcileInterval = 60000;
+        ThreadMode threadMode = ThreadMode.VIRTUAL;
+        int producerMaxInFlightPerPartition = 3;
+
         Map<String, String> testConfigurationMap = new HashMap<>();
         testConfigurationMap.put(CanaryConstants.BOOTSTRAP_SERVERS_ENV, bootstrapServer);
         testConfigurationMap.put(CanaryConstants.TOPIC_ENV, topicName);
@@ -93,6 +131,15 @@ public class CanaryConfigurationTest {
         testConfigurationMap.put(CanaryConstants.SASL_PASSWORD_ENV, saslPassword);
         testConfigurationMap.put(CanaryConstants.STATUS_CHECK_INTERVAL_MS_ENV, statusCheckIntervalString);
         testConfigurationMap.put(CanaryConstants.STATUS_TIME_WINDOW_MS_ENV, statusTimeWindowString);
+        testConfigurationMap.put(CanaryConstants.PAYLOAD_FORMAT_ENV, payloadFormat.getName());
+        testConfigurationMap.put(CanaryConstants.PAYLOAD_SIZE_DISTRIBUTION_ENV, payloadSizeDistribution.getName());
+        testConfigurationMap.put(CanaryConstants.PAYLOAD_SIZES_ENV, payloadSizes);
+        testConfigurationMap.put(CanaryConstants.PAYLOAD_SIZE_SIGMA_ENV, String.valueOf(payloadSizeSigma));
+        testConfigurationMap.put(CanaryConstants.PRODUCER_RATE_PER_PARTITION_ENV, String.valueOf(producerRatePerPartition));
+        testConfigurationMap.put(CanaryConstants.SEQUENCE_WINDOW_SIZE_ENV, String.valueOf(sequenceWindowSize));
+        testConfigurationMap.put(CanaryConstants.LEADERSHIP_RECONCILE_INTERVAL_MS_ENV, String.valueOf(leadershipReconcileInterval));
+        testConfigurationMap.put(CanaryConstants.THREAD_MODE_ENV, threadMode.getName());
+        testConfigurationMap.put(CanaryConstants.PRODUCER_MAX_IN_FLIGHT_PER_PARTITION_ENV, String.valueOf(producerMaxInFlightPerPartition));
 
         CanaryConfiguration canaryConfiguration = CanaryConfiguration.fromMap(testConfigurationMap);
 
@@ -113,6 +160,60 @@ public class CanaryConfigurationTest {
         assertThat(canaryConfiguration.getSaslPassword(), is(saslPassword));
         assertThat(canaryConfiguration.getStatusCheckInterval(), is(statusCheckInterval));
         assertThat(canaryConfiguration.getStatusTimeWindow(), is(statusTimeWindow));
+        assertThat(canaryConfiguration.getPayloadFormat(), is(payloadFormat));
+        assertThat(canaryConfiguration.getPayloadSizeDistribution(), is(payloadSizeDistribution));
+        assertThat(canaryConfiguration.getPayloadSizes(), is(payloadSizesInt));
+        assertThat(canaryConfiguration.getPayloadSizeSigma(), is(payloadSizeSigma));
+        assertThat(canaryConfiguration.getProducerRatePerPartition(), is(producerRatePerPartition));
+        assertThat(canaryConfiguration.getSequenceWindowSize(), is(sequenceWindowSize));
+        assertThat(canaryConfiguration.getLeadershipReconcileInterval(), is(leadershipReconcileInterval));
+        assertThat(canaryConfiguration.getThreadMode(), is(threadMode));
+        assertThat(canaryConfiguration.getProducerMaxInFlightPerPartition(), is(producerMaxInFlightPerPartition));
+    }
+
+    @Test
+    void testCustomClientsConfiguration() {
+        OffsetCommitMode offsetCommitMode = OffsetCommitMode.ASYNC;
+        long offsetCommitInterval = 10000L;
+        long groupCoordinatorProbeInterval = 15000L;
+        int producerShards = 4;
+        int consumerThreads = 2;
+        long rebalanceProbeInterval = 60000L;
+        List<String> followerFetchRacks = List.of("eu-west-1a", "eu-west-1b");
+        long offsetsExportInterval = 5000L;
+        long catchUpProbeInterval = 900000L;
+        long catchUpProbeLookback = 1800000L;
+        StartupPolicy consumerStartupPolicy = StartupPolicy.DRAIN;
+        long consumerStartupLookback = 120000L;
+
+        Map<String, String> testConfigurationMap = new HashMap<>();
+        testConfigurationMap.put(CanaryConstants.OFFSET_COMMIT_MODE_ENV, offsetCommitMode.getName());
+        testConfigurationMap.put(CanaryConstants.OFFSET_COMMIT_INTERVAL_MS_ENV, String.valueOf(offsetCommitInterval));
+        testConfigurationMap.put(CanaryConstants.GROUP_COORDINATOR_PROBE_INTERVAL_MS_ENV, String.valueOf(groupCoordinatorProbeInterval));
+        testConfigurationMap.put(CanaryConstants.PRODUCER_SHARDS_ENV, String.valueOf(producerShards));
+        testConfigurationMap.put(CanaryConstants.CONSUMER_THREADS_ENV, String.valueOf(consumerThreads));
+        testConfigurationMap.put(CanaryConstants.REBALANCE_PROBE_INTERVAL_MS_ENV, String.valueOf(rebalanceProbeInterval));
+        testConfigurationMap.put(CanaryConstants.FOLLOWER_FETCH_RACKS_ENV, String.join(",", followerFetchRacks));
+        testConfigurationMap.put(CanaryConstants.OFFSETS_EXPORT_INTERVAL_MS_ENV, String.valueOf(offsetsExportInterval));
+        testConfigurationMap.put(CanaryConstants.CATCH_UP_PROBE_INTERVAL_MS_ENV, String.valueOf(catchUpProbeInterval));
+        testConfigurationMap.put(CanaryConstants.CATCH_UP_PROBE_LOOKBACK_MS_ENV, String.valueOf(catchUpProbeLookback));
+        testConfigurationMap.put(CanaryConstants.CONSUMER_STARTUP_POLICY_ENV, consumerStartupPolicy.getName());
+        testConfigurationMap.put(CanaryConstants.CONSUMER_STARTUP_LOOKBACK_MS_ENV, String.valueOf(consumerStartupLookback));
+
+        CanaryConfiguration canaryConfiguration = CanaryConfiguration.fromMap(testConfigurationMap);
+
+        assertThat(canaryConfiguration.getOffsetCommitMode(), is(offsetCommitMode));
+        assertThat(canaryConfiguration.getOffsetCommitInterval(), is(offsetCommitInterval));
+        assertThat(canaryConfiguration.getGroupCoordinatorProbeInterval(), is(groupCoordinatorProbeInterval));
+        assertThat(canaryConfiguration.getProducerShards(), is(producerShards));
+        assertThat(canaryConfiguration.getConsumerThreads(), is(consumerThreads));
+        assertThat(canaryConfiguration.getRebalanceProbeInterval(), is(rebalanceProbeInterval));
+        assertThat(canaryConfiguration.getFollowerFetchRacks(), is(followerFetchRacks));
+        assertThat(canaryConfiguration.getOffsetsExportInterval(), is(offsetsExportInterval));
+        assertThat(canaryConfiguration.getCatchUpProbeInterval(), is(catchUpProbeInterval));
+        assertThat(canaryConfiguration.getCatchUpProbeLookback(), is(catchUpProbeLookback));
+        assertThat(canaryConfiguration.getConsumerStartupPolicy(), is(consumerStartupPolicy));
+        assertThat(canaryConfiguration.getConsumerStartupLookback(), is(consumerStartupLookback));
     }
 
     @Test
@@ -137,4 +238,17 @@ public class CanaryConfigurationTest {
         assertThat(canaryConfiguration.getSaslUser(), is(saslUser));
         assertThat(canaryConfiguration.getSaslPassword(), is(saslPassword));
     }
+
+    @Test
+    void testInvalidPayloadSizes() {
+        Map<String, String> testCanaryConfiguration = new HashMap<>();
+        testCanaryConfiguration.put(CanaryConstants.PAYLOAD_SIZE_DISTRIBUTION_ENV, "uniform");
+        testCanaryConfiguration.put(CanaryConstants.PAYLOAD_SIZES_ENV, "1000");
+
+        assertThrows(IllegalArgumentException.class, () -> CanaryConfiguration.fromMap(testCanaryConfiguration));
+
+        testCanaryConfiguration.put(CanaryConstants.PAYLOAD_SIZE_DISTRIBUTION_ENV, "pareto");
+
+        assertThrows(IllegalArgumentException.class, () -> CanaryConfiguration.fromMap(testCanaryConfiguration));
+    }
 }
@@ -6,6 +6,7 @@ package config;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.CoreMatchers.is;
@@ -47,4 +48,10 @@ public class CanaryConfigurationUtilsTest {
         assertThrows(IllegalArgumentException.class, () -> CanaryConfigurationUtils.createTopicConfig(topicConfigurationInvalid1));
         assertThrows(IllegalArgumentException.class, () -> CanaryConfigurationUtils.createTopicConfig(topicConfigurationInvalid2));
     }
+
+    @Test
+    void testCreateRacks() {
+        assertThat(CanaryConfigurationUtils.createRacks("eu-west-1a, eu-west-1b,,eu-west-1a"), is(List.of("eu-west-1a", "eu-west-1b")));
+        assertThat(CanaryConfigurationUtils.createRacks(""), is(List.of()));
+    }
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package status;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class StatusReportTest {
+
+    @Test
+    void testJsonPrint() {
+        String expectedJsonString = """
+            {
+              "Consuming" : {
+                "TimeWindow" : 60000,
+                "Percentage" : 100.0
+              },
+              "Latency" : {
+                "Produce" : {
+                  "0" : {
+                    "Count" : 10,
+                    "P50" : 2.5,
+                    "P95" : 4.0,
+                    "P99" : 4.5,
+                    "Max" : 5.0
+                  }
+                },
+                "EndToEnd" : { }
+              }
+            }""";
+
+        StatusReport statusReport = new StatusReport(new ConsumingStatus(60000, 100.0F),
+            Map.of(0, new LatencyPercentiles(10, 2.5, 4.0, 4.5, 5.0)), Map.of());
+        assertThat(statusReport.toJsonString(), is(expectedJsonString));
+    }
+}
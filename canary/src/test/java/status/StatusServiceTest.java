@@ -4,15 +4,20 @@
  */
 package status;
 
-import clients.MessageCountHolder;
+import clients.LatencyRecorders;
+import clients.MessageCounters;
 import config.CanaryConfiguration;
 import config.CanaryConstants;
 import org.junit.jupiter.api.Test;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
 
 public class StatusServiceTest {
     private static final long CHECK_INTERVAL = 30000;
@@ -30,6 +35,7 @@ public class StatusServiceTest {
         assertThat(statusService.getStatusCheckInterval(), is(CHECK_INTERVAL));
         assertThat(statusService.getConsumerRing().isEmpty(), is(true));
         assertThat(statusService.getProducerRing().isEmpty(), is(true));
+        assertThat(statusService.getLostRing().isEmpty(), is(true));
     }
 
     @Test
@@ -61,7 +67,7 @@ public class StatusServiceTest {
         assertThat(consumingStatus.timeWindow(), is(CHECK_INTERVAL * counter));
 
         // increase number of messages counter for producer
-        MessageCountHolder.getInstance().incrementProducedMessagesCount();
+        MessageCounters.getInstance().incrementProduced(0);
         statusService.statusCheck();
         counter++;
         consumingStatus = statusService.getConsumingStatus();
@@ -71,29 +77,136 @@ public class StatusServiceTest {
         assertThat(consumingStatus.timeWindow(), is(CHECK_INTERVAL * counter));
 
         // increase number of messages counter for both producer and consumer
-        MessageCountHolder.getInstance().incrementProducedMessagesCount();
-        MessageCountHolder.getInstance().incrementConsumedMessagesCount();
+        MessageCounters.getInstance().incrementProduced(0);
+        MessageCounters.getInstance().addConsumed(0, 1, 0);
 
         statusService.statusCheck();
         counter++;
         consumingStatus = statusService.getConsumingStatus();
 
-        assertThat(statusService.calculateConsumedPercentage(), is(50.0F));
-        assertThat(consumingStatus.percentage(), is(50.0F));
+        assertThat(statusService.calculateConsumedPercentage(), is(100.0F));
+        assertThat(consumingStatus.percentage(), is(100.0F));
         assertThat(consumingStatus.timeWindow(), is(CHECK_INTERVAL * counter));
 
-        // increase number of messages counter for both producer and consumer
-        MessageCountHolder.getInstance().incrementConsumedMessagesCount();
+        // one message delivered and one found lost
+        MessageCounters.getInstance().addConsumed(1, 1, 1);
 
         statusService.statusCheck();
         counter++;
         consumingStatus = statusService.getConsumingStatus();
 
-        assertThat(statusService.calculateConsumedPercentage(), is(100.0F));
-        assertThat(consumingStatus.percentage(), is(100.0F));
+        assertThat(statusService.calculateConsumedPercentage(), is(66.67F));
+        assertThat(consumingStatus.percentage(), is(66.67F));
         assertThat(consumingStatus.timeWindow(), is(CHECK_INTERVAL * counter));
     }
 
+    @Test
+    void testStalledPartitionIsCountedAsLost() {
+        StatusService statusService = createStatusService();
+        // the loss deadline of two reconcile intervals is two status checks
+        int stalledPartition = 41;
+
+        for (int i = 0; i < 2; i++) {
+            MessageCounters.getInstance().incrementProduced(stalledPartition);
+            statusService.statusCheck();
+        }
+
+        // nothing is overdue yet
+        assertThat(statusService.calculateConsumedPercentage(), is(-1.0F));
+
+        for (int i = 0; i < 3; i++) {
+            MessageCounters.getInstance().incrementProduced(stalledPartition);
+            statusService.statusCheck();
+        }
+
+        // the consumer sees no gap, the messages acknowledged before the deadline are overdue
+        assertThat(statusService.calculateConsumedPercentage(), is(0.0F));
+
+        // the overdue messages arrive late after all
+        MessageCounters.getInstance().addConsumed(stalledPartition, 5, 0);
+        statusService.statusCheck();
+
+        assertThat(statusService.calculateConsumedPercentage(CHECK_INTERVAL * 2), is(100.0F));
+    }
+
+    @Test
+    void testConsumingStatusWithCustomTimeWindow() {
+        StatusService statusService = createStatusService();
+
+        for (int i = 0; i < 20; i++) {
+            statusService.statusCheck();
+        }
+
+        // the configured time window covers 10 checks, the longer one all 20 of them
+        assertThat(statusService.getConsumingStatus().timeWindow(), is(TIME_WINDOW_INTERVAL));
+        assertThat(statusService.getConsumingStatus(24 * 3600 * 1000L).timeWindow(), is(CHECK_INTERVAL * 20));
+        assertThat(statusService.getConsumingStatus(CHECK_INTERVAL * 2).timeWindow(), is(CHECK_INTERVAL * 2));
+        assertThat(statusService.getConsumingStatus(CHECK_INTERVAL * 2).percentage(), is(-1.0F));
+    }
+
+    @Test
+    void testStatusReportLatencyPercentiles() {
+        StatusService statusService = createStatusService();
+
+        for (int i = 1; i <= 100; i++) {
+            LatencyRecorders.getInstance().recordEndToEndLatency(3, i);
+        }
+        LatencyRecorders.getInstance().recordProduceLatency(3, 0.5);
+        statusService.statusCheck();
+
+        LatencyPercentiles endToEnd = statusService.getStatusReport().endToEndLatency().get(3);
+        assertThat(endToEnd.count(), is(100L));
+        assertThat(endToEnd.p50(), is(closeTo(50, 1)));
+        assertThat(endToEnd.p95(), is(closeTo(95, 1)));
+        assertThat(endToEnd.p99(), is(closeTo(99, 1)));
+        assertThat(endToEnd.max(), is(closeTo(100, 1)));
+        assertThat(statusService.getStatusReport().produceLatency().get(3).max(), is(closeTo(0.5, 0.01)));
+
+        // nothing recorded in the last interval
+        statusService.statusCheck();
+        assertThat(statusService.getStatusReport(CHECK_INTERVAL).endToEndLatency().containsKey(3), is(false));
+        assertThat(statusService.getStatusReport().endToEndLatency().get(3).count(), is(100L));
+    }
+
+    @Test
+    void testStatusReportIsBuiltOncePerCheck() {
+        StatusService statusService = createStatusService();
+
+        statusService.statusCheck();
+        StatusReport statusReport = statusService.getStatusReport();
+
+        assertThat(statusService.getStatusReport(), is(sameInstance(statusReport)));
+        assertThat(statusService.getStatusReport(TIME_WINDOW_INTERVAL), is(sameInstance(statusReport)));
+
+        statusService.statusCheck();
+        assertThat(statusService.getStatusReport(), is(not(sameInstance(statusReport))));
+    }
+
+    @Test
+    void testReadersSeeWholeStatusChecks() throws InterruptedException {
+        StatusService statusService = createStatusService();
+        AtomicBoolean running = new AtomicBoolean(true);
+        // every check adds the same number of consumed and lost messages, so any window is exactly 50 %
+        Thread writer = new Thread(() -> {
+            while (running.get()) {
+                MessageCounters.getInstance().addConsumed(0, 1, 1);
+                statusService.statusCheck();
+            }
+        });
+
+        statusService.statusCheck();
+        MessageCounters.getInstance().addConsumed(0, 1, 1);
+        statusService.statusCheck();
+        writer.start();
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(statusService.getStatusReport(CHECK_INTERVAL * (i % 20 + 2)).consuming().percentage(), is(50.0F));
+        }
+
+        running.set(false);
+        writer.join();
+    }
+
     private StatusService createStatusService() {
         CanaryConfiguration canaryConfiguration = CanaryConfiguration.fromMap(STATUS_SERVICE_CONFIG);
         return new StatusService(canaryConfiguration);
@@ -0,0 +1,78 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package topic;
+
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class LeadershipPlanTest {
+    private static final String TOPIC = "__strimzi_canary";
+    private static final List<Integer> BROKERS = List.of(3, 1, 2);
+
+    @Test
+    void testBalancedTopicNeedsNoChange() {
+        LeadershipPlan plan = LeadershipPlan.create(TOPIC, BROKERS, List.of(
+            partition(0, 1, 1, 2, 3),
+            partition(1, 2, 2, 3, 1),
+            partition(2, 3, 3, 1, 2)
+        ));
+
+        assertThat(plan.isEmpty(), is(true));
+    }
+
+    @Test
+    void testLeaderMovedAwayFromPreferredReplica() {
+        LeadershipPlan plan = LeadershipPlan.create(TOPIC, BROKERS, List.of(
+            partition(0, 1, 1, 2, 3),
+            partition(1, 3, 2, 3, 1),
+            partition(2, 3, 3, 1, 2)
+        ));
+
+        assertThat(plan.reassignments().isEmpty(), is(true));
+        assertThat(plan.elections(), is(Set.of(new TopicPartition(TOPIC, 1))));
+    }
+
+    @Test
+    void testWrongPreferredReplicaIsReassigned() {
+        LeadershipPlan plan = LeadershipPlan.create(TOPIC, BROKERS, List.of(
+            partition(0, 1, 1, 2, 3),
+            // preferred replica of both partitions is broker 1
+            partition(1, 1, 1, 2, 3),
+            partition(2, 1, 1, 2)
+        ));
+
+        assertThat(plan.reassignments(), is(Map.of(
+            new TopicPartition(TOPIC, 1), List.of(2, 1, 3),
+            new TopicPartition(TOPIC, 2), List.of(3, 1)
+        )));
+        assertThat(plan.elections().isEmpty(), is(true));
+    }
+
+    @Test
+    void testPartitionWithoutLeaderIsElected() {
+        LeadershipPlan plan = LeadershipPlan.create(TOPIC, List.of(1), List.of(
+            new TopicPartitionInfo(0, null, List.of(new Node(1, "broker-1", 9092)), List.of())
+        ));
+
+        assertThat(plan.elections(), is(Set.of(new TopicPartition(TOPIC, 0))));
+    }
+
+    private static TopicPartitionInfo partition(int partition, int leader, Integer... replicas) {
+        List<Node> replicaNodes = Arrays.stream(replicas).map(id -> new Node(id, "broker-" + id, 9092)).toList();
+        Node leaderNode = replicaNodes.stream().filter(node -> node.id() == leader).findFirst().orElseThrow();
+
+        return new TopicPartitionInfo(partition, leaderNode, replicaNodes, replicaNodes);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package topic;
+
+import org.apache.kafka.common.config.TopicConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TopicTest {
+
+    @Test
+    void testRetentionIsSet() {
+        Topic topic = new Topic("canary", null);
+
+        assertThat(topic.ensureRetention(1200000), is(true));
+        assertThat(topic.topicConfig().get(TopicConfig.RETENTION_MS_CONFIG), is("1200000"));
+    }
+
+    @Test
+    void testShortRetentionIsRaised() {
+        Topic topic = new Topic("canary", new HashMap<>(Map.of(TopicConfig.RETENTION_MS_CONFIG, "600000")));
+
+        assertThat(topic.ensureRetention(1200000), is(true));
+        assertThat(topic.topicConfig().get(TopicConfig.RETENTION_MS_CONFIG), is("1200000"));
+    }
+
+    @Test
+    void testLongerRetentionIsKept() {
+        Topic topic = new Topic("canary", new HashMap<>(Map.of(TopicConfig.RETENTION_MS_CONFIG, "86400000")));
+        Topic unlimited = new Topic("canary", new HashMap<>(Map.of(TopicConfig.RETENTION_MS_CONFIG, "-1")));
+
+        assertThat(topic.ensureRetention(1200000), is(false));
+        assertThat(topic.topicConfig().get(TopicConfig.RETENTION_MS_CONFIG), is("86400000"));
+        assertThat(unlimited.ensureRetention(1200000), is(false));
+    }
+
+    @Test
+    void testNoRequirement() {
+        Topic topic = new Topic("canary", null);
+
+        assertThat(topic.ensureRetention(0), is(false));
+        assertThat(topic.topicConfig().get(TopicConfig.RETENTION_MS_CONFIG), is(nullValue()));
+    }
+}